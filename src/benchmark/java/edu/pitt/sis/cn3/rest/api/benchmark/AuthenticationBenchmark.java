@@ -0,0 +1,85 @@
+package edu.pitt.sis.cn3.rest.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.ContainerRequestContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.pitt.sis.cn3.rest.api.dto.JwtDTO;
+import edu.pitt.sis.cn3.rest.api.service.AuthFilterService;
+import edu.pitt.sis.cn3.rest.api.service.JwtEndpointService;
+
+/**
+ * Per request cost of the authentication: the sign in with Basic auth, the
+ * JWT verification of every other request, and the JWT generation. Each
+ * benchmark runs in its own fork, so the sign in of generateJwt doesn't
+ * invalidate the token verifyJwt is using.
+ *
+ * Oct 26, 2026 2:31:16 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+	private AuthFilterService authFilterService;
+
+	private JwtEndpointService jwtEndpointService;
+
+	private String basicAuthorization;
+
+	private String bearerAuthorization;
+
+	@Setup
+	public void setup() {
+		authFilterService = BenchmarkApplication.getBean(AuthFilterService.class);
+		jwtEndpointService = BenchmarkApplication.getBean(JwtEndpointService.class);
+
+		basicAuthorization = BenchmarkApplication.basicAuthorization();
+		JwtDTO jwt = jwtEndpointService.generateJwt(basicAuthorization);
+		bearerAuthorization = "Bearer " + jwt.getJwt();
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchmarkApplication.close();
+	}
+
+	@Benchmark
+	public ContainerRequestContext verifyBasicAuth() {
+		ContainerRequestContext requestContext = BenchmarkApplication.requestContext(basicAuthorization);
+		authFilterService.verifyBasicAuth(requestContext);
+
+		return requestContext;
+	}
+
+	@Benchmark
+	public ContainerRequestContext verifyJwt() {
+		ContainerRequestContext requestContext = BenchmarkApplication.requestContext(bearerAuthorization);
+		authFilterService.verifyJwt(requestContext);
+
+		return requestContext;
+	}
+
+	@Benchmark
+	public JwtDTO generateJwt() {
+		return jwtEndpointService.generateJwt(basicAuthorization);
+	}
+
+}
@@ -0,0 +1,168 @@
+package edu.pitt.sis.cn3.rest.api.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.UriInfo;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import edu.pitt.sis.cn3.db.entity.UserInfo;
+import edu.pitt.sis.cn3.db.service.UserInfoService;
+import edu.pitt.sis.cn3.rest.api.CN3RestApiApplication;
+import edu.pitt.sis.cn3.rest.api.security.Pbkdf2PasswordHasher;
+import edu.pitt.sis.cn3.rest.api.service.JobQueueEndpointService;
+
+/**
+ * The application services on the in-memory H2 database of the benchmark
+ * profile, without the web server. Started once per benchmark fork and
+ * seeded with one user, TARGET_USERS target users and JOBS jobs of that
+ * user.
+ *
+ * Oct 26, 2026 2:04:51 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public final class BenchmarkApplication {
+
+	public static final String EMAIL = "student@pitt.edu";
+
+	public static final String PASSWORD = "semester-start-2017";
+
+	public static final int TARGET_USERS = 100;
+
+	public static final int JOBS = 2000;
+
+	private static ConfigurableApplicationContext context;
+
+	private static Long userId;
+
+	private BenchmarkApplication() {
+	}
+
+	public static synchronized ConfigurableApplicationContext context() {
+		if (context == null) {
+			context = new SpringApplicationBuilder(CN3RestApiApplication.class)
+					.web(false)
+					.run("--spring.profiles.active=benchmark");
+			seed();
+		}
+
+		return context;
+	}
+
+	public static synchronized void close() {
+		if (context != null) {
+			context.close();
+			context = null;
+		}
+	}
+
+	public static Long userId() {
+		return userId;
+	}
+
+	public static <T> T getBean(Class<T> type) {
+		return context().getBean(type);
+	}
+
+	private static void seed() {
+		UserInfoService userInfoService = context.getBean(UserInfoService.class);
+		Pbkdf2PasswordHasher passwordHasher = context.getBean(Pbkdf2PasswordHasher.class);
+
+		UserInfo user = new UserInfo();
+		user.setEmail(EMAIL);
+		user.setPassword(passwordHasher.hash(PASSWORD));
+		user.setRoleId(1);
+		userInfoService.save(user);
+		userId = userInfoService.findByEmail(EMAIL).getId();
+
+		List<Long> targetUserIds = new ArrayList<>(TARGET_USERS);
+		Map<Long, Integer> priorities = new HashMap<>();
+		for (int i = 0; i < TARGET_USERS; i++) {
+			UserInfo targetUser = new UserInfo();
+			String email = String.format("target%d@pitt.edu", i);
+			targetUser.setEmail(email);
+			// Never signs in
+			targetUser.setPassword("");
+			targetUser.setRoleId(1);
+			userInfoService.save(targetUser);
+			Long targetUserId = userInfoService.findByEmail(email).getId();
+			targetUserIds.add(targetUserId);
+			priorities.put(targetUserId, 0);
+		}
+
+		JobQueueEndpointService jobQueueEndpointService = context.getBean(JobQueueEndpointService.class);
+		for (int submitted = 0; submitted < JOBS; submitted += TARGET_USERS) {
+			jobQueueEndpointService.addNewRecommendationRequestJobs(userId, targetUserIds, priorities);
+		}
+	}
+
+	public static String basicAuthorization() {
+		String credentials = EMAIL + ":" + PASSWORD;
+
+		return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Just what the authentication reads and writes of a request to
+	 * /{uid}/jobs.
+	 *
+	 * @param authorization the Authorization header
+	 * @return
+	 */
+	public static ContainerRequestContext requestContext(String authorization) {
+		MultivaluedMap<String, String> pathParameters = new MultivaluedHashMap<>();
+		pathParameters.putSingle("uid", String.valueOf(userId));
+		URI requestUri = URI.create(String.format("http://localhost:9090/cn3-api/%d/jobs", userId));
+		UriInfo uriInfo = (UriInfo) Proxy.newProxyInstance(UriInfo.class.getClassLoader(),
+				new Class<?>[] { UriInfo.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getPathParameters":
+						return pathParameters;
+					case "getRequestUri":
+						return requestUri;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+
+		Map<String, Object> properties = new HashMap<>();
+		SecurityContext[] securityContext = new SecurityContext[1];
+		return (ContainerRequestContext) Proxy.newProxyInstance(ContainerRequestContext.class.getClassLoader(),
+				new Class<?>[] { ContainerRequestContext.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getHeaderString":
+						return "Authorization".equalsIgnoreCase((String) args[0]) ? authorization : null;
+					case "getUriInfo":
+						return uriInfo;
+					case "getMethod":
+						return "GET";
+					case "getProperty":
+						return properties.get(args[0]);
+					case "setProperty":
+						properties.put((String) args[0], args[1]);
+						return null;
+					case "getSecurityContext":
+						return securityContext[0];
+					case "setSecurityContext":
+						securityContext[0] = (SecurityContext) args[0];
+						return null;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+}
@@ -0,0 +1,88 @@
+package edu.pitt.sis.cn3.rest.api.benchmark;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.pitt.sis.cn3.rest.api.security.CredentialVerifier;
+
+/**
+ * Per login cost of the password check: the original MD5/BigInteger code
+ * path against {@link CredentialVerifier}. Run with -prof gc to see the
+ * allocation per login.
+ *
+ * Oct 18, 2026 1:48:10 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CredentialVerifierBenchmark {
+
+	private static final String SALT = "cn3-benchmark-salt";
+
+	private static final String CREDENTIALS = "student@pitt.edu:semester-start-2017";
+
+	private String storedHash;
+
+	private CredentialVerifier credentialVerifier;
+
+	@Setup
+	public void setup() throws NoSuchAlgorithmException {
+		storedHash = legacyHash("semester-start-2017");
+		credentialVerifier = new CredentialVerifier(SALT);
+	}
+
+	@Benchmark
+	public boolean legacy() throws NoSuchAlgorithmException {
+		StringTokenizer tokenizer = new StringTokenizer(CREDENTIALS, ":");
+		tokenizer.nextToken();
+		String password = tokenizer.nextToken();
+
+		return storedHash.equals(legacyHash(password));
+	}
+
+	@Benchmark
+	public boolean credentialVerifier() {
+		int separator = CREDENTIALS.indexOf(':');
+		String password = CREDENTIALS.substring(separator + 1);
+
+		return credentialVerifier.matches(password, storedHash);
+	}
+
+	// The code AuthFilterService.retrieveUserInfo used to run on every login
+	private static String legacyHash(String password) throws NoSuchAlgorithmException {
+		MessageDigest m = MessageDigest.getInstance("MD5");
+		m.reset();
+		m.update(password.getBytes(Charset.forName("UTF-8")));
+		BigInteger bigInt = new BigInteger(1, m.digest());
+		String hashPassword = bigInt.toString(16);
+		hashPassword = hashPassword + SALT;
+		m.reset();
+		m.update(hashPassword.getBytes(Charset.forName("UTF-8")));
+		bigInt = new BigInteger(1, m.digest());
+
+		return bigInt.toString(16);
+	}
+
+}
@@ -0,0 +1,85 @@
+package edu.pitt.sis.cn3.rest.api.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobListQuery;
+import edu.pitt.sis.cn3.rest.api.service.JobQueueEndpointService;
+
+/**
+ * The job listings of listAllJobQueues, from the query to the DTOs, on the
+ * seeded H2 database: the whole list, a page of 100 and the queued jobs
+ * only. The serialization of the DTOs is in JsonDTOWriterBenchmark and
+ * JobListingSerializationBenchmark.
+ *
+ * Oct 26, 2026 2:52:40 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobListingBenchmark {
+
+	private JobQueueEndpointService jobQueueEndpointService;
+
+	private Long userId;
+
+	private JobListQuery allJobs;
+
+	private JobListQuery page;
+
+	private JobListQuery queuedJobs;
+
+	@Setup
+	public void setup() {
+		jobQueueEndpointService = BenchmarkApplication.getBean(JobQueueEndpointService.class);
+		userId = BenchmarkApplication.userId();
+
+		allJobs = new JobListQuery();
+
+		page = new JobListQuery();
+		page.setLimit(100);
+
+		queuedJobs = new JobListQuery();
+		queuedJobs.setStatus(JobStatus.QUEUED);
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchmarkApplication.close();
+	}
+
+	@Benchmark
+	public List<JobInfoDTO> allJobs() {
+		return jobQueueEndpointService.listAllJobQueues(userId, allJobs);
+	}
+
+	@Benchmark
+	public List<JobInfoDTO> page() {
+		return jobQueueEndpointService.listAllJobQueues(userId, page);
+	}
+
+	@Benchmark
+	public List<JobInfoDTO> queuedJobs() {
+		return jobQueueEndpointService.listAllJobQueues(userId, queuedJobs);
+	}
+
+}
@@ -0,0 +1,149 @@
+package edu.pitt.sis.cn3.rest.api.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.jaxrs.cbor.JacksonJaxbCBORProvider;
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.fasterxml.jackson.jaxrs.smile.JacksonJaxbSmileProvider;
+
+import edu.pitt.sis.cn3.rest.api.BinaryMediaType;
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+
+/**
+ * Serialization throughput and bytes on the wire of a 10k job listing, per
+ * representation and with or without gzip. The bytes of each combination
+ * are printed at the end of its trial.
+ *
+ * The JSON, CBOR and Smile listings go through the same Jackson providers as
+ * the endpoints, the XML one is marshalled element by element inside the
+ * collection element like the Jersey JAXB collection writer does.
+ *
+ * Oct 25, 2026 11:40:22 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobListingSerializationBenchmark {
+
+	private static final int JOBS = 10000;
+
+	private static final Type LIST_TYPE = new GenericType<List<JobInfoDTO>>() {
+	}.getType();
+
+	@Param({ "json", "xml", "cbor", "smile" })
+	private String format;
+
+	@Param({ "identity", "gzip" })
+	private String encoding;
+
+	private List<JobInfoDTO> jobInfos;
+
+	private MessageBodyWriter<Object> writer;
+
+	private MediaType mediaType;
+
+	private Marshaller marshaller;
+
+	private ByteArrayOutputStream output;
+
+	@Setup
+	public void setup() throws JAXBException {
+		jobInfos = new ArrayList<>(JOBS);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < JOBS; i++) {
+			jobInfos.add(new JobInfoDTO(1000000L + i, 20000L + (i * 7919L) % 50000, i % 4 == 0 ? JobStatus.QUEUED
+					: JobStatus.FINISHED, new Date(now - (JOBS - i) * 1000L)));
+		}
+
+		switch (format) {
+		case "json":
+			writer = new JacksonJaxbJsonProvider();
+			mediaType = MediaType.APPLICATION_JSON_TYPE;
+			break;
+		case "cbor":
+			writer = new JacksonJaxbCBORProvider();
+			mediaType = MediaType.valueOf(BinaryMediaType.APPLICATION_CBOR);
+			break;
+		case "smile":
+			writer = new JacksonJaxbSmileProvider();
+			mediaType = MediaType.valueOf(BinaryMediaType.APPLICATION_SMILE);
+			break;
+		case "xml":
+			marshaller = JAXBContext.newInstance(JobInfoDTO.class).createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+			break;
+		default:
+			throw new IllegalArgumentException(format);
+		}
+
+		output = new ByteArrayOutputStream(1 << 20);
+	}
+
+	@Benchmark
+	public int listing() throws IOException, JAXBException {
+		output.reset();
+		OutputStream stream = "gzip".equals(encoding) ? new GZIPOutputStream(output, 8192) : output;
+		if (marshaller != null) {
+			writeXml(stream);
+		} else {
+			writer.writeTo(jobInfos, List.class, LIST_TYPE, new Annotation[0], mediaType,
+					new MultivaluedHashMap<String, Object>(), stream);
+		}
+		stream.close();
+
+		return output.size();
+	}
+
+	private void writeXml(OutputStream stream) throws IOException, JAXBException {
+		stream.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><jobInfoes>"
+				.getBytes(StandardCharsets.UTF_8));
+		for (JobInfoDTO jobInfo : jobInfos) {
+			marshaller.marshal(jobInfo, stream);
+		}
+		stream.write("</jobInfoes>".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException, JAXBException {
+		System.out.printf("%n%s/%s: %d bytes for %d jobs%n", format, encoding, listing(), JOBS);
+	}
+
+}
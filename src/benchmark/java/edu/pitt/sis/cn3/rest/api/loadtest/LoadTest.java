@@ -0,0 +1,465 @@
+package edu.pitt.sis.cn3.rest.api.loadtest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import edu.pitt.sis.cn3.db.entity.UserInfo;
+import edu.pitt.sis.cn3.db.service.UserInfoService;
+import edu.pitt.sis.cn3.rest.api.CN3RestApiApplication;
+import edu.pitt.sis.cn3.rest.api.dto.JobSubmissionResult;
+import edu.pitt.sis.cn3.rest.api.loadtest.LoadTestClient.Response;
+import edu.pitt.sis.cn3.rest.api.security.Pbkdf2PasswordHasher;
+import edu.pitt.sis.cn3.rest.api.service.JobQueueEndpointService;
+import edu.pitt.sis.cn3.rest.api.thread.VirtualThreads;
+
+/**
+ * End-to-end load test of the whole stack: Jetty, Jersey and its filters,
+ * JPA and the in-memory H2 database of the benchmark profile (in MySQL mode).
+ * The application is started on a free port and seeded with
+ * loadtest.users users, each with loadtest.jobs-per-user jobs.
+ *
+ * The requests are sent at the fixed loadtest.rate per second whatever the
+ * responses take, each one on its own thread, and the response time is
+ * measured from when the request was due rather than from when it was sent,
+ * so a stalled server shows up in the latencies instead of slowing the load
+ * down (no coordinated omission). The service time, from when the request
+ * was actually sent, is recorded next to it.
+ *
+ * The requests are drawn from loadtest.mix, by weight:
+ * - login: GET /jwt, by the loadtest.login-users users who do nothing else,
+ * as the sign in overwrites the token of the user
+ * - submit: POST /{uid}/jobs
+ * - list: GET /{uid}/jobs?limit=100
+ * - status: GET /{uid}/jobs/{id} of the latest job of the user
+ * - cancel: DELETE /{uid}/jobs/{id} of the latest job of the user
+ *
+ * The HDR histograms of each endpoint are printed and written to
+ * loadtest.output as .hgrm files, in milliseconds. The arguments are passed
+ * on to the application, e.g. --cn3.threads.virtual=true. Run with:
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=edu.pitt.sis.cn3.rest.api.loadtest.LoadTest
+ * -Dloadtest.rate=500
+ *
+ * With loadtest.compare, the same test is run against the application on
+ * platform threads and then on virtual threads, on JDK 21 or later. The
+ * percentiles of both are printed side by side, and the histograms are
+ * written to the platform and virtual directories of loadtest.output.
+ *
+ * Oct 27, 2026 10:42:35 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class LoadTest {
+
+	private static final String PASSWORD = "load-test";
+
+	private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(10);
+
+	private final Settings settings;
+
+	private final LoadTestClient client;
+
+	private final List<Long> loginUserIds;
+
+	private final List<Long> userIds;
+
+	// The jobs of each user, latest last
+	private final Map<Long, ConcurrentLinkedDeque<Long>> jobIds;
+
+	private final Map<Long, String> tokens = new HashMap<>();
+
+	private final Map<Endpoint, Histogram> responseTimes = new EnumMap<>(Endpoint.class);
+
+	private final Map<Endpoint, Histogram> serviceTimes = new EnumMap<>(Endpoint.class);
+
+	private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+
+	private final Endpoint[] mix;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private volatile boolean recording;
+
+	private LoadTest(Settings settings, LoadTestClient client, List<Long> loginUserIds, List<Long> userIds,
+			Map<Long, ConcurrentLinkedDeque<Long>> jobIds) {
+		this.settings = settings;
+		this.client = client;
+		this.loginUserIds = loginUserIds;
+		this.userIds = userIds;
+		this.jobIds = jobIds;
+		this.mix = settings.mix();
+		for (Endpoint endpoint : Endpoint.values()) {
+			responseTimes.put(endpoint, new ConcurrentHistogram(HIGHEST_LATENCY, 3));
+			serviceTimes.put(endpoint, new ConcurrentHistogram(HIGHEST_LATENCY, 3));
+			errors.put(endpoint, new AtomicLong());
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Settings settings = new Settings();
+		// Idle keep-alive connections kept by HttpURLConnection
+		System.setProperty("http.maxConnections", String.valueOf(settings.maxConnections));
+
+		if (!settings.compare) {
+			run(settings, Arrays.asList(args)).report(new File(settings.output));
+			return;
+		}
+
+		if (!VirtualThreads.isSupported()) {
+			throw new IllegalStateException("loadtest.compare requires JDK 21 or later for the virtual threads.");
+		}
+		// The same mix against a fresh application on each kind of thread, the
+		// client threads are the same for both
+		LoadTest platform = run(settings, compareArgs(args, false));
+		LoadTest virtual = run(settings, compareArgs(args, true));
+		platform.report(new File(settings.output, "platform"));
+		virtual.report(new File(settings.output, "virtual"));
+		compare(platform, virtual);
+	}
+
+	private static List<String> compareArgs(String[] args, boolean virtualThreads) {
+		List<String> compareArgs = new ArrayList<>(Arrays.asList(args));
+		compareArgs.add("--cn3.threads.virtual=" + virtualThreads);
+		// The schema is dropped with the application, not the write-ahead log
+		compareArgs.add(String.format("--cn3.jobs.wal.path=target/loadtest_jobs_%s.wal",
+				virtualThreads ? "virtual" : "platform"));
+
+		return compareArgs;
+	}
+
+	private static LoadTest run(Settings settings, List<String> args) throws Exception {
+		List<String> applicationArgs = new ArrayList<>(Arrays.asList(
+				"--spring.profiles.active=benchmark", "--server.port=0"));
+		applicationArgs.addAll(args);
+		System.out.printf("Starting the application with %s%n", args);
+		ConfigurableApplicationContext context = SpringApplication.run(CN3RestApiApplication.class,
+				applicationArgs.toArray(new String[applicationArgs.size()]));
+		try {
+			int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+			LoadTestClient client = new LoadTestClient(String.format("http://localhost:%d/cn3-api", port));
+
+			System.out.printf("Seeding %d users and %d jobs per user%n", settings.users, settings.jobsPerUser);
+			LoadTest loadTest = seed(context, settings, client);
+			loadTest.signIn();
+
+			System.out.printf("Warming up for %d seconds at %d requests per second%n", settings.warmup, settings.rate);
+			loadTest.drive(settings.warmup);
+			loadTest.recording = true;
+			System.out.printf("Running for %d seconds at %d requests per second%n", settings.duration, settings.rate);
+			loadTest.drive(settings.duration);
+
+			return loadTest;
+		} finally {
+			context.close();
+		}
+	}
+
+	private static LoadTest seed(ConfigurableApplicationContext context, Settings settings, LoadTestClient client) {
+		UserInfoService userInfoService = context.getBean(UserInfoService.class);
+		JobQueueEndpointService jobQueueEndpointService = context.getBean(JobQueueEndpointService.class);
+		// One hash for all the users, hashing is what the sign in measures
+		String passwordHash = context.getBean(Pbkdf2PasswordHasher.class).hash(PASSWORD);
+
+		List<Long> loginUserIds = new ArrayList<>();
+		List<Long> userIds = new ArrayList<>();
+		for (int i = 0; i < settings.users; i++) {
+			String email = email(i);
+			UserInfo userInfo = new UserInfo();
+			userInfo.setEmail(email);
+			userInfo.setPassword(passwordHash);
+			userInfo.setRoleId(1);
+			userInfoService.save(userInfo);
+			Long userId = userInfoService.findByEmail(email).getId();
+			(i < settings.loginUsers ? loginUserIds : userIds).add(userId);
+		}
+
+		Map<Long, ConcurrentLinkedDeque<Long>> jobIds = new HashMap<>();
+		for (Long userId : userIds) {
+			List<Long> targetUserIds = new ArrayList<>(settings.jobsPerUser);
+			Map<Long, Integer> priorities = new HashMap<>();
+			for (int i = 0; i < settings.jobsPerUser; i++) {
+				Long targetUserId = userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+				targetUserIds.add(targetUserId);
+				priorities.put(targetUserId, 0);
+			}
+			ConcurrentLinkedDeque<Long> userJobIds = new ConcurrentLinkedDeque<>();
+			for (JobSubmissionResult result : jobQueueEndpointService.addNewRecommendationRequestJobs(userId,
+					targetUserIds, priorities)) {
+				if (result.getJob() != null) {
+					userJobIds.add(result.getJob().getId());
+				}
+			}
+			jobIds.put(userId, userJobIds);
+		}
+
+		return new LoadTest(settings, client, loginUserIds, userIds, jobIds);
+	}
+
+	private static String email(int i) {
+		return String.format("user%d@pitt.edu", i);
+	}
+
+	private static String basicAuthorization(String email) {
+		String credentials = email + ":" + PASSWORD;
+
+		return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// The tokens of the users that don't sign in during the test
+	private void signIn() throws IOException {
+		for (int i = settings.loginUsers; i < settings.users; i++) {
+			Response response = client.send("GET", "/jwt", basicAuthorization(email(i)), null);
+			if (response.getStatus() != 200) {
+				throw new IllegalStateException(String.format("Sign in of %s failed: %d", email(i), response.getStatus()));
+			}
+			tokens.put(userIds.get(i - settings.loginUsers), "Bearer " + response.json().get("jwt").asText());
+		}
+	}
+
+	private void drive(int seconds) throws InterruptedException {
+		ExecutorService executor = settings.virtualThreads ? VirtualThreads.newThreadPerTaskExecutor("load-test-")
+				: Executors.newCachedThreadPool();
+		double interval = TimeUnit.SECONDS.toNanos(1) / (double) settings.rate;
+		long requests = (long) seconds * settings.rate;
+		long start = System.nanoTime();
+		for (long i = 0; i < requests; i++) {
+			long due = start + (long) (i * interval);
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+
+			Endpoint endpoint = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+			inFlight.incrementAndGet();
+			executor.execute(() -> {
+				try {
+					call(endpoint, due);
+				} finally {
+					inFlight.decrementAndGet();
+				}
+			});
+		}
+
+		executor.shutdown();
+		if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+			System.out.printf("%d requests still in flight%n", inFlight.get());
+		}
+	}
+
+	private void call(Endpoint endpoint, long due) {
+		long sent = System.nanoTime();
+		boolean success;
+		try {
+			success = send(endpoint);
+		} catch (IOException | RuntimeException e) {
+			success = false;
+		}
+		long done = System.nanoTime();
+
+		if (recording) {
+			responseTimes.get(endpoint).recordValue(Math.min(done - due, HIGHEST_LATENCY));
+			serviceTimes.get(endpoint).recordValue(Math.min(done - sent, HIGHEST_LATENCY));
+			if (!success) {
+				errors.get(endpoint).incrementAndGet();
+			}
+		}
+	}
+
+	private boolean send(Endpoint endpoint) throws IOException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (endpoint == Endpoint.LOGIN) {
+			int i = random.nextInt(settings.loginUsers);
+			return client.send("GET", "/jwt", basicAuthorization(email(i)), null).getStatus() == 200;
+		}
+
+		Long userId = userIds.get(random.nextInt(userIds.size()));
+		String authorization = tokens.get(userId);
+		ConcurrentLinkedDeque<Long> userJobIds = jobIds.get(userId);
+		Response response;
+		switch (endpoint) {
+		case SUBMIT:
+			Long targetUserId = userIds.get(random.nextInt(userIds.size()));
+			response = client.send("POST", String.format("/%d/jobs", userId), authorization,
+					String.format("{\"targetUserId\":%d}", targetUserId));
+			if (response.getStatus() != 200 && response.getStatus() != 201) {
+				return false;
+			}
+			userJobIds.add(response.json().get("id").asLong());
+			return true;
+		case LIST:
+			response = client.send("GET", String.format("/%d/jobs?limit=100", userId), authorization, null);
+			return response.getStatus() == 200;
+		case STATUS:
+			Long jobId = userJobIds.peekLast();
+			if (jobId == null) {
+				return false;
+			}
+			// Cancelled in the meantime
+			int status = client.send("GET", String.format("/%d/jobs/%d", userId, jobId), authorization, null)
+					.getStatus();
+			return status == 200 || status == 404;
+		case CANCEL:
+			Long cancelledJobId = userJobIds.pollLast();
+			if (cancelledJobId == null) {
+				return false;
+			}
+			// Not queued anymore
+			int cancelStatus = client.send("DELETE", String.format("/%d/jobs/%d", userId, cancelledJobId),
+					authorization, null).getStatus();
+			return cancelStatus == 204 || cancelStatus == 409;
+		default:
+			throw new IllegalArgumentException(endpoint.name());
+		}
+	}
+
+	private void report(File output) throws IOException {
+		output.mkdirs();
+
+		System.out.printf("%n%-8s %10s %8s %10s %10s %10s %10s %10s%n", "", "requests", "errors", "p50 ms",
+				"p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (Endpoint endpoint : Endpoint.values()) {
+			Histogram histogram = responseTimes.get(endpoint);
+			if (histogram.getTotalCount() == 0) {
+				continue;
+			}
+			System.out.printf("%-8s %10d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", endpoint.label(),
+					histogram.getTotalCount(), errors.get(endpoint).get(), millis(histogram.getValueAtPercentile(50)),
+					millis(histogram.getValueAtPercentile(90)), millis(histogram.getValueAtPercentile(99)),
+					millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+
+			write(histogram, new File(output, endpoint.label() + ".hgrm"));
+			write(serviceTimes.get(endpoint), new File(output, endpoint.label() + "-service.hgrm"));
+		}
+		System.out.printf("%nHistograms written to %s%n", output.getAbsolutePath());
+	}
+
+	// The response times of both runs, percentile by percentile
+	private static void compare(LoadTest platform, LoadTest virtual) {
+		double[] percentiles = { 50, 90, 99, 99.9, 100 };
+		String[] labels = { "p50", "p90", "p99", "p99.9", "max" };
+		System.out.printf("%n%-8s %-8s %12s %12s %10s%n", "", "", "platform ms", "virtual ms", "change");
+		for (Endpoint endpoint : Endpoint.values()) {
+			Histogram platformHistogram = platform.responseTimes.get(endpoint);
+			Histogram virtualHistogram = virtual.responseTimes.get(endpoint);
+			if (platformHistogram.getTotalCount() == 0 && virtualHistogram.getTotalCount() == 0) {
+				continue;
+			}
+			System.out.printf("%-8s %-8s %12d %12d%n", endpoint.label(), "requests",
+					platformHistogram.getTotalCount(), virtualHistogram.getTotalCount());
+			System.out.printf("%-8s %-8s %12d %12d%n", "", "errors", platform.errors.get(endpoint).get(),
+					virtual.errors.get(endpoint).get());
+			for (int i = 0; i < percentiles.length; i++) {
+				double platformMillis = millis(platformHistogram.getValueAtPercentile(percentiles[i]));
+				double virtualMillis = millis(virtualHistogram.getValueAtPercentile(percentiles[i]));
+				System.out.printf("%-8s %-8s %12.2f %12.2f %9.1f%%%n", "", labels[i], platformMillis, virtualMillis,
+						platformMillis == 0 ? 0 : (virtualMillis - platformMillis) * 100 / platformMillis);
+			}
+		}
+	}
+
+	private static void write(Histogram histogram, File file) throws IOException {
+		try (PrintStream printStream = new PrintStream(new FileOutputStream(file), false, "UTF-8")) {
+			histogram.outputPercentileDistribution(printStream, (double) TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	private static double millis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	private enum Endpoint {
+
+		LOGIN, SUBMIT, LIST, STATUS, CANCEL;
+
+		String label() {
+			return name().toLowerCase();
+		}
+
+	}
+
+	private static final class Settings {
+
+		private final int users = Integer.getInteger("loadtest.users", 200);
+
+		private final int loginUsers = Integer.getInteger("loadtest.login-users", 20);
+
+		private final int jobsPerUser = Integer.getInteger("loadtest.jobs-per-user", 20);
+
+		// Requests per second
+		private final int rate = Integer.getInteger("loadtest.rate", 200);
+
+		// In seconds
+		private final int warmup = Integer.getInteger("loadtest.warmup", 15);
+
+		private final int duration = Integer.getInteger("loadtest.duration", 60);
+
+		private final String mix = System.getProperty("loadtest.mix", "login:5,submit:20,list:25,status:45,cancel:5");
+
+		private final int maxConnections = Integer.getInteger("loadtest.max-connections", 256);
+
+		// Client threads, the server side is set with --cn3.threads.virtual
+		private final boolean virtualThreads = Boolean.getBoolean("loadtest.virtual-threads")
+				&& VirtualThreads.isSupported();
+
+		private final String output = System.getProperty("loadtest.output", "target/loadtest");
+
+		// Run once with --cn3.threads.virtual=false and once with true
+		private final boolean compare = Boolean.getBoolean("loadtest.compare");
+
+		private Settings() {
+			if (users <= loginUsers) {
+				throw new IllegalArgumentException("loadtest.users must be greater than loadtest.login-users.");
+			}
+			if (rate < 1) {
+				throw new IllegalArgumentException("loadtest.rate must be at least 1.");
+			}
+		}
+
+		// One entry per unit of weight
+		private Endpoint[] mix() {
+			List<Endpoint> endpoints = new ArrayList<>();
+			for (String entry : mix.split(",")) {
+				String[] parts = entry.trim().split(":");
+				Endpoint endpoint = Endpoint.valueOf(parts[0].trim().toUpperCase());
+				if (endpoint == Endpoint.LOGIN && loginUsers == 0) {
+					continue;
+				}
+				for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) {
+					endpoints.add(endpoint);
+				}
+			}
+			if (endpoints.isEmpty()) {
+				throw new IllegalArgumentException("loadtest.mix has no weight.");
+			}
+
+			return endpoints.toArray(new Endpoint[endpoints.size()]);
+		}
+
+	}
+
+}
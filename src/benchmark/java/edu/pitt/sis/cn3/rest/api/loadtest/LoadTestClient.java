@@ -0,0 +1,91 @@
+package edu.pitt.sis.cn3.rest.api.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Plain HttpURLConnection client of the API, the connections are kept alive
+ * by the JDK (up to the http.maxConnections system property per host). The
+ * whole response is read so the connection can be reused.
+ *
+ * Oct 27, 2026 10:14:08 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+final class LoadTestClient {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final String baseUrl;
+
+	LoadTestClient(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	Response send(String method, String path, String authorization, String json) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		connection.setRequestMethod(method);
+		connection.setRequestProperty("Accept", "application/json");
+		connection.setRequestProperty("Authorization", authorization);
+		if (json != null) {
+			byte[] body = json.getBytes(StandardCharsets.UTF_8);
+			connection.setDoOutput(true);
+			connection.setRequestProperty("Content-Type", "application/json");
+			connection.setFixedLengthStreamingMode(body.length);
+			try (OutputStream output = connection.getOutputStream()) {
+				output.write(body);
+			}
+		}
+
+		int status = connection.getResponseCode();
+		InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+
+		return new Response(status, read(input));
+	}
+
+	private static byte[] read(InputStream input) throws IOException {
+		if (input == null) {
+			return new byte[0];
+		}
+
+		try (InputStream in = input) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = in.read(buffer)) != -1) {
+				output.write(buffer, 0, length);
+			}
+			return output.toByteArray();
+		}
+	}
+
+	static final class Response {
+
+		private final int status;
+
+		private final byte[] body;
+
+		private Response(int status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		int getStatus() {
+			return status;
+		}
+
+		JsonNode json() throws IOException {
+			return OBJECT_MAPPER.readTree(body);
+		}
+
+	}
+
+}
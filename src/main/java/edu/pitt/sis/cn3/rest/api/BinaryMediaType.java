@@ -0,0 +1,21 @@
+package edu.pitt.sis.cn3.rest.api;
+
+/**
+ * Compact binary representations of the DTOs, next to JSON and XML. Both
+ * are written by Jackson, so they carry the same fields as the JSON one.
+ *
+ * Oct 25, 2026 10:12:37 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class BinaryMediaType {
+
+	// RFC 7049
+	public static final String APPLICATION_CBOR = "application/cbor";
+
+	public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+	private BinaryMediaType() {
+	}
+
+}
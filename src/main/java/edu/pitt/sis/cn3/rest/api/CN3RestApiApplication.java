@@ -3,6 +3,7 @@ package edu.pitt.sis.cn3.rest.api;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import edu.pitt.sis.cn3.db.CN3DatabaseApplication;
 
@@ -14,6 +15,7 @@ import edu.pitt.sis.cn3.db.CN3DatabaseApplication;
  */
 @SpringBootApplication
 @Import({CN3DatabaseApplication.class})
+@EnableScheduling
 public class CN3RestApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,37 @@
+package edu.pitt.sis.cn3.rest.api;
+
+/**
+ * Values of the `status` field of the job queue table.
+ *
+ * cn3-db only maps the column as an int, and 0 is what the job submissions
+ * have always written. The other values are the contract of the worker
+ * lease API (JobDispatchEndpoint): a claim sets RUNNING, and the workers
+ * report FINISHED or FAILED, or QUEUED to hand a job back, when they
+ * complete the lease. Workers that update the table themselves have to
+ * write the same values. Anything other than FINISHED and FAILED counts as
+ * an active job.
+ *
+ * Oct 19, 2026 4:55:12 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class JobStatus {
+
+	// Written on submission
+	public static final int QUEUED = 0;
+
+	// Claimed by a worker
+	public static final int RUNNING = 1;
+
+	public static final int FINISHED = 2;
+
+	public static final int FAILED = 3;
+
+	private JobStatus() {
+	}
+
+	public static boolean isTerminal(int status) {
+		return status == FINISHED || status == FAILED;
+	}
+
+}
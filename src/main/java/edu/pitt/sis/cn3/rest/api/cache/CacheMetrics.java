@@ -0,0 +1,27 @@
+package edu.pitt.sis.cn3.rest.api.cache;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Exports the statistics of a Caffeine cache as cache.&lt;name&gt;.* gauges.
+ *
+ * Oct 18, 2026 4:35:02 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+final class CacheMetrics {
+
+	private CacheMetrics() {
+	}
+
+	static void register(MetricRegistry metricRegistry, String name, Cache<?, ?> cache) {
+		String prefix = MetricRegistry.name("cache", name);
+		metricRegistry.register(MetricRegistry.name(prefix, "hits"), (Gauge<Long>) () -> cache.stats().hitCount());
+		metricRegistry.register(MetricRegistry.name(prefix, "misses"), (Gauge<Long>) () -> cache.stats().missCount());
+		metricRegistry.register(MetricRegistry.name(prefix, "evictions"), (Gauge<Long>) () -> cache.stats().evictionCount());
+		metricRegistry.register(MetricRegistry.name(prefix, "size"), (Gauge<Long>) cache::estimatedSize);
+	}
+
+}
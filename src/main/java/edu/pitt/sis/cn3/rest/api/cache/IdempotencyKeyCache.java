@@ -0,0 +1,168 @@
+package edu.pitt.sis.cn3.rest.api.cache;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobSubmissionResult;
+import edu.pitt.sis.cn3.rest.api.exception.InternalErrorException;
+import edu.pitt.sis.cn3.rest.api.exception.InvalidRequestException;
+import edu.pitt.sis.cn3.rest.api.exception.ServiceUnavailableException;
+
+/**
+ * Jobs submitted with an `Idempotency-Key` header, by owner and key, so that
+ * a retried submission gets the job of the first one instead of a new job.
+ *
+ * Bounded, and a key is only remembered for cn3.jobs.idempotency.window
+ * seconds. A retry that arrives while the first submission is still running
+ * waits for it.
+ *
+ * Oct 22, 2026 10:21:33 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class IdempotencyKeyCache {
+
+	public static final int MAX_KEY_LENGTH = 255;
+
+	private static final long RETRY_AFTER_SECONDS = 1;
+
+	// Longest wait for the first submission of the same key
+	private static final long WAIT_TIMEOUT = 10000;
+
+	private final Cache<SubmissionKey, CompletableFuture<Submission>> cache;
+
+	private final Meter replayed;
+
+	@Autowired
+	public IdempotencyKeyCache(@Value("${cn3.jobs.idempotency.max-size}") long maxSize,
+			@Value("${cn3.jobs.idempotency.window}") long window,
+			MetricRegistry metricRegistry) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(window, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+
+		CacheMetrics.register(metricRegistry, "idempotency", cache);
+		this.replayed = metricRegistry.meter("jobs.idempotency.replayed");
+	}
+
+	/**
+	 * Run the submission unless the owner already used the key, in which case
+	 * the job of the first submission is returned.
+	 *
+	 * @param ownerId
+	 * @param idempotencyKey
+	 * @param targetUserId
+	 * @param submission
+	 * @return
+	 */
+	public JobSubmissionResult submit(Long ownerId, String idempotencyKey, Long targetUserId,
+			Supplier<JobSubmissionResult> submission) {
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+			throw new InvalidRequestException(String.format("The Idempotency-Key must be 1 to %d characters long.", MAX_KEY_LENGTH));
+		}
+
+		SubmissionKey key = new SubmissionKey(ownerId, idempotencyKey);
+		while (true) {
+			CompletableFuture<Submission> first = new CompletableFuture<>();
+			CompletableFuture<Submission> existing = cache.asMap().putIfAbsent(key, first);
+			if (existing == null) {
+				try {
+					JobSubmissionResult result = submission.get();
+					first.complete(new Submission(targetUserId, result.getJob()));
+					return result;
+				} catch (RuntimeException e) {
+					// Nothing was submitted, let the client try again
+					cache.asMap().remove(key, first);
+					first.completeExceptionally(e);
+					throw e;
+				}
+			}
+
+			Submission previous = await(existing);
+			if (previous == null) {
+				continue;
+			}
+			if (!previous.targetUserId.equals(targetUserId)) {
+				throw new InvalidRequestException("The Idempotency-Key has already been used for another job.");
+			}
+
+			replayed.mark();
+			return JobSubmissionResult.existing(previous.job);
+		}
+	}
+
+	// Returns null when the first submission failed
+	private Submission await(CompletableFuture<Submission> future) {
+		try {
+			return future.get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			return null;
+		} catch (TimeoutException e) {
+			throw new ServiceUnavailableException("The job with the same Idempotency-Key is still being submitted.", RETRY_AFTER_SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException("Interrupted while waiting for the job with the same Idempotency-Key.");
+		}
+	}
+
+	private static final class SubmissionKey {
+
+		private final Long ownerId;
+
+		private final String idempotencyKey;
+
+		private SubmissionKey(Long ownerId, String idempotencyKey) {
+			this.ownerId = ownerId;
+			this.idempotencyKey = idempotencyKey;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * ownerId.hashCode() + idempotencyKey.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SubmissionKey)) {
+				return false;
+			}
+			SubmissionKey other = (SubmissionKey) obj;
+			return ownerId.equals(other.ownerId) && idempotencyKey.equals(other.idempotencyKey);
+		}
+
+	}
+
+	private static final class Submission {
+
+		private final Long targetUserId;
+
+		private final JobInfoDTO job;
+
+		private Submission(Long targetUserId, JobInfoDTO job) {
+			this.targetUserId = Objects.requireNonNull(targetUserId);
+			this.job = job;
+		}
+
+	}
+
+}
@@ -0,0 +1,219 @@
+package edu.pitt.sis.cn3.rest.api.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+/**
+ * Bounded cache of JSON Web Tokens that already passed the full verification
+ * (signature, issuer and the `public_key` comparison), keyed by the SHA-256
+ * hash of the token so that raw tokens are never kept in memory.
+ *
+ * Entries are dropped as soon as a new token is issued to the same user.
+ *
+ * Oct 18, 2026 9:12:05 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class JwtVerificationCache {
+
+	private static final int STAMP_STRIPES = 1024;
+
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final Cache<TokenKey, VerifiedJwt> cache;
+
+	// Only one token per user can be valid at a time, so one key per user is
+	// enough to find the entry to invalidate
+	private final ConcurrentMap<Long, TokenKey> keysByUser = new ConcurrentHashMap<>();
+
+	// Bumped on every invalidation so that a verification racing with a new
+	// login cannot put the replaced token back into the cache
+	private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	@Autowired
+	public JwtVerificationCache(@Value("${cn3.jwt.cache.max-size}") long maxSize,
+			@Value("${cn3.jwt.lifetime}") long jwtLifeTime,
+			MetricRegistry metricRegistry) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(jwtLifeTime, TimeUnit.SECONDS)
+				.recordStats()
+				.removalListener((TokenKey key, VerifiedJwt value, RemovalCause cause) -> {
+					if (key != null && value != null) {
+						keysByUser.remove(value.getUid(), key);
+					}
+				})
+				.build();
+
+		CacheMetrics.register(metricRegistry, "jwt", cache);
+		metricRegistry.register("cache.jwt.invalidations", (Gauge<Long>) invalidations::get);
+	}
+
+	public TokenKey keyOf(String jwt) {
+		MessageDigest digest = SHA_256.get();
+		digest.reset();
+		return new TokenKey(digest.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Get the verified token, or null if the token has not been verified yet
+	 * or has been replaced by a newer one.
+	 *
+	 * @param key
+	 * @return
+	 */
+	public VerifiedJwt get(TokenKey key) {
+		return cache.getIfPresent(key);
+	}
+
+	/**
+	 * Snapshot of the invalidation stamp of the given user. Take it before
+	 * reading the user from the database and hand it back to
+	 * {@link #put(TokenKey, VerifiedJwt, long)}.
+	 *
+	 * @param uid
+	 * @return
+	 */
+	public long stamp(Long uid) {
+		return stamps.get(stripe(uid));
+	}
+
+	public void put(TokenKey key, VerifiedJwt verifiedJwt, long stamp) {
+		Long uid = verifiedJwt.getUid();
+		if (stamps.get(stripe(uid)) != stamp) {
+			return;
+		}
+
+		TokenKey previous = keysByUser.put(uid, key);
+		if (previous != null && !previous.equals(key)) {
+			cache.invalidate(previous);
+		}
+		cache.put(key, verifiedJwt);
+
+		// Invalidated while we were putting it in, take it back out
+		if (stamps.get(stripe(uid)) != stamp) {
+			cache.invalidate(key);
+		}
+	}
+
+	/**
+	 * Drop the cached token of the given user, called whenever the
+	 * `public_key` of the user is overwritten.
+	 *
+	 * @param uid
+	 */
+	public void invalidate(Long uid) {
+		stamps.incrementAndGet(stripe(uid));
+		TokenKey key = keysByUser.remove(uid);
+		if (key != null) {
+			cache.invalidate(key);
+			invalidations.incrementAndGet();
+		}
+	}
+
+	private static int stripe(Long uid) {
+		return (int) (uid & (STAMP_STRIPES - 1));
+	}
+
+	public static final class TokenKey {
+
+		private final byte[] hash;
+
+		private final int hashCode;
+
+		private TokenKey(byte[] hash) {
+			this.hash = hash;
+			this.hashCode = Arrays.hashCode(hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof TokenKey)) {
+				return false;
+			}
+			TokenKey other = (TokenKey) obj;
+			return hashCode == other.hashCode && Arrays.equals(hash, other.hash);
+		}
+
+	}
+
+	public static final class VerifiedJwt {
+
+		private final Long uid;
+
+		private final String email;
+
+		private final Set<String> roles;
+
+		private final long exp;
+
+		private final Map<String, Object> claims;
+
+		public VerifiedJwt(Long uid, String email, Set<String> roles, long exp, Map<String, Object> claims) {
+			this.uid = uid;
+			this.email = email;
+			this.roles = Collections.unmodifiableSet(roles);
+			this.exp = exp;
+			this.claims = Collections.unmodifiableMap(claims);
+		}
+
+		public Long getUid() {
+			return uid;
+		}
+
+		public String getEmail() {
+			return email;
+		}
+
+		public Set<String> getRoles() {
+			return roles;
+		}
+
+		public long getExp() {
+			return exp;
+		}
+
+		public Map<String, Object> getClaims() {
+			return claims;
+		}
+
+	}
+
+}
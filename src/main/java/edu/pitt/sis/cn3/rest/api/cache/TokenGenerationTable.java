@@ -0,0 +1,218 @@
+package edu.pitt.sis.cn3.rest.api.cache;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.pitt.sis.cn3.db.entity.UserInfo;
+
+/**
+ * In-memory table of the current token generation of each user, used by the
+ * stateless JWT verification mode in place of the `public_key` comparison.
+ *
+ * The generation of a token is its `ver` claim, or its `iat` claim for the
+ * tokens issued before the `ver` claim was introduced. The table is updated
+ * whenever this server issues a token and synchronized periodically with the
+ * `public_key` column so that tokens issued by other servers are picked up.
+ *
+ * Oct 18, 2026 10:41:27 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class TokenGenerationTable {
+
+	public static final String STATELESS_MODE = "stateless";
+
+	public static final String VERSION_CLAIM = "ver";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TokenGenerationTable.class);
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final ConcurrentMap<Long, TokenGeneration> generations = new ConcurrentHashMap<>();
+
+	private final JwtVerificationCache jwtVerificationCache;
+
+	private final boolean stateless;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	public TokenGenerationTable(JwtVerificationCache jwtVerificationCache,
+			@Value("${cn3.jwt.verification-mode}") String verificationMode) {
+		this.jwtVerificationCache = jwtVerificationCache;
+		this.stateless = STATELESS_MODE.equalsIgnoreCase(verificationMode);
+	}
+
+	public boolean isStateless() {
+		return stateless;
+	}
+
+	public TokenGeneration get(Long uid) {
+		return generations.get(uid);
+	}
+
+	/**
+	 * Record the generation of a token that has just been issued.
+	 *
+	 * @param userInfo
+	 * @param version
+	 */
+	public void issued(UserInfo userInfo, long version) {
+		accept(userInfo.getId(), new TokenGeneration(version, userInfo.getEmail(), userInfo.getRoleId()));
+	}
+
+	/**
+	 * Rebuild the entry of the given user from its `public_key`. The user may
+	 * have been read before a newer token was issued, an older generation than
+	 * the one in the table is ignored.
+	 *
+	 * @param userInfo
+	 * @return the current generation, or null if the user has no token
+	 */
+	public TokenGeneration refresh(UserInfo userInfo) {
+		String jwt = userInfo.getPublicKey();
+		Long version = jwt == null ? null : versionOf(jwt);
+		if (version == null) {
+			return generations.get(userInfo.getId());
+		}
+
+		return accept(userInfo.getId(), new TokenGeneration(version, userInfo.getEmail(), userInfo.getRoleId()));
+	}
+
+	@Scheduled(initialDelayString = "${cn3.jwt.generation.sync-interval}", fixedDelayString = "${cn3.jwt.generation.sync-interval}")
+	public void synchronize() {
+		if (!stateless) {
+			return;
+		}
+
+		// Taken before the query, the entries issued while it runs are newer
+		// than the rows and are left alone
+		Map<Long, TokenGeneration> known = new HashMap<>(generations);
+
+		List<Object[]> rows = entityManager
+				.createQuery("SELECT u.id, u.email, u.roleId, u.publicKey FROM UserInfo u WHERE u.publicKey IS NOT NULL",
+						Object[].class)
+				.getResultList();
+
+		int changed = 0;
+		for (Object[] row : rows) {
+			Long uid = (Long) row[0];
+			Long version = versionOf((String) row[3]);
+			if (version == null) {
+				continue;
+			}
+
+			TokenGeneration previous = known.remove(uid);
+			TokenGeneration current = accept(uid, new TokenGeneration(version, (String) row[1],
+					((Number) row[2]).intValue()));
+			if (previous != null && (previous.getVersion() != current.getVersion()
+					|| previous.getRoleId() != current.getRoleId())) {
+				// Issued by another server, or the role has changed
+				jwtVerificationCache.invalidate(uid);
+				changed++;
+			}
+		}
+
+		// Deleted users and users whose token has been cleared
+		for (Map.Entry<Long, TokenGeneration> entry : known.entrySet()) {
+			if (generations.remove(entry.getKey(), entry.getValue())) {
+				jwtVerificationCache.invalidate(entry.getKey());
+				changed++;
+			}
+		}
+
+		LOGGER.debug(String.format("Synchronized token generations of %d users, %d changed", rows.size(), changed));
+	}
+
+	// Never go back to an older generation, the rows read from the database
+	// may predate a token issued in the meantime
+	private TokenGeneration accept(Long uid, TokenGeneration generation) {
+		return generations.merge(uid, generation,
+				(current, candidate) -> candidate.getVersion() >= current.getVersion() ? candidate : current);
+	}
+
+	/**
+	 * Get the generation out of verified claims.
+	 *
+	 * @param claims
+	 * @return
+	 */
+	public static Long versionOf(Map<String, Object> claims) {
+		Object version = claims.containsKey(VERSION_CLAIM) ? claims.get(VERSION_CLAIM) : claims.get("iat");
+
+		return (version instanceof Number) ? ((Number) version).longValue() : null;
+	}
+
+	/**
+	 * Get the generation out of a token stored in `public_key`. The token has
+	 * been signed by us so the payload is decoded without verification.
+	 *
+	 * @param jwt
+	 * @return
+	 */
+	private static Long versionOf(String jwt) {
+		String[] parts = jwt.split("\\.");
+		if (parts.length != 3) {
+			return null;
+		}
+
+		try {
+			JsonNode payload = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1]));
+			JsonNode version = payload.has(VERSION_CLAIM) ? payload.get(VERSION_CLAIM) : payload.get("iat");
+
+			return (version != null && version.isNumber()) ? version.asLong() : null;
+		} catch (IllegalArgumentException | IOException ex) {
+			LOGGER.warn("Unable to read the token generation from public_key", ex);
+			return null;
+		}
+	}
+
+	public static final class TokenGeneration {
+
+		private final long version;
+
+		private final String email;
+
+		private final int roleId;
+
+		public TokenGeneration(long version, String email, int roleId) {
+			this.version = version;
+			this.email = email;
+			this.roleId = roleId;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public String getEmail() {
+			return email;
+		}
+
+		public int getRoleId() {
+			return roleId;
+		}
+
+	}
+
+}
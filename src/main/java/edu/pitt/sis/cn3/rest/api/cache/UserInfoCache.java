@@ -0,0 +1,71 @@
+package edu.pitt.sis.cn3.rest.api.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.pitt.sis.cn3.db.entity.UserInfo;
+import edu.pitt.sis.cn3.db.service.UserInfoService;
+
+/**
+ * Bounded cache in front of {@link UserInfoService#findById(Long)} for the
+ * job queue endpoints. Every save must go through {@link #save(UserInfo)} so
+ * the cached user is dropped.
+ *
+ * The users are kept as {@link UserInfoSnapshot}s, never as entities, so a
+ * cached user can't be changed in place or attached to another entity.
+ *
+ * Don't use it to check the `public_key` of a user, that has to come from
+ * the database.
+ *
+ * Oct 18, 2026 4:28:45 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class UserInfoCache {
+
+	private final UserInfoService userInfoService;
+
+	private final Cache<Long, UserInfoSnapshot> cache;
+
+	@Autowired
+	public UserInfoCache(UserInfoService userInfoService,
+			@Value("${cn3.user.cache.max-size}") long maxSize,
+			@Value("${cn3.user.cache.ttl}") long ttl,
+			MetricRegistry metricRegistry) {
+		this.userInfoService = userInfoService;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttl, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+
+		CacheMetrics.register(metricRegistry, "user", cache);
+	}
+
+	public UserInfoSnapshot findById(Long id) {
+		return cache.get(id, key -> UserInfoSnapshot.of(userInfoService.findById(key)));
+	}
+
+	/**
+	 * Keep a user that has just been read from the database.
+	 *
+	 * @param userInfo
+	 */
+	public void put(UserInfo userInfo) {
+		cache.put(userInfo.getId(), UserInfoSnapshot.of(userInfo));
+	}
+
+	public void save(UserInfo userInfo) {
+		userInfoService.save(userInfo);
+		cache.invalidate(userInfo.getId());
+	}
+
+}
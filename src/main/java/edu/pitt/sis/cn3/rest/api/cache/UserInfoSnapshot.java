@@ -0,0 +1,57 @@
+package edu.pitt.sis.cn3.rest.api.cache;
+
+import edu.pitt.sis.cn3.db.entity.UserInfo;
+
+/**
+ * Immutable copy of the fields of a {@link UserInfo} the endpoints need, safe
+ * to share between threads. It is never attached to a persistence context,
+ * the associations to a user use a reference by id instead.
+ *
+ * Oct 30, 2026 9:12:44 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public final class UserInfoSnapshot {
+
+	private final Long id;
+
+	private final String email;
+
+	private final int roleId;
+
+	private final String publicKey;
+
+	public UserInfoSnapshot(Long id, String email, int roleId, String publicKey) {
+		this.id = id;
+		this.email = email;
+		this.roleId = roleId;
+		this.publicKey = publicKey;
+	}
+
+	/**
+	 * @param userInfo
+	 * @return the snapshot, or null if there is no user
+	 */
+	public static UserInfoSnapshot of(UserInfo userInfo) {
+		return userInfo == null ? null
+				: new UserInfoSnapshot(userInfo.getId(), userInfo.getEmail(), userInfo.getRoleId(),
+						userInfo.getPublicKey());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public int getRoleId() {
+		return roleId;
+	}
+
+	public String getPublicKey() {
+		return publicKey;
+	}
+
+}
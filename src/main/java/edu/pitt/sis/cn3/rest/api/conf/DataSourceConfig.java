@@ -0,0 +1,36 @@
+package edu.pitt.sis.cn3.rest.api.conf;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Hikari connection pool of the datasource, with the pool metrics (the wait
+ * for a connection, the active, idle and pending connections) in the metric
+ * registry. The spring.datasource.* settings are read as before and the pool
+ * settings from spring.datasource.hikari.*, like the Spring Boot one.
+ *
+ * Oct 29, 2026 9:26:12 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Configuration
+public class DataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties(prefix = "spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties, MetricRegistry metricRegistry) {
+		HikariDataSource dataSource = new InstrumentedHikariDataSource(metricRegistry);
+		dataSource.setDriverClassName(properties.determineDriverClassName());
+		dataSource.setJdbcUrl(properties.determineUrl());
+		dataSource.setUsername(properties.determineUsername());
+		dataSource.setPassword(properties.determinePassword());
+
+		return dataSource;
+	}
+
+}
@@ -0,0 +1,142 @@
+package edu.pitt.sis.cn3.rest.api.conf;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import edu.pitt.sis.cn3.rest.api.metrics.DatabaseTime;
+
+/**
+ * Hikari datasource that reports to the metric registry and logs when the
+ * pool runs out of connections: the wait that timed out with the stack of
+ * the caller and the state of the pool. The callers that timed out during
+ * the same episode are only counted, under load they all time out at once.
+ *
+ * On the threads that record their {@link DatabaseTime}, the connections
+ * are handed out behind a proxy that adds the time of the statement
+ * executions, commits and rollbacks to it, and so does the wait for the
+ * connection. The other threads get the pooled connection as is.
+ *
+ * Oct 29, 2026 9:41:37 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class InstrumentedHikariDataSource extends HikariDataSource {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InstrumentedHikariDataSource.class);
+
+	private static final long LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+	// The JDBC calls that go to the database
+	private static final Set<String> TIMED_METHODS = new HashSet<>(Arrays.asList("execute", "executeQuery",
+			"executeUpdate", "executeBatch", "executeLargeUpdate", "executeLargeBatch", "commit", "rollback"));
+
+	private final Meter exhausted;
+
+	private final AtomicLong lastLogged = new AtomicLong(System.nanoTime() - LOG_INTERVAL);
+
+	private final AtomicLong unlogged = new AtomicLong();
+
+	public InstrumentedHikariDataSource(MetricRegistry metricRegistry) {
+		setMetricRegistry(metricRegistry);
+		this.exhausted = metricRegistry.meter("datasource.exhausted");
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (!DatabaseTime.isRecording()) {
+			return getPooledConnection();
+		}
+
+		long start = System.nanoTime();
+		try {
+			return timed(Connection.class, getPooledConnection());
+		} finally {
+			DatabaseTime.add(System.nanoTime() - start);
+		}
+	}
+
+	private Connection getPooledConnection() throws SQLException {
+		try {
+			return super.getConnection();
+		} catch (SQLTransientConnectionException exception) {
+			exhausted(exception);
+			throw exception;
+		}
+	}
+
+	// The statements created by a timed connection are timed as well
+	private static <T> T timed(Class<T> type, T target) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			String name = method.getName();
+			if (name.equals("equals")) {
+				return proxy == args[0];
+			} else if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			}
+
+			boolean timedCall = TIMED_METHODS.contains(name);
+			long start = timedCall ? System.nanoTime() : 0;
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			} finally {
+				if (timedCall) {
+					DatabaseTime.add(System.nanoTime() - start);
+				}
+			}
+
+			if (result instanceof CallableStatement) {
+				return timed(CallableStatement.class, (CallableStatement) result);
+			} else if (result instanceof PreparedStatement) {
+				return timed(PreparedStatement.class, (PreparedStatement) result);
+			} else if (result instanceof Statement) {
+				return timed(Statement.class, (Statement) result);
+			}
+			return result;
+		};
+
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	private void exhausted(SQLTransientConnectionException exception) {
+		exhausted.mark();
+
+		long now = System.nanoTime();
+		long last = lastLogged.get();
+		if (now - last < LOG_INTERVAL || !lastLogged.compareAndSet(last, now)) {
+			unlogged.incrementAndGet();
+			return;
+		}
+
+		HikariPoolMXBean pool = getHikariPoolMXBean();
+		String state = pool == null ? "not started"
+				: String.format("%d active, %d idle, %d waiting", pool.getActiveConnections(),
+						pool.getIdleConnections(), pool.getThreadsAwaitingConnection());
+		LOGGER.error(String.format(
+				"Connection pool %s exhausted, no connection within %d ms (%s), %d more timed out since the last report.",
+				getPoolName(), getConnectionTimeout(), state, unlogged.getAndSet(0)), exception);
+	}
+
+}
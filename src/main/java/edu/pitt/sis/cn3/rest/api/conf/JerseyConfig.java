@@ -1,15 +1,29 @@
 package edu.pitt.sis.cn3.rest.api.conf;
 
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.server.ServerProperties;
 import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.jaxrs.cbor.JacksonJaxbCBORProvider;
+import com.fasterxml.jackson.jaxrs.smile.JacksonJaxbSmileProvider;
+
+import edu.pitt.sis.cn3.rest.api.endpoint.JobDispatchEndpoint;
 import edu.pitt.sis.cn3.rest.api.endpoint.JwtEndpoint;
 import edu.pitt.sis.cn3.rest.api.endpoint.JobQueueEndpoint;
+import edu.pitt.sis.cn3.rest.api.endpoint.MetricsEndpoint;
+import edu.pitt.sis.cn3.rest.api.endpoint.TraceEndpoint;
 import edu.pitt.sis.cn3.rest.api.exception.mapper.WebApplicationExceptionMapper;
 import edu.pitt.sis.cn3.rest.api.filter.AuthFilter;
 import edu.pitt.sis.cn3.rest.api.filter.CORSFilter;
+import edu.pitt.sis.cn3.rest.api.filter.CompressionInterceptor;
+import edu.pitt.sis.cn3.rest.api.filter.RequestMetricsFilter;
+import edu.pitt.sis.cn3.rest.api.filter.TraceEventListener;
+import edu.pitt.sis.cn3.rest.api.provider.ErrorResponseJsonWriter;
+import edu.pitt.sis.cn3.rest.api.provider.JobInfoJsonWriter;
+import edu.pitt.sis.cn3.rest.api.provider.JobInfoListJsonWriter;
+import edu.pitt.sis.cn3.rest.api.provider.JwtJsonWriter;
 
 /**
  *
@@ -23,6 +37,16 @@ public class JerseyConfig extends ResourceConfig {
 	public JerseyConfig() {
 		register(JwtEndpoint.class);
 		register(JobQueueEndpoint.class);
+		register(JobDispatchEndpoint.class);
+		register(MetricsEndpoint.class);
+		register(TraceEndpoint.class);
+		
+		// JSON writers of the most common DTOs, picked over the Jackson
+		// provider as they're registered for the exact types
+		register(JobInfoJsonWriter.class);
+		register(JobInfoListJsonWriter.class);
+		register(JwtJsonWriter.class);
+		register(ErrorResponseJsonWriter.class);
 		
 		// Register exception mapper
         register(WebApplicationExceptionMapper.class);
@@ -30,8 +54,24 @@ public class JerseyConfig extends ResourceConfig {
         //Register filters
         register(AuthFilter.class);
         register(CORSFilter.class);
+        
+        // Latency, throughput and status of each resource method
+        register(RequestMetricsFilter.class);
+        
+        // Request ids, and the spans of the sampled requests
+        register(TraceEventListener.class);
+        
+        // gzip/deflate of the larger responses
+        register(CompressionInterceptor.class);
 		
         register(RolesAllowedDynamicFeature.class);
+        
+        // Server-Sent Events of the job status
+        register(SseFeature.class);
+        
+        // CBOR and Smile next to JSON and XML, honoring the JAXB annotations of the DTOs
+        register(JacksonJaxbCBORProvider.class);
+        register(JacksonJaxbSmileProvider.class);
 
         // By default, Jersey doesn't return any entities that would include validation errors to the client.
         // Enable Jersey bean validation errors to users
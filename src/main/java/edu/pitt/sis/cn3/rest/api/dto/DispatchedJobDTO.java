@@ -0,0 +1,87 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import java.util.Date;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A job handed to a worker.
+ *
+ * Oct 23, 2026 11:05:27 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "dispatchedJob")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class DispatchedJobDTO {
+
+	@XmlElement
+	private Long id;
+
+	@XmlElement
+	private Long ownerId;
+
+	@XmlElement
+	private Long targetUserId;
+
+	@XmlElement
+	private int priority;
+
+	@XmlElement
+	private Date addedTime;
+
+	public DispatchedJobDTO() {
+	}
+
+	public DispatchedJobDTO(Long id, Long ownerId, Long targetUserId, int priority, Date addedTime) {
+		this.id = id;
+		this.ownerId = ownerId;
+		this.targetUserId = targetUserId;
+		this.priority = priority;
+		this.addedTime = addedTime;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getOwnerId() {
+		return ownerId;
+	}
+
+	public void setOwnerId(Long ownerId) {
+		this.ownerId = ownerId;
+	}
+
+	public Long getTargetUserId() {
+		return targetUserId;
+	}
+
+	public void setTargetUserId(Long targetUserId) {
+		this.targetUserId = targetUserId;
+	}
+
+	public int getPriority() {
+		return priority;
+	}
+
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+
+	public Date getAddedTime() {
+		return addedTime;
+	}
+
+	public void setAddedTime(Date addedTime) {
+		this.addedTime = addedTime;
+	}
+
+}
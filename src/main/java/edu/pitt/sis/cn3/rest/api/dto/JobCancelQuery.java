@@ -0,0 +1,77 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import java.util.List;
+
+import javax.ws.rs.QueryParam;
+
+/**
+ * Query parameters of the bulk cancellation, the jobs of the owner matching
+ * all the given filters are cancelled.
+ *
+ * Oct 24, 2026 9:31:07 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class JobCancelQuery {
+
+	// Only the jobs with this status
+	@QueryParam("status")
+	private Integer status;
+
+	// Only the jobs added at or after this time, in milliseconds since epoch
+	@QueryParam("addedAfter")
+	private Long addedAfter;
+
+	// Only the jobs added before this time, in milliseconds since epoch
+	@QueryParam("addedBefore")
+	private Long addedBefore;
+
+	// Only the jobs for this target user
+	@QueryParam("targetUserId")
+	private Long targetUserId;
+
+	// Only these jobs, the parameter can be repeated
+	@QueryParam("id")
+	private List<Long> ids;
+
+	public Integer getStatus() {
+		return status;
+	}
+
+	public void setStatus(Integer status) {
+		this.status = status;
+	}
+
+	public Long getAddedAfter() {
+		return addedAfter;
+	}
+
+	public void setAddedAfter(Long addedAfter) {
+		this.addedAfter = addedAfter;
+	}
+
+	public Long getAddedBefore() {
+		return addedBefore;
+	}
+
+	public void setAddedBefore(Long addedBefore) {
+		this.addedBefore = addedBefore;
+	}
+
+	public Long getTargetUserId() {
+		return targetUserId;
+	}
+
+	public void setTargetUserId(Long targetUserId) {
+		this.targetUserId = targetUserId;
+	}
+
+	public List<Long> getIds() {
+		return ids;
+	}
+
+	public void setIds(List<Long> ids) {
+		this.ids = ids;
+	}
+
+}
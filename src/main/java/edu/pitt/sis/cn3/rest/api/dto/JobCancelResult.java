@@ -0,0 +1,49 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ *
+ * Oct 24, 2026 9:44:52 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "jobCancelResult")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobCancelResult {
+
+	@XmlElement
+	private int cancelled;
+
+	// Matching jobs that were already running, finished or failed
+	@XmlElement
+	private int skipped;
+
+	public JobCancelResult() {
+	}
+
+	public JobCancelResult(int cancelled, int skipped) {
+		this.cancelled = cancelled;
+		this.skipped = skipped;
+	}
+
+	public int getCancelled() {
+		return cancelled;
+	}
+
+	public void setCancelled(int cancelled) {
+		this.cancelled = cancelled;
+	}
+
+	public int getSkipped() {
+		return skipped;
+	}
+
+	public void setSkipped(int skipped) {
+		this.skipped = skipped;
+	}
+
+}
@@ -0,0 +1,64 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The job events after a sequence, and the sequence to ask from next time.
+ *
+ * Oct 24, 2026 2:09:58 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "jobChanges")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobChangesDTO {
+
+	@XmlElement
+	private List<JobEventDTO> events;
+
+	@XmlElement
+	private long next;
+
+	// More events are waiting after next
+	@XmlElement
+	private boolean more;
+
+	public JobChangesDTO() {
+	}
+
+	public JobChangesDTO(List<JobEventDTO> events, long next, boolean more) {
+		this.events = events;
+		this.next = next;
+		this.more = more;
+	}
+
+	public List<JobEventDTO> getEvents() {
+		return events;
+	}
+
+	public void setEvents(List<JobEventDTO> events) {
+		this.events = events;
+	}
+
+	public long getNext() {
+		return next;
+	}
+
+	public void setNext(long next) {
+		this.next = next;
+	}
+
+	public boolean isMore() {
+		return more;
+	}
+
+	public void setMore(boolean more) {
+		this.more = more;
+	}
+
+}
@@ -0,0 +1,76 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * One transition of a job in the event log. The created and status events
+ * carry the whole job, the cancelled ones only its id.
+ *
+ * Oct 24, 2026 2:03:26 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "jobEvent")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobEventDTO {
+
+	@XmlElement
+	private long seq;
+
+	// created, status or cancelled
+	@XmlElement
+	private String type;
+
+	// In milliseconds since epoch
+	@XmlElement
+	private long time;
+
+	@XmlElement
+	private JobInfoDTO job;
+
+	public JobEventDTO() {
+	}
+
+	public JobEventDTO(long seq, String type, long time, JobInfoDTO job) {
+		this.seq = seq;
+		this.type = type;
+		this.time = time;
+		this.job = job;
+	}
+
+	public long getSeq() {
+		return seq;
+	}
+
+	public void setSeq(long seq) {
+		this.seq = seq;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	public void setTime(long time) {
+		this.time = time;
+	}
+
+	public JobInfoDTO getJob() {
+		return job;
+	}
+
+	public void setJob(JobInfoDTO job) {
+		this.job = job;
+	}
+
+}
@@ -29,6 +29,16 @@ public class JobInfoDTO {
     @XmlElement
     private Date addedTime;
 
+    public JobInfoDTO() {
+    }
+
+    public JobInfoDTO(Long id, Long targetUserId, int status, Date addedTime) {
+        this.id = id;
+        this.targetUserId = targetUserId;
+        this.status = status;
+        this.addedTime = addedTime;
+    }
+
 	public Long getId() {
 		return id;
 	}
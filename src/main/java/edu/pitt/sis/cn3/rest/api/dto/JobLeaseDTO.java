@@ -0,0 +1,63 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import java.util.Date;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A job claimed by a worker, until the lease expires.
+ *
+ * Oct 23, 2026 2:41:18 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "jobLease")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobLeaseDTO {
+
+	@XmlElement
+	private String leaseId;
+
+	@XmlElement
+	private Date expiresAt;
+
+	@XmlElement
+	private DispatchedJobDTO job;
+
+	public JobLeaseDTO() {
+	}
+
+	public JobLeaseDTO(String leaseId, Date expiresAt, DispatchedJobDTO job) {
+		this.leaseId = leaseId;
+		this.expiresAt = expiresAt;
+		this.job = job;
+	}
+
+	public String getLeaseId() {
+		return leaseId;
+	}
+
+	public void setLeaseId(String leaseId) {
+		this.leaseId = leaseId;
+	}
+
+	public Date getExpiresAt() {
+		return expiresAt;
+	}
+
+	public void setExpiresAt(Date expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	public DispatchedJobDTO getJob() {
+		return job;
+	}
+
+	public void setJob(DispatchedJobDTO job) {
+		this.job = job;
+	}
+
+}
@@ -0,0 +1,92 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.QueryParam;
+
+/**
+ * Query parameters of the job listing.
+ *
+ * Oct 19, 2026 1:14:50 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class JobListQuery {
+
+	// Only the jobs with this status
+	@QueryParam("status")
+	private Integer status;
+
+	// Only the jobs added at or after this time, in milliseconds since epoch
+	@QueryParam("addedAfter")
+	private Long addedAfter;
+
+	// Only the jobs added before this time, in milliseconds since epoch
+	@QueryParam("addedBefore")
+	private Long addedBefore;
+
+	// Cursor, only the jobs with a greater id than this one
+	@QueryParam("after")
+	private Long after;
+
+	// Page size, the whole list is returned when not given
+	@QueryParam("limit")
+	private Integer limit;
+
+	// Write the jobs out as they're read from the database
+	@QueryParam("stream")
+	@DefaultValue("false")
+	private boolean stream;
+
+	public Integer getStatus() {
+		return status;
+	}
+
+	public void setStatus(Integer status) {
+		this.status = status;
+	}
+
+	public Long getAddedAfter() {
+		return addedAfter;
+	}
+
+	public void setAddedAfter(Long addedAfter) {
+		this.addedAfter = addedAfter;
+	}
+
+	public Long getAddedBefore() {
+		return addedBefore;
+	}
+
+	public void setAddedBefore(Long addedBefore) {
+		this.addedBefore = addedBefore;
+	}
+
+	public Long getAfter() {
+		return after;
+	}
+
+	public void setAfter(Long after) {
+		this.after = after;
+	}
+
+	public Integer getLimit() {
+		return limit;
+	}
+
+	public void setLimit(Integer limit) {
+		this.limit = limit;
+	}
+
+	public boolean isStream() {
+		return stream;
+	}
+
+	public void setStream(boolean stream) {
+		this.stream = stream;
+	}
+
+	public boolean isPaged() {
+		return limit != null;
+	}
+
+}
@@ -0,0 +1,77 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Depth of the dispatch queue, by priority and by owner.
+ *
+ * Oct 23, 2026 10:48:05 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "jobQueueStats")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobQueueStatsDTO {
+
+	@XmlElement
+	private int queued;
+
+	// Taken from the queue, not yet handed to a worker
+	@XmlElement
+	private int dispatching;
+
+	// Number of queued jobs, indexed by priority
+	@XmlElement
+	private List<Integer> depthByPriority;
+
+	@XmlElement
+	private List<OwnerQueueStatsDTO> owners;
+
+	public JobQueueStatsDTO() {
+	}
+
+	public JobQueueStatsDTO(int queued, int dispatching, List<Integer> depthByPriority, List<OwnerQueueStatsDTO> owners) {
+		this.queued = queued;
+		this.dispatching = dispatching;
+		this.depthByPriority = depthByPriority;
+		this.owners = owners;
+	}
+
+	public int getQueued() {
+		return queued;
+	}
+
+	public void setQueued(int queued) {
+		this.queued = queued;
+	}
+
+	public int getDispatching() {
+		return dispatching;
+	}
+
+	public void setDispatching(int dispatching) {
+		this.dispatching = dispatching;
+	}
+
+	public List<Integer> getDepthByPriority() {
+		return depthByPriority;
+	}
+
+	public void setDepthByPriority(List<Integer> depthByPriority) {
+		this.depthByPriority = depthByPriority;
+	}
+
+	public List<OwnerQueueStatsDTO> getOwners() {
+		return owners;
+	}
+
+	public void setOwners(List<OwnerQueueStatsDTO> owners) {
+		this.owners = owners;
+	}
+
+}
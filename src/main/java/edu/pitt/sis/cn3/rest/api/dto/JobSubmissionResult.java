@@ -0,0 +1,93 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ *
+ * Oct 19, 2026 10:02:37 AM
+ *
+ * @author Chirayu (Kong) Wongchokprasitti, PhD (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "jobSubmissionResult")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobSubmissionResult {
+
+	public static final String CREATED = "created";
+
+	public static final String REJECTED = "rejected";
+
+	// An earlier job of the same submission, or the same target user
+	public static final String EXISTING = "existing";
+
+	@XmlElement
+	private Long targetUserId;
+
+	@XmlElement
+	private String result;
+
+	@XmlElement
+	private String reason;
+
+	@XmlElement
+	private JobInfoDTO job;
+
+	public static JobSubmissionResult created(JobInfoDTO job) {
+		JobSubmissionResult submissionResult = new JobSubmissionResult();
+		submissionResult.setTargetUserId(job.getTargetUserId());
+		submissionResult.setResult(CREATED);
+		submissionResult.setJob(job);
+		return submissionResult;
+	}
+
+	public static JobSubmissionResult existing(JobInfoDTO job) {
+		JobSubmissionResult submissionResult = new JobSubmissionResult();
+		submissionResult.setTargetUserId(job.getTargetUserId());
+		submissionResult.setResult(EXISTING);
+		submissionResult.setJob(job);
+		return submissionResult;
+	}
+
+	public static JobSubmissionResult rejected(Long targetUserId, String reason) {
+		JobSubmissionResult submissionResult = new JobSubmissionResult();
+		submissionResult.setTargetUserId(targetUserId);
+		submissionResult.setResult(REJECTED);
+		submissionResult.setReason(reason);
+		return submissionResult;
+	}
+
+	public Long getTargetUserId() {
+		return targetUserId;
+	}
+
+	public void setTargetUserId(Long targetUserId) {
+		this.targetUserId = targetUserId;
+	}
+
+	public String getResult() {
+		return result;
+	}
+
+	public void setResult(String result) {
+		this.result = result;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	public void setReason(String reason) {
+		this.reason = reason;
+	}
+
+	public JobInfoDTO getJob() {
+		return job;
+	}
+
+	public void setJob(JobInfoDTO job) {
+		this.job = job;
+	}
+
+}
@@ -0,0 +1,37 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Heartbeat or outcome of a claimed job, sent by the worker holding the
+ * lease.
+ *
+ * Oct 23, 2026 2:55:02 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class LeaseUpdate {
+
+	@NotNull
+	private String leaseId;
+
+	// Finished, failed, or queued to hand the job back, only when completing
+	private Integer status;
+
+	public String getLeaseId() {
+		return leaseId;
+	}
+
+	public void setLeaseId(String leaseId) {
+		this.leaseId = leaseId;
+	}
+
+	public Integer getStatus() {
+		return status;
+	}
+
+	public void setStatus(Integer status) {
+		this.status = status;
+	}
+
+}
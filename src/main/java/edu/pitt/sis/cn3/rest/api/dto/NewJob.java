@@ -13,6 +13,9 @@ public class NewJob {
 	@NotNull
 	private Long targetUserId;
 
+	// Dispatch priority, higher first, the default one when not given
+	private Integer priority;
+
 	public Long getTargetUserId() {
 		return targetUserId;
 	}
@@ -21,4 +24,12 @@ public class NewJob {
 		this.targetUserId = targetUserId;
 	}
 
+	public Integer getPriority() {
+		return priority;
+	}
+
+	public void setPriority(Integer priority) {
+		this.priority = priority;
+	}
+
 }
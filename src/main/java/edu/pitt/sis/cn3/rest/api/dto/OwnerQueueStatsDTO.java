@@ -0,0 +1,75 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Queued jobs of one owner.
+ *
+ * Oct 23, 2026 10:51:40 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "ownerQueueStats")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class OwnerQueueStatsDTO {
+
+	@XmlElement
+	private Long ownerId;
+
+	@XmlElement
+	private int queued;
+
+	// Priority of the next job of the owner
+	@XmlElement
+	private int priority;
+
+	// How long the oldest queued job has been waiting, in milliseconds
+	@XmlElement
+	private long longestWait;
+
+	public OwnerQueueStatsDTO() {
+	}
+
+	public OwnerQueueStatsDTO(Long ownerId, int queued, int priority, long longestWait) {
+		this.ownerId = ownerId;
+		this.queued = queued;
+		this.priority = priority;
+		this.longestWait = longestWait;
+	}
+
+	public Long getOwnerId() {
+		return ownerId;
+	}
+
+	public void setOwnerId(Long ownerId) {
+		this.ownerId = ownerId;
+	}
+
+	public int getQueued() {
+		return queued;
+	}
+
+	public void setQueued(int queued) {
+		this.queued = queued;
+	}
+
+	public int getPriority() {
+		return priority;
+	}
+
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+
+	public long getLongestWait() {
+		return longestWait;
+	}
+
+	public void setLongestWait(long longestWait) {
+		this.longestWait = longestWait;
+	}
+
+}
@@ -0,0 +1,88 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * One span of a trace, the times in microseconds.
+ *
+ * Oct 28, 2026 11:12:27 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "span")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SpanDTO {
+
+	@XmlElement
+	private String name;
+
+	// From the start of the trace
+	@XmlElement
+	private long offset;
+
+	// -1 if it never closed
+	@XmlElement
+	private long duration;
+
+	// Nesting level, 0 for the outermost spans
+	@XmlElement
+	private int depth;
+
+	@XmlElement
+	private String thread;
+
+	public SpanDTO() {
+	}
+
+	public SpanDTO(String name, long offset, long duration, int depth, String thread) {
+		this.name = name;
+		this.offset = offset;
+		this.duration = duration;
+		this.depth = depth;
+		this.thread = thread;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+
+	public long getDuration() {
+		return duration;
+	}
+
+	public void setDuration(long duration) {
+		this.duration = duration;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	public String getThread() {
+		return thread;
+	}
+
+	public void setThread(String thread) {
+		this.thread = thread;
+	}
+
+}
@@ -0,0 +1,127 @@
+package edu.pitt.sis.cn3.rest.api.dto;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The spans of a traced request, the duration in microseconds.
+ *
+ * Oct 28, 2026 11:09:50 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@XmlRootElement(name = "trace")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class TraceDTO {
+
+	// As in the X-Request-Id header
+	@XmlElement
+	private String requestId;
+
+	@XmlElement
+	private String method;
+
+	@XmlElement
+	private String path;
+
+	@XmlElement
+	private int status;
+
+	@XmlElement
+	private Date startTime;
+
+	@XmlElement
+	private long duration;
+
+	// Beyond the most spans kept per trace
+	@XmlElement
+	private int droppedSpans;
+
+	@XmlElement
+	private List<SpanDTO> spans;
+
+	public TraceDTO() {
+	}
+
+	public TraceDTO(String requestId, String method, String path, int status, Date startTime, long duration,
+			int droppedSpans, List<SpanDTO> spans) {
+		this.requestId = requestId;
+		this.method = method;
+		this.path = path;
+		this.status = status;
+		this.startTime = startTime;
+		this.duration = duration;
+		this.droppedSpans = droppedSpans;
+		this.spans = spans;
+	}
+
+	public String getRequestId() {
+		return requestId;
+	}
+
+	public void setRequestId(String requestId) {
+		this.requestId = requestId;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public void setMethod(String method) {
+		this.method = method;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	public Date getStartTime() {
+		return startTime;
+	}
+
+	public void setStartTime(Date startTime) {
+		this.startTime = startTime;
+	}
+
+	public long getDuration() {
+		return duration;
+	}
+
+	public void setDuration(long duration) {
+		this.duration = duration;
+	}
+
+	public int getDroppedSpans() {
+		return droppedSpans;
+	}
+
+	public void setDroppedSpans(int droppedSpans) {
+		this.droppedSpans = droppedSpans;
+	}
+
+	public List<SpanDTO> getSpans() {
+		return spans;
+	}
+
+	public void setSpans(List<SpanDTO> spans) {
+		this.spans = spans;
+	}
+
+}
@@ -0,0 +1,205 @@
+package edu.pitt.sis.cn3.rest.api.endpoint;
+
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_CBOR;
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_SMILE;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.security.PermitAll;
+import javax.annotation.security.RolesAllowed;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.Response;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.pitt.sis.cn3.rest.api.Role;
+import edu.pitt.sis.cn3.rest.api.dto.DispatchedJobDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobLeaseDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobQueueStatsDTO;
+import edu.pitt.sis.cn3.rest.api.dto.LeaseUpdate;
+import edu.pitt.sis.cn3.rest.api.exception.InvalidRequestException;
+import edu.pitt.sis.cn3.rest.api.job.JobQueueExecutor;
+import edu.pitt.sis.cn3.rest.api.service.JobDispatchService;
+
+/**
+ * Job dispatching and leasing for the recommendation workers, admins only.
+ *
+ * Oct 23, 2026 11:58:16 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+@PermitAll
+@Path("/admin/jobs")
+public class JobDispatchEndpoint {
+
+	private final JobDispatchService jobDispatchService;
+
+	private final JobQueueExecutor jobQueueExecutor;
+
+	private final int maxDispatchSize;
+
+	private final int defaultLease;
+
+	private final int maxLease;
+
+	@Autowired
+	public JobDispatchEndpoint(JobDispatchService jobDispatchService, JobQueueExecutor jobQueueExecutor,
+			@Value("${cn3.jobs.dispatch.max-size}") int maxDispatchSize,
+			@Value("${cn3.jobs.lease.default}") int defaultLease,
+			@Value("${cn3.jobs.lease.max}") int maxLease) {
+		this.jobDispatchService = jobDispatchService;
+		this.jobQueueExecutor = jobQueueExecutor;
+		this.maxDispatchSize = maxDispatchSize;
+		this.defaultLease = defaultLease;
+		this.maxLease = maxLease;
+	}
+
+	/**
+	 * Take the next jobs in fair order across the owners and mark them as
+	 * running.
+	 *
+	 * @param limit
+	 * @param asyncResponse
+	 */
+	@POST
+	@Path("/dispatch")
+	@Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+	@RolesAllowed(Role.ADMIN)
+	public void dispatch(@QueryParam("limit") @DefaultValue("1") int limit, @Suspended AsyncResponse asyncResponse) {
+		if (limit < 1 || limit > maxDispatchSize) {
+			throw new InvalidRequestException(String.format("The limit must be between 1 and %d.", maxDispatchSize));
+		}
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			List<DispatchedJobDTO> jobs = jobDispatchService.dispatch(limit);
+			GenericEntity<List<DispatchedJobDTO>> entity = new GenericEntity<List<DispatchedJobDTO>>(jobs) {
+			};
+			return Response.ok(entity).build();
+		});
+	}
+
+	/**
+	 * Claim the next jobs in fair order across the owners. The worker has to
+	 * renew the lease with a heartbeat until it completes the jobs, otherwise
+	 * they go back to the queue.
+	 *
+	 * @param limit
+	 * @param lease lease duration in seconds
+	 * @param workerId reported when a lease expires
+	 * @param asyncResponse
+	 */
+	@POST
+	@Path("/claim")
+	@Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+	@RolesAllowed(Role.ADMIN)
+	public void claim(@QueryParam("limit") @DefaultValue("1") int limit, @QueryParam("lease") Integer lease,
+			@QueryParam("worker") String workerId, @Suspended AsyncResponse asyncResponse) {
+		if (limit < 1 || limit > maxDispatchSize) {
+			throw new InvalidRequestException(String.format("The limit must be between 1 and %d.", maxDispatchSize));
+		}
+		long leaseDuration = leaseDuration(lease);
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			List<JobLeaseDTO> leases = jobDispatchService.claim(workerId, limit, leaseDuration);
+			GenericEntity<List<JobLeaseDTO>> entity = new GenericEntity<List<JobLeaseDTO>>(leases) {
+			};
+			return Response.ok(entity).build();
+		});
+	}
+
+	/**
+	 * Renew the lease on a claimed job.
+	 *
+	 * @param id
+	 * @param lease lease duration in seconds
+	 * @param leaseUpdate
+	 * @param asyncResponse
+	 */
+	@POST
+	@Path("/{id}/heartbeat")
+	@Consumes(APPLICATION_JSON)
+	@Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+	@RolesAllowed(Role.ADMIN)
+	public void heartbeat(@PathParam("id") Long id, @QueryParam("lease") Integer lease,
+			@NotNull @Valid LeaseUpdate leaseUpdate, @Suspended AsyncResponse asyncResponse) {
+		long leaseDuration = leaseDuration(lease);
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			JobLeaseDTO jobLease = jobDispatchService.heartbeat(id, leaseUpdate.getLeaseId(), leaseDuration);
+			return Response.ok(new GenericEntity<JobLeaseDTO>(jobLease) {
+			}).build();
+		});
+	}
+
+	/**
+	 * Report that a claimed job has finished or failed, or hand it back to the
+	 * queue.
+	 *
+	 * @param id
+	 * @param leaseUpdate
+	 * @param asyncResponse
+	 */
+	@POST
+	@Path("/{id}/complete")
+	@Consumes(APPLICATION_JSON)
+	@Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+	@RolesAllowed(Role.ADMIN)
+	public void complete(@PathParam("id") Long id, @NotNull @Valid LeaseUpdate leaseUpdate,
+			@Suspended AsyncResponse asyncResponse) {
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			JobInfoDTO jobInfo = jobDispatchService.complete(id, leaseUpdate.getLeaseId(), leaseUpdate.getStatus());
+			return Response.ok(new GenericEntity<JobInfoDTO>(jobInfo) {
+			}).build();
+		});
+	}
+
+	// In milliseconds
+	private long leaseDuration(Integer lease) {
+		if (lease == null) {
+			return TimeUnit.SECONDS.toMillis(defaultLease);
+		}
+		if (lease < 1 || lease > maxLease) {
+			throw new InvalidRequestException(String.format("The lease must be between 1 and %d seconds.", maxLease));
+		}
+		return TimeUnit.SECONDS.toMillis(lease);
+	}
+
+	/**
+	 * Queue depth by priority, and the owners whose jobs have waited the
+	 * longest.
+	 *
+	 * @param limit most owners to list
+	 * @param asyncResponse
+	 */
+	@GET
+	@Path("/queue")
+	@Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+	@RolesAllowed(Role.ADMIN)
+	public void queueStats(@QueryParam("limit") @DefaultValue("100") int limit, @Suspended AsyncResponse asyncResponse) {
+		if (limit < 0) {
+			throw new InvalidRequestException("The limit can't be negative.");
+		}
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			JobQueueStatsDTO stats = jobDispatchService.queueStats(limit);
+			return Response.ok(new GenericEntity<JobQueueStatsDTO>(stats) {
+			}).build();
+		});
+	}
+
+}
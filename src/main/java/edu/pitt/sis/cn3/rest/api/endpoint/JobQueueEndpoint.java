@@ -1,31 +1,79 @@
 package edu.pitt.sis.cn3.rest.api.endpoint;
 
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_CBOR;
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.annotation.security.RolesAllowed;
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.BeanParam;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.glassfish.jersey.media.sse.SseFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import edu.pitt.sis.cn3.rest.api.JobStatus;
 import edu.pitt.sis.cn3.rest.api.Role;
+import edu.pitt.sis.cn3.rest.api.cache.UserInfoSnapshot;
+import edu.pitt.sis.cn3.rest.api.dto.JobCancelQuery;
+import edu.pitt.sis.cn3.rest.api.dto.JobCancelResult;
+import edu.pitt.sis.cn3.rest.api.dto.JobChangesDTO;
 import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobListQuery;
+import edu.pitt.sis.cn3.rest.api.dto.JobSubmissionResult;
 import edu.pitt.sis.cn3.rest.api.dto.NewJob;
+import edu.pitt.sis.cn3.rest.api.exception.InvalidRequestException;
+import edu.pitt.sis.cn3.rest.api.exception.JobNotCancelledException;
+import edu.pitt.sis.cn3.rest.api.exception.JobNotFoundException;
+import edu.pitt.sis.cn3.rest.api.filter.CompressionInterceptor;
+import edu.pitt.sis.cn3.rest.api.job.FairJobScheduler;
+import edu.pitt.sis.cn3.rest.api.job.JobQueueExecutor;
+import edu.pitt.sis.cn3.rest.api.job.JobStatusChange;
+import edu.pitt.sis.cn3.rest.api.job.JobStatusNotifier;
+import edu.pitt.sis.cn3.rest.api.job.JobStatusNotifier.JobStatusListener;
+import edu.pitt.sis.cn3.rest.api.job.JobStatusNotifier.Subscription;
+import edu.pitt.sis.cn3.rest.api.service.AuthFilterService;
 import edu.pitt.sis.cn3.rest.api.service.JobQueueEndpointService;
 
 /**
@@ -39,59 +87,469 @@ import edu.pitt.sis.cn3.rest.api.service.JobQueueEndpointService;
 @Path("/{uid}")
 public class JobQueueEndpoint {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(JobQueueEndpoint.class);
+
+	// Cursor to pass as the `after` query parameter to get the next page
+	private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+	private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	private static final MediaType CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+	private static final MediaType SMILE_TYPE = MediaType.valueOf(APPLICATION_SMILE);
+
+	// The jobs are private to the user, and the client has to check its copy
+	// with If-None-Match before using it
+	private static final CacheControl REVALIDATE = CacheControl.valueOf("private, no-cache");
+
 	private final JobQueueEndpointService jobQueueEndpointService;
 	
+	private final JobStatusNotifier jobStatusNotifier;
+	
+	private final JobQueueExecutor jobQueueExecutor;
+	
+	private final FairJobScheduler fairJobScheduler;
+	
+	private final int maxBatchSize;
+	
+	private final int maxPageSize;
+	
+	private final int maxWait;
+	
 	@Autowired
-	public JobQueueEndpoint(JobQueueEndpointService jobQueueEndpointService) {
+	public JobQueueEndpoint(JobQueueEndpointService jobQueueEndpointService, JobStatusNotifier jobStatusNotifier,
+			JobQueueExecutor jobQueueExecutor, FairJobScheduler fairJobScheduler,
+			@Value("${cn3.jobs.batch.max-size}") int maxBatchSize,
+			@Value("${cn3.jobs.page.max-size}") int maxPageSize,
+			@Value("${cn3.jobs.notify.max-wait}") int maxWait) {
 		this.jobQueueEndpointService = jobQueueEndpointService;
+		this.jobStatusNotifier = jobStatusNotifier;
+		this.jobQueueExecutor = jobQueueExecutor;
+		this.fairJobScheduler = fairJobScheduler;
+		this.maxBatchSize = maxBatchSize;
+		this.maxPageSize = maxPageSize;
+		this.maxWait = maxWait;
 	}
 
 	@POST
     @Path("/jobs")
     @Consumes(APPLICATION_JSON)
-    @Produces({APPLICATION_JSON, APPLICATION_XML})
+    @Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
     @RolesAllowed({Role.USER,Role.ADMIN})
-	public Response addNewRecommendationJob(@PathParam("uid") Long uid, @Valid NewJob newJob) throws IOException {
-		JobInfoDTO jobInfo = jobQueueEndpointService.addNewRecommendationRequestJob(uid, newJob.getTargetUserId());
-		GenericEntity<JobInfoDTO> jobRequestEntity = new GenericEntity<JobInfoDTO>(jobInfo) {};
-		return Response.status(Status.CREATED).entity(jobRequestEntity).build();
+	public void addNewRecommendationJob(@PathParam("uid") Long uid, @Valid NewJob newJob,
+			@HeaderParam(IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
+			@Context ContainerRequestContext requestContext, @Context SecurityContext securityContext,
+			@Suspended AsyncResponse asyncResponse) {
+		UserInfoSnapshot authenticatedUser = AuthFilterService.getAuthenticatedUser(requestContext);
+		int priority = fairJobScheduler.resolvePriority(newJob.getPriority(), securityContext.isUserInRole(Role.ADMIN));
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			JobSubmissionResult result = jobQueueEndpointService.addNewRecommendationRequestJob(uid,
+					newJob.getTargetUserId(), priority, authenticatedUser, idempotencyKey);
+			GenericEntity<JobInfoDTO> jobRequestEntity = new GenericEntity<JobInfoDTO>(result.getJob()) {};
+			// A retry, or a job that was already queued
+			Status status = JobSubmissionResult.CREATED.equals(result.getResult()) ? Status.CREATED : Status.OK;
+			return Response.status(status).entity(jobRequestEntity).build();
+		});
+	}
+	
+	@POST
+    @Path("/jobs/batch")
+    @Consumes(APPLICATION_JSON)
+    @Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+    @RolesAllowed({Role.USER,Role.ADMIN})
+	public void addNewRecommendationJobs(@PathParam("uid") Long uid, @NotNull @Valid List<NewJob> newJobs,
+			@Context SecurityContext securityContext, @Suspended AsyncResponse asyncResponse) {
+		if (newJobs.size() > maxBatchSize) {
+			throw new InvalidRequestException(String.format("At most %d jobs can be submitted at once.", maxBatchSize));
+		}
+		for (NewJob newJob : newJobs) {
+			if (newJob == null || newJob.getTargetUserId() == null) {
+				throw new InvalidRequestException("Every job of the batch needs a targetUserId.");
+			}
+		}
+		List<Long> targetUserIds = newJobs.stream().map(NewJob::getTargetUserId).collect(Collectors.toList());
+		boolean admin = securityContext.isUserInRole(Role.ADMIN);
+		// A target user repeated in the batch gets the highest of its priorities
+		Map<Long, Integer> priorities = newJobs.stream().collect(Collectors.toMap(NewJob::getTargetUserId,
+				newJob -> fairJobScheduler.resolvePriority(newJob.getPriority(), admin), Math::max));
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			List<JobSubmissionResult> results = jobQueueEndpointService.addNewRecommendationRequestJobs(uid,
+					targetUserIds, priorities);
+			GenericEntity<List<JobSubmissionResult>> entity = new GenericEntity<List<JobSubmissionResult>>(results) {
+	        };
+			return Response.ok(entity).build();
+		});
 	}
 	
 	@GET
 	@Path("/jobs")
     @Consumes(APPLICATION_JSON)
-    @Produces({APPLICATION_JSON, APPLICATION_XML})
+    @Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
     @RolesAllowed({Role.USER,Role.ADMIN})
-	public Response listAllJobQueues(@PathParam("uid") Long uid) throws IOException {
-		List<JobInfoDTO> jobInfos = jobQueueEndpointService.listAllJobQueues(uid);
-		GenericEntity<List<JobInfoDTO>> entity = new GenericEntity<List<JobInfoDTO>>(jobInfos) {
-        };
-
-        return Response.ok(entity).build();
+	public void listAllJobQueues(@PathParam("uid") Long uid, @BeanParam JobListQuery jobListQuery,
+			@Context Request request, @Context HttpHeaders httpHeaders, @Suspended AsyncResponse asyncResponse) {
+		if (jobListQuery.isPaged() && (jobListQuery.getLimit() < 1 || jobListQuery.getLimit() > maxPageSize)) {
+			throw new InvalidRequestException(String.format("The limit must be between 1 and %d.", maxPageSize));
+		}
+		
+		// Taken before the jobs are read, so a change in the meantime makes
+		// the tag older rather than newer than the list
+		Long version = jobQueueEndpointService.jobsVersion(uid);
+		EntityTag tag = version == null ? null : new EntityTag("l" + version + "-" + variant(httpHeaders));
+		if (tag != null) {
+			ResponseBuilder notModified = notModified(request, tag);
+			if (notModified != null) {
+				asyncResponse.resume(notModified.build());
+				return;
+			}
+		}
+		
+		// The streamed listing is written by the thread that resumes the
+		// request, so it stays on the job queue executor too
+		if (jobListQuery.isStream()) {
+			StreamingOutput stream = output -> jobQueueEndpointService.streamJobQueues(uid, jobListQuery, output);
+			jobQueueExecutor.supply(asyncResponse, () -> revalidated(Response.ok(stream, APPLICATION_JSON), tag).build());
+			return;
+		}
+		
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			List<JobInfoDTO> jobInfos = jobQueueEndpointService.listAllJobQueues(uid, jobListQuery);
+			GenericEntity<List<JobInfoDTO>> entity = new GenericEntity<List<JobInfoDTO>>(jobInfos) {
+	        };
+	
+	        ResponseBuilder responseBuilder = revalidated(Response.ok(entity), tag);
+	        // A full page, there may be more jobs after the last one
+	        if (jobListQuery.isPaged() && jobInfos.size() == jobListQuery.getLimit()) {
+	        	responseBuilder.header(NEXT_CURSOR_HEADER, jobInfos.get(jobInfos.size() - 1).getId());
+	        }
+	        return responseBuilder.build();
+		});
+	}
+	
+	/**
+	 * The changes of the jobs of the user after the `since` sequence, for
+	 * clients that keep a local copy of the jobs. Without `since` only the
+	 * current sequence is returned, to take before listing the jobs. Once the
+	 * changes have been dropped from the log the request fails with 410 Gone
+	 * and the jobs have to be listed again.
+	 *
+	 * @param uid
+	 * @param since
+	 * @param limit
+	 * @return
+	 */
+	@GET
+	@Path("/jobs/changes")
+    @Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+    @RolesAllowed({Role.USER,Role.ADMIN})
+	public Response jobChanges(@PathParam("uid") Long uid, @QueryParam("since") Long since,
+			@QueryParam("limit") Integer limit) {
+		if (limit != null && (limit < 1 || limit > maxPageSize)) {
+			throw new InvalidRequestException(String.format("The limit must be between 1 and %d.", maxPageSize));
+		}
+		// Straight from memory, no need for the job queue executor
+		JobChangesDTO changes = jobQueueEndpointService.jobChanges(uid, since, limit == null ? maxPageSize : limit);
+		return Response.ok(new GenericEntity<JobChangesDTO>(changes) {
+		}).build();
 	}
 	
+	/**
+	 * Get the status of the job. With `wait` (in seconds) and the `status`
+	 * the client already knows, the request is held until the status changes
+	 * or the wait is over, whichever comes first.
+	 *
+	 * Without waiting, a request with If-None-Match gets 304 Not Modified
+	 * straight from memory while the job hasn't changed: an active job by its
+	 * status in the active job index, a finished or failed job never changes.
+	 * Otherwise the status is read from the database, only a job still in the
+	 * write-ahead log is answered from memory.
+	 *
+	 * @param uid
+	 * @param id
+	 * @param knownStatus
+	 * @param wait
+	 * @param request
+	 * @param httpHeaders
+	 * @param asyncResponse
+	 */
 	@GET
 	@Path("/jobs/{id}")
     @Consumes(APPLICATION_JSON)
-    @Produces({APPLICATION_JSON, APPLICATION_XML})
+    @Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
     @RolesAllowed({Role.USER,Role.ADMIN})
-	public Response jobStatus(@PathParam("uid") Long uid, @PathParam("id") Long id) throws IOException {
-		JobInfoDTO jobInfo = jobQueueEndpointService.jobStatus(uid, id);
+	public void jobStatus(@PathParam("uid") Long uid, @PathParam("id") Long id,
+			@QueryParam("status") Integer knownStatus, @QueryParam("wait") @DefaultValue("0") int wait,
+			@Context Request request, @Context HttpHeaders httpHeaders, @Suspended AsyncResponse asyncResponse) {
+		String variant = variant(httpHeaders);
+		if (wait <= 0 || knownStatus == null) {
+			// The tags the client may still hold, checked before any database work
+			JobInfoDTO activeJob = jobQueueEndpointService.findActiveJob(uid, id);
+			ResponseBuilder notModified = activeJob != null
+					? notModified(request, statusTag(activeJob, variant))
+					: notModified(request, statusTag(id, JobStatus.FINISHED, variant),
+							statusTag(id, JobStatus.FAILED, variant));
+			if (notModified != null) {
+				asyncResponse.resume(notModified.build());
+				return;
+			}
+			
+			// A job that is only in the write-ahead log so far is queued
+			JobInfoDTO pendingJob = jobQueueEndpointService.findPendingJob(uid, id);
+			if (pendingJob != null) {
+				asyncResponse.resume(jobStatusResponse(pendingJob, statusTag(pendingJob, variant)));
+				return;
+			}
+			
+			jobQueueExecutor.supply(asyncResponse, () -> {
+				JobInfoDTO jobInfo = jobQueueEndpointService.jobStatus(uid, id);
+				EntityTag tag = statusTag(jobInfo, variant);
+				ResponseBuilder unchanged = notModified(request, tag);
+				return unchanged != null ? unchanged.build() : jobStatusResponse(jobInfo, tag);
+			});
+			return;
+		}
+		
+		jobQueueExecutor.execute(asyncResponse, response -> {
+			JobInfoDTO jobInfo = jobQueueEndpointService.jobStatus(uid, id);
+			if (knownStatus != jobInfo.getStatus() || JobStatus.isTerminal(jobInfo.getStatus())) {
+				response.resume(jobStatusResponse(jobInfo, statusTag(jobInfo, variant)));
+				return;
+			}
+			
+			// Nothing left to do on the executor, wait for the notifier
+			response.setTimeoutHandler(timedOut -> timedOut.resume(jobStatusResponse(jobInfo, statusTag(jobInfo, variant))));
+			response.setTimeout(Math.min(wait, maxWait), TimeUnit.SECONDS);
+			
+			Subscription subscription = jobStatusNotifier.watchJob(uid, jobInfo, change -> {
+				if (change.isCancelled()) {
+					response.resume(new JobNotFoundException(id));
+				} else {
+					response.resume(jobStatusResponse(change.getJobInfo(), statusTag(change.getJobInfo(), variant)));
+				}
+				return false;
+			});
+			response.register((CompletionCallback) throwable -> subscription.cancel());
+			if (response.isDone()) {
+				subscription.cancel();
+			}
+		});
+	}
+	
+	private Response jobStatusResponse(JobInfoDTO jobInfo, EntityTag tag) {
 		GenericEntity<JobInfoDTO> entity = new GenericEntity<JobInfoDTO>(jobInfo) {
         };
-        return Response.ok(entity).build();
+        return revalidated(Response.ok(entity), tag).build();
+	}
+	
+	// The status is the only part of a job that changes
+	private static EntityTag statusTag(JobInfoDTO jobInfo, String variant) {
+		return statusTag(jobInfo.getId(), jobInfo.getStatus(), variant);
+	}
+	
+	private static EntityTag statusTag(Long jobId, int status, String variant) {
+		return new EntityTag(jobId + "-s" + status + "-" + variant);
+	}
+	
+	// The tags are strong, so each representation needs its own
+	private static String variant(HttpHeaders httpHeaders) {
+		for (MediaType mediaType : httpHeaders.getAcceptableMediaTypes()) {
+			if (mediaType.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+				return "j";
+			}
+			if (mediaType.isCompatible(MediaType.APPLICATION_XML_TYPE)) {
+				return "x";
+			}
+			if (mediaType.isCompatible(CBOR_TYPE)) {
+				return "c";
+			}
+			if (mediaType.isCompatible(SMILE_TYPE)) {
+				return "s";
+			}
+		}
+		return "j";
+	}
+	
+	// 304 Not Modified if the client has one of the representations, the
+	// compressed ones carry the tag with the suffix of their encoding
+	private static ResponseBuilder notModified(Request request, EntityTag... tags) {
+		for (EntityTag tag : tags) {
+			EntityTag[] candidates = { tag, CompressionInterceptor.encodedTag(tag, CompressionInterceptor.GZIP),
+					CompressionInterceptor.encodedTag(tag, CompressionInterceptor.DEFLATE) };
+			for (EntityTag candidate : candidates) {
+				ResponseBuilder notModified = request.evaluatePreconditions(candidate);
+				if (notModified != null) {
+					return revalidated(notModified, candidate);
+				}
+			}
+		}
+		return null;
+	}
+	
+	private static ResponseBuilder revalidated(ResponseBuilder responseBuilder, EntityTag tag) {
+		if (tag == null) {
+			return responseBuilder;
+		}
+		return responseBuilder.tag(tag)
+				.cacheControl(REVALIDATE)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+	}
+	
+	/**
+	 * Server-Sent Events stream of the status of the job, closed once the job
+	 * has finished, failed or been cancelled.
+	 *
+	 * @param uid
+	 * @param id
+	 * @param asyncResponse
+	 */
+	@GET
+	@Path("/jobs/{id}/events")
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    @RolesAllowed({Role.USER,Role.ADMIN})
+	public void jobStatusEvents(@PathParam("uid") Long uid, @PathParam("id") Long id,
+			@Suspended AsyncResponse asyncResponse) {
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			JobInfoDTO jobInfo = jobQueueEndpointService.jobStatus(uid, id);
+			EventOutput eventOutput = new EventOutput();
+			if (!send(eventOutput, statusEvent(jobInfo)) || JobStatus.isTerminal(jobInfo.getStatus())) {
+				close(eventOutput);
+				return eventOutput;
+			}
+			
+			jobStatusNotifier.watchJob(uid, jobInfo, eventListener(eventOutput,
+					change -> change.isCancelled() || JobStatus.isTerminal(change.getJobInfo().getStatus())));
+			
+			return eventOutput;
+		});
+	}
+	
+	/**
+	 * Server-Sent Events stream of the status of all the jobs of the user,
+	 * starting with the jobs that haven't finished or failed yet.
+	 *
+	 * @param uid
+	 * @param asyncResponse
+	 */
+	@GET
+	@Path("/jobs/events")
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    @RolesAllowed({Role.USER,Role.ADMIN})
+	public void jobEvents(@PathParam("uid") Long uid, @Suspended AsyncResponse asyncResponse) {
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			List<JobInfoDTO> activeJobs = jobQueueEndpointService.listActiveJobs(uid);
+			EventOutput eventOutput = new EventOutput();
+			Subscription subscription = jobStatusNotifier.watchOwner(uid, activeJobs,
+					eventListener(eventOutput, change -> false));
+			
+			for (JobInfoDTO jobInfo : activeJobs) {
+				if (!send(eventOutput, statusEvent(jobInfo))) {
+					subscription.cancel();
+					close(eventOutput);
+					break;
+				}
+			}
+			
+			return eventOutput;
+		});
+	}
+	
+	// Writes the changes to the stream, which is closed after the last one or
+	// when the client can't keep up
+	private static JobStatusListener eventListener(EventOutput eventOutput, Predicate<JobStatusChange> last) {
+		return new JobStatusListener() {
+			
+			@Override
+			public boolean onChange(JobStatusChange change) {
+				if (send(eventOutput, toEvent(change)) && !last.test(change)) {
+					return true;
+				}
+				close(eventOutput);
+				return false;
+			}
+			
+			@Override
+			public void onDropped() {
+				close(eventOutput);
+			}
+			
+		};
+	}
+	
+	private static OutboundEvent toEvent(JobStatusChange change) {
+		if (change.isCancelled()) {
+			return new OutboundEvent.Builder()
+					.name("cancelled")
+					.id(String.valueOf(change.getJobInfo().getId()))
+					.data(String.class, String.valueOf(change.getJobInfo().getId()))
+					.build();
+		}
+		return statusEvent(change.getJobInfo());
+	}
+	
+	private static OutboundEvent statusEvent(JobInfoDTO jobInfo) {
+		return new OutboundEvent.Builder()
+				.name("status")
+				.id(String.valueOf(jobInfo.getId()))
+				.mediaType(MediaType.APPLICATION_JSON_TYPE)
+				.data(JobInfoDTO.class, jobInfo)
+				.build();
+	}
+	
+	// Returns false when the client has gone away
+	private static boolean send(EventOutput eventOutput, OutboundEvent event) {
+		if (eventOutput.isClosed()) {
+			return false;
+		}
+		try {
+			eventOutput.write(event);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	private static void close(EventOutput eventOutput) {
+		try {
+			eventOutput.close();
+		} catch (IOException e) {
+			LOGGER.debug("Failed to close the job event stream", e);
+		}
+	}
+	
+	/**
+	 * Cancel the queued jobs of the user matching all the given filters, or
+	 * all the queued jobs of the user without any.
+	 *
+	 * @param uid
+	 * @param jobCancelQuery
+	 * @param asyncResponse
+	 */
+	@DELETE
+    @Path("/jobs")
+    @Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+    @RolesAllowed({Role.USER,Role.ADMIN})
+	public void cancelJobs(@PathParam("uid") Long uid, @BeanParam JobCancelQuery jobCancelQuery,
+			@Suspended AsyncResponse asyncResponse) {
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			JobCancelResult result = jobQueueEndpointService.cancelJobs(uid, jobCancelQuery);
+			return Response.ok(new GenericEntity<JobCancelResult>(result) {
+			}).build();
+		});
 	}
 	
 	@DELETE
     @Path("/jobs/{id}")
     @RolesAllowed({Role.USER,Role.ADMIN})
-    public Response cancelJob(@PathParam("uid") Long uid, @PathParam("id") Long id) throws IOException {
-		boolean canceled = jobQueueEndpointService.cancelJob(uid, id);
-
-        if (canceled) {
-            return Response.ok("Job " + id + " has been canceled").build();
-        } else {
-            return Response.ok("Unable to cancel job " + id).build();
-        }
+    public void cancelJob(@PathParam("uid") Long uid, @PathParam("id") Long id,
+    		@Context ContainerRequestContext requestContext, @Suspended AsyncResponse asyncResponse) {
+		UserInfoSnapshot authenticatedUser = AuthFilterService.getAuthenticatedUser(requestContext);
+		jobQueueExecutor.supply(asyncResponse, () -> {
+			boolean canceled = jobQueueEndpointService.cancelJob(uid, id, authenticatedUser);
+	
+	        if (!canceled) {
+	        	throw new JobNotCancelledException(id);
+	        }
+	        return Response.noContent().build();
+		});
 	}
 }
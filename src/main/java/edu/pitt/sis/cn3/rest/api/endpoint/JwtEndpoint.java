@@ -19,7 +19,10 @@
 
 package edu.pitt.sis.cn3.rest.api.endpoint;
 
+import edu.pitt.sis.cn3.db.entity.UserInfo;
 import edu.pitt.sis.cn3.rest.api.dto.JwtDTO;
+import edu.pitt.sis.cn3.rest.api.security.PasswordHashingService;
+import edu.pitt.sis.cn3.rest.api.service.AuthFilterService;
 import edu.pitt.sis.cn3.rest.api.service.JwtEndpointService;
 
 import javax.annotation.security.PermitAll;
@@ -27,7 +30,11 @@ import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_CBOR;
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_XML;
 
@@ -47,15 +54,28 @@ public class JwtEndpoint {
 
     private final JwtEndpointService jwtEndpointService;
 
+    private final AuthFilterService authFilterService;
+
+    private final PasswordHashingService passwordHashingService;
+
     @Autowired
-    public JwtEndpoint(JwtEndpointService jwtEndpointService) {
+    public JwtEndpoint(JwtEndpointService jwtEndpointService,
+            AuthFilterService authFilterService,
+            PasswordHashingService passwordHashingService) {
         this.jwtEndpointService = jwtEndpointService;
+        this.authFilterService = authFilterService;
+        this.passwordHashingService = passwordHashingService;
     }
 
+    // The request is suspended while the password is hashed, the sign in runs
+    // on the password hashing threads and resumes it with the JWT
     @GET
-    @Produces({APPLICATION_JSON, APPLICATION_XML})
-    public Response getJwt(@HeaderParam("Authorization") String authString) {
-        JwtDTO jwtDTO = jwtEndpointService.generateJwt(authString);
-        return Response.ok(jwtDTO).build();
+    @Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+    public void getJwt(@HeaderParam("Authorization") String authString, @Suspended AsyncResponse asyncResponse) {
+        passwordHashingService.execute(asyncResponse, () -> {
+            UserInfo userInfo = authFilterService.authenticateBasic(authString);
+            JwtDTO jwtDTO = jwtEndpointService.generateJwt(userInfo);
+            return Response.ok(jwtDTO).build();
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package edu.pitt.sis.cn3.rest.api.endpoint;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.security.PermitAll;
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+
+import edu.pitt.sis.cn3.rest.api.Role;
+import edu.pitt.sis.cn3.rest.api.metrics.PrometheusTextFormat;
+
+/**
+ * The metrics in the Prometheus text format, admins only. The scrapers sign
+ * in with basic auth on every scrape (basic_auth in the scrape config).
+ *
+ * Oct 27, 2026 4:02:13 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+@PermitAll
+@Path("/admin/metrics")
+public class MetricsEndpoint {
+
+	private final MetricRegistry metricRegistry;
+
+	@Autowired
+	public MetricsEndpoint(MetricRegistry metricRegistry) {
+		this.metricRegistry = metricRegistry;
+	}
+
+	@GET
+	@Produces(PrometheusTextFormat.CONTENT_TYPE)
+	@RolesAllowed(Role.ADMIN)
+	public Response metrics() {
+		StreamingOutput entity = output -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			PrometheusTextFormat.write(metricRegistry, writer);
+			writer.flush();
+		};
+
+		return Response.ok(entity).build();
+	}
+
+}
@@ -0,0 +1,111 @@
+package edu.pitt.sis.cn3.rest.api.endpoint;
+
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_CBOR;
+import static edu.pitt.sis.cn3.rest.api.BinaryMediaType.APPLICATION_SMILE;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.APPLICATION_XML;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.security.PermitAll;
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.Response;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.pitt.sis.cn3.rest.api.Role;
+import edu.pitt.sis.cn3.rest.api.dto.SpanDTO;
+import edu.pitt.sis.cn3.rest.api.dto.TraceDTO;
+import edu.pitt.sis.cn3.rest.api.exception.InvalidRequestException;
+import edu.pitt.sis.cn3.rest.api.trace.Span;
+import edu.pitt.sis.cn3.rest.api.trace.Trace;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
+
+/**
+ * The slowest sampled requests with their spans, admins only.
+ *
+ * Oct 28, 2026 11:20:04 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+@PermitAll
+@Path("/admin/traces")
+public class TraceEndpoint {
+
+	private final Tracer tracer;
+
+	@Autowired
+	public TraceEndpoint(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	/**
+	 * The slowest traces, the slowest first.
+	 *
+	 * @param limit most traces to list
+	 * @return
+	 */
+	@GET
+	@Produces({APPLICATION_JSON, APPLICATION_XML, APPLICATION_CBOR, APPLICATION_SMILE})
+	@RolesAllowed(Role.ADMIN)
+	public Response slowestTraces(@QueryParam("limit") @DefaultValue("100") int limit) {
+		if (limit < 0) {
+			throw new InvalidRequestException("The limit can't be negative.");
+		}
+
+		List<TraceDTO> traces = new ArrayList<>();
+		for (Trace trace : tracer.slowestTraces()) {
+			if (traces.size() == limit) {
+				break;
+			}
+			traces.add(toTraceDTO(trace));
+		}
+
+		return Response.ok(new GenericEntity<List<TraceDTO>>(traces) {
+		}).build();
+	}
+
+	/**
+	 * Start over, for instance after a change of settings.
+	 *
+	 * @return
+	 */
+	@DELETE
+	@RolesAllowed(Role.ADMIN)
+	public Response clearTraces() {
+		tracer.clear();
+
+		return Response.noContent().build();
+	}
+
+	private static TraceDTO toTraceDTO(Trace trace) {
+		List<Span> spans = trace.getSpans();
+		List<SpanDTO> spanDTOs = new ArrayList<>(spans.size());
+		for (Span span : spans) {
+			long duration = span.getDuration();
+			spanDTOs.add(new SpanDTO(span.getName(), micros(span.getOffset()), duration < 0 ? -1 : micros(duration),
+					span.getDepth(), span.getThread()));
+		}
+
+		return new TraceDTO(Long.toHexString(trace.getRequestId()), trace.getMethod(), trace.getPath(),
+				trace.getStatus(), new Date(trace.getStartTime()), micros(trace.getDuration()),
+				trace.getDroppedSpans(), spanDTOs);
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+}
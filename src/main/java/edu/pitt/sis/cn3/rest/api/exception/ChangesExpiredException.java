@@ -0,0 +1,20 @@
+package edu.pitt.sis.cn3.rest.api.exception;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ *
+ * Oct 24, 2026 3:02:11 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class ChangesExpiredException extends WebApplicationException {
+
+	private static final long serialVersionUID = 5306228194710658392L;
+
+	public ChangesExpiredException(Long since) {
+		super(String.format("The changes since '%d' are no longer available, list the jobs again.", since), Status.GONE);
+	}
+
+}
@@ -0,0 +1,20 @@
+package edu.pitt.sis.cn3.rest.api.exception;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ *
+ * Oct 19, 2026 10:06:14 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class InvalidRequestException extends WebApplicationException {
+
+	private static final long serialVersionUID = -3120563957432216850L;
+
+	public InvalidRequestException(String message) {
+		super(message, Status.BAD_REQUEST);
+	}
+
+}
@@ -0,0 +1,20 @@
+package edu.pitt.sis.cn3.rest.api.exception;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ *
+ * Oct 24, 2026 11:06:15 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class JobNotCancelledException extends WebApplicationException {
+
+	private static final long serialVersionUID = 8831607254920735168L;
+
+	public JobNotCancelledException(Long jobId) {
+		super(String.format("Unable to cancel job '%d'.", jobId), Status.CONFLICT);
+	}
+
+}
@@ -0,0 +1,20 @@
+package edu.pitt.sis.cn3.rest.api.exception;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ *
+ * Oct 19, 2026 3:47:21 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class JobNotFoundException extends WebApplicationException {
+
+	private static final long serialVersionUID = 2649147381807319542L;
+
+	public JobNotFoundException(Long jobId) {
+		super(String.format("Job '%d' not found.", jobId), Status.NOT_FOUND);
+	}
+
+}
@@ -0,0 +1,20 @@
+package edu.pitt.sis.cn3.rest.api.exception;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ *
+ * Oct 23, 2026 3:12:40 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class LeaseExpiredException extends WebApplicationException {
+
+	private static final long serialVersionUID = 4920184719582034711L;
+
+	public LeaseExpiredException(Long jobId) {
+		super(String.format("The lease on job '%d' has expired or is held by another worker.", jobId), Status.CONFLICT);
+	}
+
+}
@@ -0,0 +1,22 @@
+package edu.pitt.sis.cn3.rest.api.exception;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ *
+ * Oct 18, 2026 3:41:09 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class ServiceUnavailableException extends WebApplicationException {
+
+	private static final long serialVersionUID = 7380522147236083155L;
+
+	public ServiceUnavailableException(String message, long retryAfterSeconds) {
+		super(message, Response.status(Response.Status.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, retryAfterSeconds).build());
+	}
+
+}
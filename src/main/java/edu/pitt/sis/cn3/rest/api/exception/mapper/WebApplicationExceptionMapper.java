@@ -22,6 +22,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.StatusType;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
@@ -52,7 +53,11 @@ public class WebApplicationExceptionMapper implements ExceptionMapper<WebApplica
         errorResponse.setStatus(statusType.getStatusCode());
         errorResponse.setTimestamp(System.currentTimeMillis());
 
-        return Response.status(statusType).entity(errorResponse).build();
+        ResponseBuilder responseBuilder = Response.status(statusType).entity(errorResponse);
+        // Keep the headers set by the exception, e.g. Retry-After
+        response.getHeaders().forEach((name, values) -> values.forEach(value -> responseBuilder.header(name, value)));
+
+        return responseBuilder.build();
     }
 
 }
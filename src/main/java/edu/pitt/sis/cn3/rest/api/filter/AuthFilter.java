@@ -29,6 +29,8 @@ import javax.ws.rs.ext.Provider;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import edu.pitt.sis.cn3.rest.api.service.AuthFilterService;
+import edu.pitt.sis.cn3.rest.api.trace.Span;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
 
 /**
  *
@@ -42,9 +44,12 @@ public class AuthFilter implements ContainerRequestFilter {
 
 	private final AuthFilterService authFilterService;
 
+	private final Tracer tracer;
+
 	@Autowired
-	public AuthFilter(AuthFilterService authFilterService) {
+	public AuthFilter(AuthFilterService authFilterService, Tracer tracer) {
 		this.authFilterService = authFilterService;
+		this.tracer = tracer;
 	}
 
 	// https://jersey.java.net/documentation/latest/filters-and-interceptors.html
@@ -58,12 +63,29 @@ public class AuthFilter implements ContainerRequestFilter {
 			return;
 		}
 
-		// We'll only use basic auth for API sign in to get the JWT
-		// and all other following requests will be handled by JWT verification
-		if (method.equals("GET") && path.equals("jwt")) {
-			authFilterService.verifyBasicAuth(requestContext);
-		} else {
-			authFilterService.verifyJwt(requestContext);
+		// The request id, and the trace of the sampled requests
+		tracer.start(requestContext);
+
+		long start = System.nanoTime();
+		try {
+			// We'll only use basic auth for API sign in to get the JWT, and for the
+			// metrics scrapes as the scrapers can't sign in,
+			// all other following requests will be handled by JWT verification
+			if (method.equals("GET") && path.equals("jwt")) {
+				// The sign in is verified by the endpoint, on the password hashing
+				// threads rather than on this one
+				return;
+			} else if (method.equals("GET") && path.equals("admin/metrics")) {
+				try (Span span = Tracer.span("auth.basic")) {
+					authFilterService.verifyBasicAuth(requestContext);
+				}
+			} else {
+				try (Span span = Tracer.span("auth.jwt")) {
+					authFilterService.verifyJwt(requestContext);
+				}
+			}
+		} finally {
+			requestContext.setProperty(RequestMetricsFilter.AUTH_TIME_PROPERTY, System.nanoTime() - start);
 		}
 	}
 
@@ -0,0 +1,262 @@
+package edu.pitt.sis.cn3.rest.api.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.glassfish.jersey.media.sse.SseFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * gzip or deflate compression of the response entities, as negotiated with
+ * Accept-Encoding (gzip is preferred when both are accepted).
+ *
+ * The size of an entity isn't known before it is written, so the first
+ * cn3.http.compression.min-size bytes are held back: an entity that ends
+ * within them is sent as is, a larger one is compressed from the start.
+ * The response is only committed once that is decided, so the
+ * Content-Encoding header can still be set. Server-Sent Events are never
+ * compressed, the events would be held back.
+ *
+ * A strong ETag identifies the exact bytes, so a compressed entity gets the
+ * tag of the identity one with a -gz or -df suffix (see
+ * {@link #encodedTag(EntityTag, String)}).
+ *
+ * Oct 25, 2026 10:31:05 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements ContainerResponseFilter, WriterInterceptor {
+
+	public static final String GZIP = "gzip";
+
+	public static final String DEFLATE = "deflate";
+
+	// The negotiated encoding, from the response filter to the interceptor
+	private static final String ENCODING_PROPERTY = CompressionInterceptor.class.getName() + ".encoding";
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final boolean enabled;
+
+	private final int minSize;
+
+	private final int level;
+
+	private final Meter compressedMeter;
+
+	@Autowired
+	public CompressionInterceptor(MetricRegistry metricRegistry,
+			@Value("${cn3.http.compression.enabled}") boolean enabled,
+			@Value("${cn3.http.compression.min-size}") int minSize,
+			@Value("${cn3.http.compression.level}") int level) {
+		this.enabled = enabled;
+		this.minSize = minSize;
+		this.level = level;
+		this.compressedMeter = metricRegistry.meter("http.responses.compressed");
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+			throws IOException {
+		if (!enabled || !responseContext.hasEntity()
+				|| responseContext.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)
+				|| SseFeature.SERVER_SENT_EVENTS_TYPE.isCompatible(responseContext.getMediaType())) {
+			return;
+		}
+
+		// Whether it ends up compressed or not depends on the size
+		responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+		String encoding = negotiate(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+		if (encoding != null) {
+			requestContext.setProperty(ENCODING_PROPERTY, encoding);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		String encoding = (String) context.getProperty(ENCODING_PROPERTY);
+		if (encoding == null) {
+			context.proceed();
+			return;
+		}
+
+		// Jersey closes the outermost stream once the entity is written, which
+		// writes out the held back bytes or finishes the compression
+		context.setOutputStream(new ThresholdOutputStream(context.getOutputStream(), encoding, context.getHeaders()));
+		context.proceed();
+	}
+
+	/**
+	 * @param tag of the identity representation
+	 * @param encoding gzip or deflate
+	 * @return the tag of the representation in that encoding, a weak tag is
+	 *         the same for all of them
+	 */
+	public static EntityTag encodedTag(EntityTag tag, String encoding) {
+		if (tag.isWeak()) {
+			return tag;
+		}
+		return new EntityTag(tag.getValue() + (GZIP.equals(encoding) ? "-gz" : "-df"));
+	}
+
+	// The first of gzip and deflate that is accepted, or null
+	private static String negotiate(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+
+		boolean gzip = false;
+		boolean deflate = false;
+		boolean any = false;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim().toLowerCase();
+			boolean accepted = true;
+			for (int i = 1; i < parts.length; i++) {
+				String param = parts[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						accepted = Double.parseDouble(param.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						accepted = false;
+					}
+				}
+			}
+			if (name.equals(GZIP) || name.equals("x-gzip")) {
+				gzip = accepted;
+			} else if (name.equals(DEFLATE)) {
+				deflate = accepted;
+			} else if (name.equals("*")) {
+				any = accepted;
+			}
+		}
+
+		if (gzip || (any && !acceptEncoding.toLowerCase().contains(GZIP))) {
+			return GZIP;
+		}
+		return deflate ? DEFLATE : null;
+	}
+
+	private final class ThresholdOutputStream extends OutputStream {
+
+		private final OutputStream output;
+
+		private final String encoding;
+
+		private final MultivaluedMap<String, Object> headers;
+
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream(minSize);
+
+		private OutputStream compressed;
+
+		private boolean closed;
+
+		private ThresholdOutputStream(OutputStream output, String encoding, MultivaluedMap<String, Object> headers) {
+			this.output = output;
+			this.encoding = encoding;
+			this.headers = headers;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (compressed == null) {
+				if (buffer.size() + 1 < minSize) {
+					buffer.write(b);
+					return;
+				}
+				startCompression();
+			}
+			compressed.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (compressed == null) {
+				if (buffer.size() + len < minSize) {
+					buffer.write(b, off, len);
+					return;
+				}
+				startCompression();
+			}
+			compressed.write(b, off, len);
+		}
+
+		private void startCompression() throws IOException {
+			// Nothing has been written yet, the headers can still change
+			headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+			headers.remove(HttpHeaders.CONTENT_LENGTH);
+			Object etag = headers.getFirst(HttpHeaders.ETAG);
+			if (etag != null) {
+				EntityTag tag = etag instanceof EntityTag ? (EntityTag) etag : EntityTag.valueOf(etag.toString());
+				headers.putSingle(HttpHeaders.ETAG, encodedTag(tag, encoding));
+			}
+
+			// The default deflaters, with the level set, are released on close
+			if (GZIP.equals(encoding)) {
+				compressed = new GZIPOutputStream(output, BUFFER_SIZE) {
+					{
+						def.setLevel(level);
+					}
+				};
+			} else {
+				compressed = new DeflaterOutputStream(output) {
+					{
+						def.setLevel(level);
+					}
+				};
+			}
+			buffer.writeTo(compressed);
+			buffer = null;
+			compressedMeter.mark();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// Still deciding, flushing would commit the response
+			if (compressed != null) {
+				compressed.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+
+			if (compressed == null) {
+				buffer.writeTo(output);
+				output.close();
+			} else {
+				compressed.close();
+			}
+		}
+
+	}
+
+}
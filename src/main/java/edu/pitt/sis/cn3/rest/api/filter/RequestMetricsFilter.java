@@ -0,0 +1,218 @@
+package edu.pitt.sis.cn3.rest.api.filter;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import edu.pitt.sis.cn3.rest.api.metrics.DatabaseTime;
+import edu.pitt.sis.cn3.rest.api.metrics.HdrHistogramReservoir;
+
+/**
+ * Latency, throughput, requests in flight and response status of each
+ * resource method, as http.&lt;resource&gt;.&lt;method&gt;.* metrics:
+ *
+ * - requests: from the first filter to the end of the response entity
+ * - auth: the authentication filter
+ * - database: the JDBC calls of the job queue task up to when it resumes the
+ * request, the wait for a connection included
+ * - write: the response entity, serialization and compression, and the
+ * database reads of the streamed listing
+ * - active: the requests in flight
+ * - responses.2xx and the other status classes
+ *
+ * and http.requests.active and http.responses.&lt;status&gt; across all the
+ * requests, including the unmatched ones.
+ *
+ * The timers are on HdrHistogram reservoirs of cn3.metrics.window seconds.
+ * It runs before the authentication filter and its response filter runs
+ * after all the others.
+ *
+ * Oct 27, 2026 3:31:47 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+@Provider
+@Priority(Priorities.AUTHENTICATION - 100)
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+	/**
+	 * Time of the authentication in nanoseconds, set by the authentication
+	 * filter.
+	 */
+	public static final String AUTH_TIME_PROPERTY = RequestMetricsFilter.class.getName() + ".authTime";
+
+	private static final String TIMING_PROPERTY = RequestMetricsFilter.class.getName() + ".timing";
+
+	private final MetricRegistry metricRegistry;
+
+	private final long window;
+
+	private final ConcurrentMap<Method, MethodMetrics> methodMetrics = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Integer, Meter> statusMeters = new ConcurrentHashMap<>();
+
+	private final Counter active;
+
+	@Autowired
+	public RequestMetricsFilter(MetricRegistry metricRegistry, @Value("${cn3.metrics.window}") long window) {
+		this.metricRegistry = metricRegistry;
+		this.window = window;
+		this.active = metricRegistry.counter("http.requests.active");
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) throws IOException {
+		ResourceMethod resourceMethod = ((ExtendedUriInfo) requestContext.getUriInfo()).getMatchedResourceMethod();
+		if (resourceMethod == null) {
+			return;
+		}
+
+		Method method = resourceMethod.getInvocable().getDefinitionMethod();
+		MethodMetrics metrics = methodMetrics.computeIfAbsent(method, MethodMetrics::new);
+		requestContext.setProperty(TIMING_PROPERTY, new Timing(metrics, System.nanoTime()));
+		metrics.active.inc();
+		active.inc();
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+			throws IOException {
+		int status = responseContext.getStatus();
+		statusMeters.computeIfAbsent(status, code -> metricRegistry.meter("http.responses." + code)).mark();
+
+		Timing timing = (Timing) requestContext.getProperty(TIMING_PROPERTY);
+		if (timing == null) {
+			return;
+		}
+		timing.status = status;
+
+		Object authTime = requestContext.getProperty(AUTH_TIME_PROPERTY);
+		if (authTime != null) {
+			timing.metrics.auth.update((Long) authTime, TimeUnit.NANOSECONDS);
+		}
+		long databaseTime = DatabaseTime.get();
+		if (databaseTime >= 0) {
+			timing.metrics.database.update(databaseTime, TimeUnit.NANOSECONDS);
+		}
+
+		// Otherwise done once the entity is written
+		if (!responseContext.hasEntity() || "HEAD".equals(requestContext.getMethod())) {
+			finish(timing);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		Timing timing = (Timing) context.getProperty(TIMING_PROPERTY);
+		// Each event of a Server-Sent Events stream is written on its own,
+		// only the first one counts
+		if (timing == null || timing.finished.get()) {
+			context.proceed();
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			context.proceed();
+		} finally {
+			timing.metrics.write.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			finish(timing);
+		}
+	}
+
+	private void finish(Timing timing) {
+		if (!timing.finished.compareAndSet(false, true)) {
+			return;
+		}
+
+		MethodMetrics metrics = timing.metrics;
+		metrics.requests.update(System.nanoTime() - timing.start, TimeUnit.NANOSECONDS);
+		metrics.active.dec();
+		active.dec();
+		int statusClass = timing.status / 100;
+		if (statusClass >= 1 && statusClass <= 5) {
+			metrics.responses[statusClass - 1].mark();
+		}
+	}
+
+	// Registered once per resource method, the metric names aren't known
+	// upfront
+	private Timer timer(String name) {
+		try {
+			return metricRegistry.register(name, new Timer(new HdrHistogramReservoir(window, TimeUnit.SECONDS)));
+		} catch (IllegalArgumentException e) {
+			return metricRegistry.timer(name);
+		}
+	}
+
+	private final class MethodMetrics {
+
+		private final Timer requests;
+
+		private final Timer auth;
+
+		private final Timer database;
+
+		private final Timer write;
+
+		private final Counter active;
+
+		private final Meter[] responses = new Meter[5];
+
+		private MethodMetrics(Method method) {
+			String prefix = MetricRegistry.name("http", method.getDeclaringClass().getSimpleName(), method.getName());
+			this.requests = timer(MetricRegistry.name(prefix, "requests"));
+			this.auth = timer(MetricRegistry.name(prefix, "auth"));
+			this.database = timer(MetricRegistry.name(prefix, "database"));
+			this.write = timer(MetricRegistry.name(prefix, "write"));
+			this.active = metricRegistry.counter(MetricRegistry.name(prefix, "active"));
+			for (int i = 0; i < responses.length; i++) {
+				responses[i] = metricRegistry.meter(MetricRegistry.name(prefix, "responses", (i + 1) + "xx"));
+			}
+		}
+
+	}
+
+	private static final class Timing {
+
+		private final MethodMetrics metrics;
+
+		private final long start;
+
+		private final AtomicBoolean finished = new AtomicBoolean();
+
+		private int status;
+
+		private Timing(MethodMetrics metrics, long start) {
+			this.metrics = metrics;
+			this.start = start;
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+package edu.pitt.sis.cn3.rest.api.filter;
+
+import javax.ws.rs.ext.Provider;
+
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.pitt.sis.cn3.rest.api.trace.Span;
+import edu.pitt.sis.cn3.rest.api.trace.Trace;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
+
+/**
+ * The frame of the traces started by the authentication filter: a span for
+ * the resource method and one for the response entity, and the end of the
+ * trace once the response is written. Also sends the request id back, and
+ * takes the trace off the Jetty thread once the resource method returns, an
+ * async request goes on on a job queue thread.
+ *
+ * Oct 28, 2026 10:36:19 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+@Provider
+public class TraceEventListener implements ApplicationEventListener {
+
+	private static final String METHOD_SPAN_PROPERTY = TraceEventListener.class.getName() + ".methodSpan";
+
+	private static final String WRITE_SPAN_PROPERTY = TraceEventListener.class.getName() + ".writeSpan";
+
+	private final Tracer tracer;
+
+	// Stateless, the same one for every request
+	private final RequestEventListener requestEventListener = this::onRequestEvent;
+
+	@Autowired
+	public TraceEventListener(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	@Override
+	public void onEvent(ApplicationEvent event) {
+	}
+
+	@Override
+	public RequestEventListener onRequest(RequestEvent requestEvent) {
+		return requestEventListener;
+	}
+
+	private void onRequestEvent(RequestEvent event) {
+		ContainerRequest request = event.getContainerRequest();
+		switch (event.getType()) {
+		case RESOURCE_METHOD_START:
+			Trace trace = (Trace) request.getProperty(Tracer.TRACE_PROPERTY);
+			if (trace != null) {
+				ResourceMethod resourceMethod = event.getUriInfo().getMatchedResourceMethod();
+				String name = resourceMethod == null ? "resource"
+						: resourceMethod.getInvocable().getDefinitionMethod().getDeclaringClass().getSimpleName() + "."
+								+ resourceMethod.getInvocable().getDefinitionMethod().getName();
+				request.setProperty(METHOD_SPAN_PROPERTY, trace.open(name));
+			}
+			break;
+		case RESOURCE_METHOD_FINISHED:
+			close(request, METHOD_SPAN_PROPERTY);
+			Tracer.detach();
+			break;
+		case RESP_FILTERS_START:
+			Object requestId = request.getProperty(Tracer.REQUEST_ID_PROPERTY);
+			if (requestId != null) {
+				event.getContainerResponse().getHeaders().putSingle(Tracer.REQUEST_ID_HEADER,
+						Long.toHexString((Long) requestId));
+			}
+			break;
+		case RESP_FILTERS_FINISHED:
+			Trace writtenTrace = (Trace) request.getProperty(Tracer.TRACE_PROPERTY);
+			if (writtenTrace != null) {
+				request.setProperty(WRITE_SPAN_PROPERTY, writtenTrace.open("response.write"));
+			}
+			break;
+		case FINISHED:
+			Trace finishedTrace = (Trace) request.getProperty(Tracer.TRACE_PROPERTY);
+			if (finishedTrace != null) {
+				close(request, WRITE_SPAN_PROPERTY);
+				ContainerResponse response = event.getContainerResponse();
+				tracer.finish(finishedTrace, response == null ? 500 : response.getStatus());
+			}
+			// Turned away before the resource method, by the authentication
+			Tracer.detach();
+			break;
+		default:
+			break;
+		}
+	}
+
+	private static void close(ContainerRequest request, String property) {
+		Span span = (Span) request.getProperty(property);
+		if (span != null) {
+			span.close();
+		}
+	}
+
+}
@@ -0,0 +1,440 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.service.JobQueueInfoQueryService;
+
+/**
+ * In-memory index of the jobs that haven't finished or failed yet, by id and
+ * by owner, for the {@link FairJobScheduler} and the jobs that are only in
+ * the write-ahead log so far.
+ *
+ * The workers update the job status directly in the database, so the index
+ * is reloaded at a fixed interval (cn3.jobs.index.refresh-interval) and an
+ * active job's status may be that much behind. The status reads go to the
+ * database, only the pending jobs are read from here; the conditional reads
+ * are answered with 304 Not Modified from here and the {@link JobEventLog}
+ * versions.
+ *
+ * Nothing is loaded until something {@link #require() requires} the index.
+ * A reload then only reads the jobs added since the last one, by id, and
+ * the jobs already in the index, by primary key, in pages of
+ * cn3.jobs.index.page-size. The jobs that other applications commit with a
+ * lower id than one already seen are picked up by the full reload, every
+ * cn3.jobs.index.full-reload-interval.
+ *
+ * Every change of the index is a job lifecycle transition, which is
+ * appended to the {@link JobEventLog}. The jobs that leave the index on a
+ * reload are looked up once more to tell the finished or failed ones from
+ * the cancelled ones.
+ *
+ * Oct 21, 2026 9:47:26 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class ActiveJobIndex {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ActiveJobIndex.class);
+
+	private final JobQueueInfoQueryService jobQueueInfoQueryService;
+
+	private final JobEventLog jobEventLog;
+
+	private final ConcurrentMap<Long, IndexedJob> jobs = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Long, Set<Long>> jobIdsByOwner = new ConcurrentHashMap<>();
+
+	private final int pageSize;
+
+	private final long fullReloadInterval;
+
+	// Orders the local changes against the reloads, a reload never overwrites
+	// a change made after it started
+	private final AtomicLong clock = new AtomicLong();
+
+	// Jobs removed since the oldest reload in progress started
+	private final ConcurrentMap<Long, Long> removedAt = new ConcurrentHashMap<>();
+
+	private volatile boolean required;
+
+	private volatile boolean loaded;
+
+	// Only the reloads use these, one at a time
+	private long lastSeenJobId;
+
+	private long lastFullReload;
+
+	@Autowired
+	public ActiveJobIndex(JobQueueInfoQueryService jobQueueInfoQueryService, JobEventLog jobEventLog,
+			MetricRegistry metricRegistry,
+			@Value("${cn3.jobs.index.page-size}") int pageSize,
+			@Value("${cn3.jobs.index.full-reload-interval}") long fullReloadInterval) {
+		this.jobQueueInfoQueryService = jobQueueInfoQueryService;
+		this.jobEventLog = jobEventLog;
+		this.pageSize = pageSize;
+		this.fullReloadInterval = fullReloadInterval;
+
+		metricRegistry.register("jobs.index.size", (Gauge<Integer>) jobs::size);
+	}
+
+	/**
+	 * Get the active job of the owner.
+	 *
+	 * @param ownerId
+	 * @param jobId
+	 * @return the job, or null if it's not in the index
+	 */
+	public JobInfoDTO get(Long ownerId, Long jobId) {
+		IndexedJob job = jobs.get(jobId);
+
+		return (job == null || !job.ownerId.equals(ownerId)) ? null : job.jobInfo;
+	}
+
+	/**
+	 * Get the job of the owner that is only in the write-ahead log so far.
+	 *
+	 * @param ownerId
+	 * @param jobId
+	 * @return the job, or null if it's not pending
+	 */
+	public JobInfoDTO getPending(Long ownerId, Long jobId) {
+		IndexedJob job = jobs.get(jobId);
+
+		return (job == null || !job.pending || !job.ownerId.equals(ownerId)) ? null : job.jobInfo;
+	}
+
+	/**
+	 * @return true once the active jobs have been loaded from the database
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Keep the index up to date from now on. It's first loaded with the next
+	 * reload, the jobs in it can't be trusted until then.
+	 *
+	 * @return true once the active jobs have been loaded from the database
+	 */
+	public boolean require() {
+		required = true;
+		return loaded;
+	}
+
+	/**
+	 * Get all the active jobs of the owner.
+	 *
+	 * @param ownerId
+	 * @return ordered by id
+	 */
+	public List<JobInfoDTO> findByOwner(Long ownerId) {
+		return findByOwner(ownerId, job -> true);
+	}
+
+	/**
+	 * Get the jobs of the owner that are only in the write-ahead log so far.
+	 *
+	 * @param ownerId
+	 * @return ordered by id
+	 */
+	public List<JobInfoDTO> findPendingByOwner(Long ownerId) {
+		return findByOwner(ownerId, job -> job.pending);
+	}
+
+	private List<JobInfoDTO> findByOwner(Long ownerId, Predicate<IndexedJob> filter) {
+		Set<Long> jobIds = jobIdsByOwner.getOrDefault(ownerId, new HashSet<>());
+
+		return jobIds.stream()
+				.map(jobs::get)
+				.filter(job -> job != null && job.ownerId.equals(ownerId) && filter.test(job))
+				.map(job -> job.jobInfo)
+				.sorted(Comparator.comparing(JobInfoDTO::getId))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Visit all the active jobs.
+	 *
+	 * @param action called with the owner id and the job
+	 */
+	public void forEach(BiConsumer<Long, JobInfoDTO> action) {
+		jobs.values().forEach(job -> action.accept(job.ownerId, job.jobInfo));
+	}
+
+	/**
+	 * Add or update a job. Jobs that have finished or failed are removed.
+	 *
+	 * @param ownerId
+	 * @param jobInfo
+	 */
+	public void put(Long ownerId, JobInfoDTO jobInfo) {
+		put(ownerId, jobInfo, false);
+	}
+
+	/**
+	 * Add a job that is only in the write-ahead log so far. It's kept in the
+	 * index until {@link #persisted(Collection)} is called, whatever the
+	 * database says.
+	 *
+	 * @param ownerId
+	 * @param jobInfo
+	 */
+	public void putPending(Long ownerId, JobInfoDTO jobInfo) {
+		put(ownerId, jobInfo, true);
+	}
+
+	private void put(Long ownerId, JobInfoDTO jobInfo, boolean pending) {
+		if (JobStatus.isTerminal(jobInfo.getStatus())) {
+			removeJob(jobInfo.getId());
+			jobEventLog.statusChanged(ownerId, jobInfo);
+			return;
+		}
+
+		IndexedJob previous = jobs.put(jobInfo.getId(), new IndexedJob(ownerId, jobInfo, pending, clock.incrementAndGet()));
+		jobIdsByOwner.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(jobInfo.getId());
+		if (previous == null && jobInfo.getStatus() == JobStatus.QUEUED) {
+			jobEventLog.created(ownerId, jobInfo);
+		} else if (previous == null || previous.jobInfo.getStatus() != jobInfo.getStatus()) {
+			jobEventLog.statusChanged(ownerId, jobInfo);
+		}
+	}
+
+	/**
+	 * The pending jobs are now in the database.
+	 *
+	 * @param jobIds
+	 */
+	public void persisted(Collection<Long> jobIds) {
+		jobIds.forEach(jobId -> jobs.computeIfPresent(jobId,
+				(id, job) -> job.pending ? new IndexedJob(job.ownerId, job.jobInfo, false, job.stamp) : job));
+	}
+
+	public boolean isPending(Long jobId) {
+		IndexedJob job = jobs.get(jobId);
+
+		return job != null && job.pending;
+	}
+
+	/**
+	 * The job has been cancelled.
+	 *
+	 * @param ownerId
+	 * @param jobId
+	 */
+	public void remove(Long ownerId, Long jobId) {
+		removeJob(jobId);
+		jobEventLog.cancelled(ownerId, jobId);
+	}
+
+	private void removeJob(Long jobId) {
+		IndexedJob job = jobs.remove(jobId);
+		removedAt.put(jobId, clock.incrementAndGet());
+		if (job != null) {
+			removeFromOwner(job.ownerId, jobId);
+		}
+	}
+
+	private void removeFromOwner(Long ownerId, Long jobId) {
+		jobIdsByOwner.computeIfPresent(ownerId, (id, jobIds) -> {
+			jobIds.remove(jobId);
+			return jobIds.isEmpty() ? null : jobIds;
+		});
+	}
+
+	/**
+	 * Reload the active jobs from the database, once the index is required.
+	 */
+	@Scheduled(initialDelay = 0, fixedDelayString = "${cn3.jobs.index.refresh-interval}")
+	public void refresh() {
+		if (!required) {
+			return;
+		}
+
+		long startedAt = clock.incrementAndGet();
+		long now = System.currentTimeMillis();
+		boolean full = !loaded || now - lastFullReload >= fullReloadInterval;
+		// The jobs that are looked up again, all of them on a full reload
+		Set<Long> knownJobIds = null;
+		// The known jobs that finished or failed since, null on a full reload
+		Map<Long, JobInfoDTO> endedJobs = null;
+		Map<Long, List<JobInfoDTO>> activeJobs = new HashMap<>();
+		long seenJobId;
+		try {
+			long maxJobId = jobQueueInfoQueryService.findMaxJobId();
+			if (!full) {
+				knownJobIds = jobs.entrySet().stream()
+						.filter(entry -> !entry.getValue().pending)
+						.map(Map.Entry::getKey)
+						.collect(Collectors.toSet());
+				endedJobs = new HashMap<>();
+				for (List<Long> page : pages(new ArrayList<>(knownJobIds))) {
+					readJobs(page, activeJobs, endedJobs);
+				}
+			}
+			seenJobId = Math.max(maxJobId, readActiveJobs(full ? 0 : lastSeenJobId, activeJobs));
+		} catch (RuntimeException ex) {
+			LOGGER.error("Failed to reload the active jobs", ex);
+			return;
+		}
+		lastSeenJobId = seenJobId;
+		if (full) {
+			lastFullReload = now;
+		}
+
+		// Only the changes made since the first load are events
+		boolean reload = loaded;
+		List<IndexedJob> created = new ArrayList<>();
+		List<IndexedJob> changed = new ArrayList<>();
+		Set<Long> activeJobIds = new HashSet<>();
+		activeJobs.forEach((ownerId, jobInfos) -> jobInfos.forEach(jobInfo -> {
+			activeJobIds.add(jobInfo.getId());
+			Long removed = removedAt.get(jobInfo.getId());
+			if (removed != null && removed > startedAt) {
+				return;
+			}
+			jobs.compute(jobInfo.getId(), (id, job) -> {
+				if (job != null && job.stamp > startedAt) {
+					return job;
+				}
+				IndexedJob reloaded = new IndexedJob(ownerId, jobInfo, false, startedAt);
+				if (job == null) {
+					created.add(reloaded);
+				} else if (job.jobInfo.getStatus() != jobInfo.getStatus()) {
+					changed.add(reloaded);
+				}
+				return reloaded;
+			});
+			jobIdsByOwner.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(jobInfo.getId());
+		}));
+
+		// Finished, failed or deleted since the last reload
+		Set<Long> checkedJobIds = knownJobIds;
+		List<IndexedJob> left = new ArrayList<>();
+		jobs.forEach((jobId, job) -> {
+			if (!job.pending && job.stamp <= startedAt && (checkedJobIds == null || checkedJobIds.contains(jobId))
+					&& !activeJobIds.contains(jobId) && jobs.remove(jobId, job)) {
+				removeFromOwner(job.ownerId, jobId);
+				left.add(job);
+			}
+		});
+
+		removedAt.values().removeIf(removed -> removed <= startedAt);
+		loaded = true;
+
+		if (reload) {
+			created.forEach(job -> jobEventLog.created(job.ownerId, job.jobInfo));
+			changed.forEach(job -> jobEventLog.statusChanged(job.ownerId, job.jobInfo));
+			logLeft(left, endedJobs);
+		}
+	}
+
+	// Page by page by id, returns the last id read
+	private long readActiveJobs(long afterJobId, Map<Long, List<JobInfoDTO>> activeJobs) {
+		List<Long> jobIds;
+		do {
+			jobIds = jobQueueInfoQueryService.findActiveJobIds(afterJobId, pageSize);
+			if (!jobIds.isEmpty()) {
+				readJobs(jobIds, activeJobs, null);
+				afterJobId = jobIds.get(jobIds.size() - 1);
+			}
+		} while (jobIds.size() == pageSize);
+
+		return afterJobId;
+	}
+
+	// The jobs that ended in the meantime go to endedJobs, if given
+	private void readJobs(List<Long> jobIds, Map<Long, List<JobInfoDTO>> activeJobs,
+			Map<Long, JobInfoDTO> endedJobs) {
+		jobQueueInfoQueryService.findOwnerJobInfosByIds(jobIds).forEach((ownerId, jobInfos) -> jobInfos.forEach(jobInfo -> {
+			if (!JobStatus.isTerminal(jobInfo.getStatus())) {
+				activeJobs.computeIfAbsent(ownerId, id -> new ArrayList<>()).add(jobInfo);
+			} else if (endedJobs != null) {
+				endedJobs.put(jobInfo.getId(), jobInfo);
+			}
+		}));
+	}
+
+	private List<List<Long>> pages(List<Long> jobIds) {
+		List<List<Long>> pages = new ArrayList<>();
+		for (int from = 0; from < jobIds.size(); from += pageSize) {
+			pages.add(jobIds.subList(from, Math.min(from + pageSize, jobIds.size())));
+		}
+
+		return pages;
+	}
+
+	// The ended jobs are read here unless they're given
+	private void logLeft(List<IndexedJob> left, Map<Long, JobInfoDTO> endedJobs) {
+		if (left.isEmpty()) {
+			return;
+		}
+
+		if (endedJobs == null) {
+			try {
+				endedJobs = jobQueueInfoQueryService
+						.findJobInfosByIds(left.stream().map(job -> job.jobInfo.getId()).collect(Collectors.toList()))
+						.stream().collect(Collectors.toMap(JobInfoDTO::getId, Function.identity(), (first, second) -> first));
+			} catch (RuntimeException ex) {
+				LOGGER.error("Failed to read the jobs that are no longer active", ex);
+				return;
+			}
+		}
+
+		Map<Long, JobInfoDTO> ended = endedJobs;
+		left.forEach(job -> {
+			JobInfoDTO endedJob = ended.get(job.jobInfo.getId());
+			if (endedJob == null) {
+				jobEventLog.cancelled(job.ownerId, job.jobInfo.getId());
+			} else if (JobStatus.isTerminal(endedJob.getStatus())) {
+				jobEventLog.statusChanged(job.ownerId, endedJob);
+			}
+		});
+	}
+
+	private static final class IndexedJob {
+
+		private final Long ownerId;
+
+		private final JobInfoDTO jobInfo;
+
+		private final boolean pending;
+
+		private final long stamp;
+
+		private IndexedJob(Long ownerId, JobInfoDTO jobInfo, boolean pending, long stamp) {
+			this.ownerId = ownerId;
+			this.jobInfo = jobInfo;
+			this.pending = pending;
+			this.stamp = stamp;
+		}
+
+	}
+
+}
@@ -0,0 +1,365 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobQueueStatsDTO;
+import edu.pitt.sis.cn3.rest.api.dto.OwnerQueueStatsDTO;
+import edu.pitt.sis.cn3.rest.api.exception.InvalidRequestException;
+
+/**
+ * Dispatch order of the queued jobs, weighted fair queuing across the owners
+ * so that one owner with thousands of queued jobs doesn't starve the others.
+ *
+ * Every owner with queued jobs has its own queue, highest priority first and
+ * then oldest first. The owners are ordered by the virtual finish time of
+ * their next job, which grows by 1 / 2^priority for every job dispatched, so
+ * each owner gets a share of the dispatches weighted by the priority of its
+ * next job. An owner that has been idle starts over from the current virtual
+ * time rather than from the credit it didn't use.
+ *
+ * The priority isn't stored in the database, the queued jobs that are only
+ * found there (submitted before a restart or through another instance) get
+ * cn3.jobs.priority.default. They're picked up from the
+ * {@link ActiveJobIndex}, which also drops the jobs the workers have taken
+ * directly from the database.
+ *
+ * Oct 23, 2026 9:36:12 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class FairJobScheduler {
+
+	private final ActiveJobIndex activeJobIndex;
+
+	private final int levels;
+
+	private final int defaultPriority;
+
+	private final int userMaxPriority;
+
+	// Queued jobs by id
+	private final Map<Long, QueuedJob> jobs = new HashMap<>();
+
+	// Jobs taken by poll() and not yet dispatched or requeued
+	private final Map<Long, QueuedJob> inFlight = new HashMap<>();
+
+	// Owners with queued jobs
+	private final Map<Long, OwnerQueue> owners = new HashMap<>();
+
+	// The same owners, by the virtual finish time of their next job
+	private final TreeSet<OwnerQueue> schedule = new TreeSet<>(
+			Comparator.comparingDouble((OwnerQueue owner) -> owner.finish).thenComparing(owner -> owner.ownerId));
+
+	private final int[] depth;
+
+	private double virtualTime;
+
+	private final Timer waitTime;
+
+	@Autowired
+	public FairJobScheduler(ActiveJobIndex activeJobIndex, MetricRegistry metricRegistry,
+			@Value("${cn3.jobs.priority.levels}") int levels,
+			@Value("${cn3.jobs.priority.default}") int defaultPriority,
+			@Value("${cn3.jobs.priority.user-max}") int userMaxPriority) {
+		if (levels < 1 || levels > 16) {
+			throw new IllegalArgumentException("cn3.jobs.priority.levels must be between 1 and 16.");
+		}
+		this.activeJobIndex = activeJobIndex;
+		this.levels = levels;
+		this.defaultPriority = Math.max(0, Math.min(defaultPriority, levels - 1));
+		this.userMaxPriority = Math.max(this.defaultPriority, Math.min(userMaxPriority, levels - 1));
+		this.depth = new int[levels];
+
+		for (int priority = 0; priority < levels; priority++) {
+			int level = priority;
+			metricRegistry.register("jobs.queue.depth.p" + level, (Gauge<Integer>) () -> depth(level));
+		}
+		metricRegistry.register("jobs.queue.depth", (Gauge<Integer>) this::size);
+		metricRegistry.register("jobs.queue.owners", (Gauge<Integer>) this::ownerCount);
+		this.waitTime = metricRegistry.timer("jobs.queue.wait");
+	}
+
+	/**
+	 * The priority to give a submitted job, the admins may use all the levels
+	 * and the users only up to cn3.jobs.priority.user-max.
+	 *
+	 * @param requested may be null
+	 * @param admin
+	 * @return
+	 */
+	public int resolvePriority(Integer requested, boolean admin) {
+		if (requested == null) {
+			return defaultPriority;
+		}
+
+		int maxPriority = admin ? levels - 1 : userMaxPriority;
+		if (requested < 0 || requested > maxPriority) {
+			throw new InvalidRequestException(String.format("The priority must be between 0 and %d.", maxPriority));
+		}
+
+		return requested;
+	}
+
+	/**
+	 * Queue a submitted job.
+	 *
+	 * @param ownerId
+	 * @param jobInfo
+	 * @param priority
+	 */
+	public synchronized void enqueue(Long ownerId, JobInfoDTO jobInfo, int priority) {
+		if (jobInfo.getStatus() != JobStatus.QUEUED
+				|| jobs.containsKey(jobInfo.getId()) || inFlight.containsKey(jobInfo.getId())) {
+			return;
+		}
+		add(new QueuedJob(ownerId, jobInfo, priority));
+	}
+
+	/**
+	 * Take the next jobs to dispatch. Each one must be passed back to either
+	 * {@link #dispatched(QueuedJob)} or {@link #requeue(QueuedJob)}.
+	 *
+	 * @param limit
+	 * @return in dispatch order
+	 */
+	public synchronized List<QueuedJob> poll(int limit) {
+		List<QueuedJob> polled = new ArrayList<>(Math.min(limit, jobs.size()));
+		while (polled.size() < limit && !schedule.isEmpty()) {
+			OwnerQueue owner = schedule.pollFirst();
+			QueuedJob job = owner.jobs.poll();
+			jobs.remove(job.getJobId());
+			depth[job.priority]--;
+
+			virtualTime = owner.finish;
+			owner.lastFinish = owner.finish;
+			if (owner.jobs.isEmpty()) {
+				owners.remove(owner.ownerId);
+			} else {
+				// Still backlogged, the next job starts where this one finished
+				owner.start = owner.lastFinish;
+				reschedule(owner);
+			}
+
+			inFlight.put(job.getJobId(), job);
+			polled.add(job);
+		}
+
+		return polled;
+	}
+
+	/**
+	 * The job has been handed to a worker.
+	 *
+	 * @param job
+	 */
+	public synchronized void dispatched(QueuedJob job) {
+		if (inFlight.remove(job.getJobId()) != null) {
+			waitTime.update(System.currentTimeMillis() - job.jobInfo.getAddedTime().getTime(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * The job couldn't be dispatched, put it back in the queue of its owner.
+	 *
+	 * @param job
+	 */
+	public synchronized void requeue(QueuedJob job) {
+		if (inFlight.remove(job.getJobId()) != null) {
+			add(job);
+		}
+	}
+
+	/**
+	 * The job has been cancelled, or has been taken from the database.
+	 *
+	 * @param jobId
+	 */
+	public synchronized void remove(Long jobId) {
+		inFlight.remove(jobId);
+		QueuedJob job = jobs.remove(jobId);
+		if (job == null) {
+			return;
+		}
+		depth[job.priority]--;
+
+		OwnerQueue owner = owners.get(job.ownerId);
+		QueuedJob head = owner.jobs.peek();
+		owner.jobs.remove(job);
+		if (owner.jobs.isEmpty()) {
+			schedule.remove(owner);
+			owners.remove(owner.ownerId);
+		} else if (head == job) {
+			schedule.remove(owner);
+			reschedule(owner);
+		}
+	}
+
+	private void add(QueuedJob job) {
+		OwnerQueue owner = owners.computeIfAbsent(job.ownerId, OwnerQueue::new);
+		QueuedJob head = owner.jobs.peek();
+		owner.jobs.add(job);
+		jobs.put(job.getJobId(), job);
+		depth[job.priority]++;
+		if (head == null) {
+			// Back from idle, without the credit it didn't use
+			owner.start = Math.max(virtualTime, owner.lastFinish);
+			reschedule(owner);
+		} else if (owner.jobs.peek() != head) {
+			// A backlogged owner keeps its start, only the cost of the next
+			// job changes
+			schedule.remove(owner);
+			reschedule(owner);
+		}
+	}
+
+	// The owner must not be in the schedule
+	private void reschedule(OwnerQueue owner) {
+		owner.finish = owner.start + 1.0 / (1 << owner.jobs.peek().priority);
+		schedule.add(owner);
+	}
+
+	/**
+	 * Bring the queue in line with the active job index, at the rate the index
+	 * is reloaded.
+	 */
+	@Scheduled(fixedDelayString = "${cn3.jobs.index.refresh-interval}")
+	public void synchronize() {
+		if (!activeJobIndex.isLoaded()) {
+			return;
+		}
+
+		List<QueuedJob> queued = new ArrayList<>();
+		activeJobIndex.forEach((ownerId, jobInfo) -> {
+			if (jobInfo.getStatus() == JobStatus.QUEUED) {
+				queued.add(new QueuedJob(ownerId, jobInfo, defaultPriority));
+			}
+		});
+
+		synchronized (this) {
+			for (QueuedJob job : queued) {
+				if (!jobs.containsKey(job.getJobId()) && !inFlight.containsKey(job.getJobId()) && isQueued(job)) {
+					add(job);
+				}
+			}
+			new ArrayList<>(jobs.values()).stream()
+					.filter(job -> !isQueued(job))
+					.forEach(job -> remove(job.getJobId()));
+		}
+	}
+
+	private boolean isQueued(QueuedJob job) {
+		JobInfoDTO jobInfo = activeJobIndex.get(job.ownerId, job.getJobId());
+
+		return jobInfo != null && jobInfo.getStatus() == JobStatus.QUEUED;
+	}
+
+	/**
+	 * @param limit most owners to report, the ones waiting the longest first
+	 * @return
+	 */
+	public synchronized JobQueueStatsDTO stats(int limit) {
+		long now = System.currentTimeMillis();
+		List<OwnerQueueStatsDTO> ownerStats = new ArrayList<>(owners.size());
+		owners.values().forEach(owner -> {
+			long oldest = owner.jobs.stream()
+					.mapToLong(job -> job.jobInfo.getAddedTime().getTime())
+					.min().orElse(now);
+			ownerStats.add(new OwnerQueueStatsDTO(owner.ownerId, owner.jobs.size(), owner.jobs.peek().priority,
+					now - oldest));
+		});
+		ownerStats.sort(Comparator.comparingLong(OwnerQueueStatsDTO::getLongestWait).reversed());
+
+		List<Integer> depthByPriority = new ArrayList<>(levels);
+		for (int count : depth) {
+			depthByPriority.add(count);
+		}
+
+		return new JobQueueStatsDTO(jobs.size(), inFlight.size(), depthByPriority,
+				ownerStats.subList(0, Math.min(limit, ownerStats.size())));
+	}
+
+	public synchronized int size() {
+		return jobs.size();
+	}
+
+	private synchronized int depth(int priority) {
+		return depth[priority];
+	}
+
+	private synchronized int ownerCount() {
+		return owners.size();
+	}
+
+	public static final class QueuedJob {
+
+		private final Long ownerId;
+
+		private final JobInfoDTO jobInfo;
+
+		private final int priority;
+
+		QueuedJob(Long ownerId, JobInfoDTO jobInfo, int priority) {
+			this.ownerId = ownerId;
+			this.jobInfo = jobInfo;
+			this.priority = priority;
+		}
+
+		public Long getJobId() {
+			return jobInfo.getId();
+		}
+
+		public Long getOwnerId() {
+			return ownerId;
+		}
+
+		public JobInfoDTO getJobInfo() {
+			return jobInfo;
+		}
+
+		public int getPriority() {
+			return priority;
+		}
+
+	}
+
+	private static final class OwnerQueue {
+
+		private final Long ownerId;
+
+		// Highest priority first, then oldest first
+		private final PriorityQueue<QueuedJob> jobs = new PriorityQueue<>(
+				Comparator.comparingInt((QueuedJob job) -> -job.priority).thenComparing(QueuedJob::getJobId));
+
+		private double lastFinish;
+
+		// Virtual start time of the next job
+		private double start;
+
+		private double finish;
+
+		private OwnerQueue(Long ownerId) {
+			this.ownerId = ownerId;
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import edu.pitt.sis.cn3.rest.api.dto.JobChangesDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobEventDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.exception.ChangesExpiredException;
+
+/**
+ * Append-only log of the job lifecycle transitions (created, status changed,
+ * cancelled), numbered with one sequence across all the owners and kept by
+ * owner, so a client can ask for what changed since the last sequence it
+ * saw.
+ *
+ * The log is compacted at a fixed interval: past
+ * cn3.jobs.events.compact-after seconds only the latest event of each job is
+ * kept, which is all a client mirroring the jobs needs, and past
+ * cn3.jobs.events.retention seconds the events are dropped. Each owner keeps
+ * at most cn3.jobs.events.max-per-owner events. A client asking for changes
+ * since a sequence that has been dropped has to list the jobs again.
+ *
+ * The log is in memory, the sequence starts from the startup time so the
+ * sequences of an earlier run are always too old.
+ *
+ * Oct 24, 2026 2:17:40 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class JobEventLog {
+
+	public static final String CREATED = "created";
+
+	public static final String STATUS = "status";
+
+	public static final String CANCELLED = "cancelled";
+
+	private final long retention;
+
+	private final long compactAfter;
+
+	private final int maxPerOwner;
+
+	private final AtomicLong sequence;
+
+	// Events up to this sequence may have been dropped from any owner
+	private final AtomicLong floor;
+
+	private final ConcurrentMap<Long, OwnerLog> owners = new ConcurrentHashMap<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	@Autowired
+	public JobEventLog(MetricRegistry metricRegistry,
+			@Value("${cn3.jobs.events.retention}") long retention,
+			@Value("${cn3.jobs.events.compact-after}") long compactAfter,
+			@Value("${cn3.jobs.events.max-per-owner}") int maxPerOwner) {
+		this.retention = TimeUnit.SECONDS.toMillis(retention);
+		this.compactAfter = TimeUnit.SECONDS.toMillis(compactAfter);
+		this.maxPerOwner = maxPerOwner;
+
+		long start = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+		this.sequence = new AtomicLong(start);
+		this.floor = new AtomicLong(start);
+
+		metricRegistry.register("jobs.events.size", (Gauge<Integer>) size::get);
+		metricRegistry.register("jobs.events.sequence", (Gauge<Long>) sequence::get);
+	}
+
+	public void created(Long ownerId, JobInfoDTO jobInfo) {
+		append(ownerId, CREATED, jobInfo);
+	}
+
+	public void statusChanged(Long ownerId, JobInfoDTO jobInfo) {
+		append(ownerId, STATUS, jobInfo);
+	}
+
+	public void cancelled(Long ownerId, Long jobId) {
+		JobInfoDTO jobInfo = new JobInfoDTO();
+		jobInfo.setId(jobId);
+		append(ownerId, CANCELLED, jobInfo);
+	}
+
+	private void append(Long ownerId, String type, JobInfoDTO jobInfo) {
+		while (true) {
+			OwnerLog log = owners.computeIfAbsent(ownerId, id -> new OwnerLog());
+			synchronized (log) {
+				// Dropped by the compaction in the meantime
+				if (log.dropped) {
+					continue;
+				}
+
+				// The sequence is taken under the lock, so the events of the
+				// owner are always added in order
+				long seq = sequence.incrementAndGet();
+				log.events.put(seq, new JobEventDTO(seq, type, System.currentTimeMillis(), jobInfo));
+				size.incrementAndGet();
+				if (log.events.size() > maxPerOwner) {
+					log.floor = log.events.pollFirstEntry().getKey();
+					size.decrementAndGet();
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Version of the jobs of the owner, it changes with every event of the
+	 * owner.
+	 *
+	 * @param ownerId
+	 * @return the sequence of the latest event of the owner that can still be
+	 * told apart
+	 */
+	public long version(Long ownerId) {
+		OwnerLog log = owners.get(ownerId);
+		if (log != null) {
+			synchronized (log) {
+				if (!log.dropped && !log.events.isEmpty()) {
+					return log.events.lastKey();
+				}
+			}
+		}
+		// All the events of the owner are at or below the floor
+		return floor.get();
+	}
+
+	/**
+	 * Get the events of the owner after the given sequence.
+	 *
+	 * @param ownerId
+	 * @param since the last sequence the client has seen, or null to only get
+	 * the current sequence
+	 * @param limit
+	 * @return
+	 */
+	public JobChangesDTO changesSince(Long ownerId, Long since, int limit) {
+		OwnerLog log = owners.get(ownerId);
+		if (log == null) {
+			long next = sequence.get();
+			if (since != null && since < floor.get()) {
+				throw new ChangesExpiredException(since);
+			}
+			return new JobChangesDTO(new ArrayList<>(), next, false);
+		}
+
+		synchronized (log) {
+			// Nothing of the owner can be added past this sequence while the
+			// lock is held
+			long next = sequence.get();
+			if (since == null) {
+				return new JobChangesDTO(new ArrayList<>(), next, false);
+			}
+			if (since < Math.max(floor.get(), log.floor)) {
+				throw new ChangesExpiredException(since);
+			}
+
+			List<JobEventDTO> events = new ArrayList<>();
+			for (JobEventDTO event : log.events.tailMap(since, false).values()) {
+				if (events.size() == limit) {
+					return new JobChangesDTO(events, events.get(events.size() - 1).getSeq(), true);
+				}
+				events.add(event);
+			}
+			return new JobChangesDTO(events, next, false);
+		}
+	}
+
+	/**
+	 * Keep only the latest event of each job past cn3.jobs.events.compact-after,
+	 * and drop the events past cn3.jobs.events.retention.
+	 */
+	@Scheduled(fixedDelayString = "${cn3.jobs.events.compaction-interval}")
+	public void compact() {
+		long now = System.currentTimeMillis();
+		owners.forEach((ownerId, log) -> {
+			synchronized (log) {
+				compact(log, now);
+				if (log.events.isEmpty()) {
+					log.dropped = true;
+					owners.remove(ownerId, log);
+				}
+			}
+		});
+	}
+
+	private void compact(OwnerLog log, long now) {
+		Map<Long, Long> latestByJob = new HashMap<>();
+		log.events.values().forEach(event -> latestByJob.put(event.getJob().getId(), event.getSeq()));
+
+		Iterator<JobEventDTO> events = log.events.values().iterator();
+		while (events.hasNext()) {
+			JobEventDTO event = events.next();
+			long age = now - event.getTime();
+			if (age < compactAfter) {
+				break;
+			}
+			if (age >= retention) {
+				events.remove();
+				size.decrementAndGet();
+				floor.accumulateAndGet(event.getSeq(), Math::max);
+			} else if (latestByJob.get(event.getJob().getId()) != event.getSeq()) {
+				// Superseded by a later event of the same job
+				events.remove();
+				size.decrementAndGet();
+			}
+		}
+	}
+
+	private static final class OwnerLog {
+
+		private final NavigableMap<Long, JobEventDTO> events = new TreeMap<>();
+
+		// Events up to this sequence have been dropped to stay within the limit
+		private long floor;
+
+		private boolean dropped;
+
+	}
+
+}
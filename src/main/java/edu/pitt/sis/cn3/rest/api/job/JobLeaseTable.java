@@ -0,0 +1,261 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.job.FairJobScheduler.QueuedJob;
+
+/**
+ * Claim table of the jobs the workers are running, by job id.
+ *
+ * A job can only be claimed once it has been taken off the
+ * {@link FairJobScheduler}, so no two workers ever try to lock the same rows
+ * and the claims don't contend in the database. A lease is only good until
+ * it expires, unless the worker renews it with a heartbeat.
+ *
+ * The leases are read from memory, and written through to the job_lease
+ * table, which this class creates. The claimed jobs are running in the
+ * database, so the leases are loaded back at startup and the ones that
+ * expired while the API was down are swept like the others. A row left
+ * behind for a job that is no longer running is harmless, the status
+ * changes are conditional on the running status.
+ *
+ * Oct 23, 2026 2:18:55 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class JobLeaseTable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JobLeaseTable.class);
+
+	private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS job_lease ("
+			+ "job_id BIGINT NOT NULL PRIMARY KEY, lease_id VARCHAR(36) NOT NULL, worker_id VARCHAR(255), "
+			+ "owner_id BIGINT NOT NULL, target_user_id BIGINT NOT NULL, added_time BIGINT NOT NULL, "
+			+ "priority INT NOT NULL, expires_at BIGINT NOT NULL)";
+
+	private static final String SELECT_SQL = "SELECT job_id, lease_id, worker_id, owner_id, target_user_id, "
+			+ "added_time, priority, expires_at FROM job_lease";
+
+	private static final String INSERT_SQL = "INSERT INTO job_lease (job_id, lease_id, worker_id, owner_id, "
+			+ "target_user_id, added_time, priority, expires_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String RENEW_SQL = "UPDATE job_lease SET expires_at = ? WHERE job_id = ? AND lease_id = ?";
+
+	private static final String DELETE_SQL = "DELETE FROM job_lease WHERE job_id = ? AND lease_id = ?";
+
+	private static final String DELETE_JOB_SQL = "DELETE FROM job_lease WHERE job_id = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ConcurrentMap<Long, Lease> leases = new ConcurrentHashMap<>();
+
+	@Autowired
+	public JobLeaseTable(JdbcTemplate jdbcTemplate, MetricRegistry metricRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+
+		metricRegistry.register("jobs.lease.active", (Gauge<Integer>) leases::size);
+	}
+
+	/**
+	 * Load the leases of the previous run.
+	 */
+	@PostConstruct
+	public void load() {
+		jdbcTemplate.execute(CREATE_TABLE_SQL);
+		jdbcTemplate.query(SELECT_SQL, rs -> {
+			JobInfoDTO jobInfo = new JobInfoDTO(rs.getLong("job_id"), rs.getLong("target_user_id"), JobStatus.RUNNING,
+					new Date(rs.getLong("added_time")));
+			QueuedJob job = new QueuedJob(rs.getLong("owner_id"), jobInfo, rs.getInt("priority"));
+			leases.put(jobInfo.getId(),
+					new Lease(rs.getString("lease_id"), rs.getString("worker_id"), job, rs.getLong("expires_at")));
+		});
+
+		if (!leases.isEmpty()) {
+			LOGGER.info(String.format("Loaded %d job leases", leases.size()));
+		}
+	}
+
+	/**
+	 * Lease jobs that have just been dispatched, within the transaction that
+	 * marks them as running.
+	 *
+	 * @param jobs
+	 * @param workerId may be null
+	 * @param duration in milliseconds
+	 * @return in the same order
+	 */
+	public List<Lease> grant(List<QueuedJob> jobs, String workerId, long duration) {
+		if (jobs.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		long expiresAt = System.currentTimeMillis() + duration;
+		List<Lease> granted = new ArrayList<>(jobs.size());
+		for (QueuedJob job : jobs) {
+			granted.add(new Lease(UUID.randomUUID().toString(), workerId, job, expiresAt));
+		}
+
+		jdbcTemplate.batchUpdate(DELETE_JOB_SQL, granted, granted.size(),
+				(ps, lease) -> ps.setLong(1, lease.job.getJobId()));
+		jdbcTemplate.batchUpdate(INSERT_SQL, granted, granted.size(), (ps, lease) -> {
+			JobInfoDTO jobInfo = lease.job.getJobInfo();
+			ps.setLong(1, jobInfo.getId());
+			ps.setString(2, lease.leaseId);
+			ps.setString(3, lease.workerId);
+			ps.setLong(4, lease.job.getOwnerId());
+			ps.setLong(5, jobInfo.getTargetUserId());
+			ps.setLong(6, jobInfo.getAddedTime().getTime());
+			ps.setInt(7, lease.job.getPriority());
+			ps.setLong(8, lease.expiresAt);
+		});
+		granted.forEach(lease -> leases.put(lease.job.getJobId(), lease));
+
+		return granted;
+	}
+
+	/**
+	 * Extend the lease, as long as it hasn't expired.
+	 *
+	 * @param jobId
+	 * @param leaseId
+	 * @param duration in milliseconds
+	 * @return the renewed lease, or null if it has expired or is not held
+	 */
+	public Lease renew(Long jobId, String leaseId, long duration) {
+		long now = System.currentTimeMillis();
+		Lease[] renewed = new Lease[1];
+		leases.computeIfPresent(jobId, (id, lease) -> {
+			if (!lease.isHeld(leaseId, now)) {
+				return lease;
+			}
+			renewed[0] = new Lease(lease.leaseId, lease.workerId, lease.job, now + duration);
+			return renewed[0];
+		});
+
+		if (renewed[0] != null) {
+			jdbcTemplate.update(RENEW_SQL, renewed[0].expiresAt, jobId, leaseId);
+		}
+		return renewed[0];
+	}
+
+	/**
+	 * @param jobId
+	 * @param leaseId
+	 * @return the lease, or null if it has expired or is not held
+	 */
+	public Lease get(Long jobId, String leaseId) {
+		Lease lease = leases.get(jobId);
+
+		return (lease != null && lease.isHeld(leaseId, System.currentTimeMillis())) ? lease : null;
+	}
+
+	/**
+	 * Drop the lease once the job is done with.
+	 *
+	 * @param jobId
+	 * @param leaseId
+	 */
+	public void release(Long jobId, String leaseId) {
+		leases.computeIfPresent(jobId, (id, lease) -> lease.leaseId.equals(leaseId) ? null : lease);
+		jdbcTemplate.update(DELETE_SQL, jobId, leaseId);
+	}
+
+	/**
+	 * Take out the expired leases, they have to be either
+	 * {@link #released(Collection) released} or {@link #restore(Collection)
+	 * restored}.
+	 *
+	 * @return
+	 */
+	public List<Lease> expire() {
+		long now = System.currentTimeMillis();
+		List<Lease> expired = new ArrayList<>();
+		leases.forEach((jobId, lease) -> {
+			if (lease.expiresAt <= now && leases.remove(jobId, lease)) {
+				expired.add(lease);
+			}
+		});
+
+		return expired;
+	}
+
+	/**
+	 * The expired leases are done with.
+	 *
+	 * @param expired
+	 */
+	public void released(Collection<Lease> expired) {
+		jdbcTemplate.batchUpdate(DELETE_SQL, expired, expired.size(), (ps, lease) -> {
+			ps.setLong(1, lease.job.getJobId());
+			ps.setString(2, lease.leaseId);
+		});
+	}
+
+	/**
+	 * Put the expired leases back, to be swept again.
+	 *
+	 * @param expired
+	 */
+	public void restore(Collection<Lease> expired) {
+		expired.forEach(lease -> leases.putIfAbsent(lease.job.getJobId(), lease));
+	}
+
+	public static final class Lease {
+
+		private final String leaseId;
+
+		private final String workerId;
+
+		private final QueuedJob job;
+
+		private final long expiresAt;
+
+		private Lease(String leaseId, String workerId, QueuedJob job, long expiresAt) {
+			this.leaseId = leaseId;
+			this.workerId = workerId;
+			this.job = job;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isHeld(String leaseId, long now) {
+			return this.leaseId.equals(leaseId) && expiresAt > now;
+		}
+
+		public String getLeaseId() {
+			return leaseId;
+		}
+
+		public String getWorkerId() {
+			return workerId;
+		}
+
+		public QueuedJob getJob() {
+			return job;
+		}
+
+		public long getExpiresAt() {
+			return expiresAt;
+		}
+
+	}
+
+}
@@ -0,0 +1,263 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+import javax.ws.rs.container.AsyncResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import edu.pitt.sis.cn3.rest.api.exception.ServiceUnavailableException;
+import edu.pitt.sis.cn3.rest.api.metrics.DatabaseTime;
+import edu.pitt.sis.cn3.rest.api.thread.VirtualThreads;
+import edu.pitt.sis.cn3.rest.api.trace.Span;
+import edu.pitt.sis.cn3.rest.api.trace.Trace;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
+
+/**
+ * Runs the database work of the job queue endpoints on a bounded thread pool
+ * of its own, so that a slow database ties up these threads and not the
+ * Jetty ones the other endpoints need.
+ *
+ * The request is suspended until the task resumes it. It's resumed with 503
+ * Service Unavailable when the queue is full or the task doesn't complete
+ * in time.
+ *
+ * With cn3.threads.virtual, each task runs on a virtual thread of its own
+ * instead, and only the number of tasks in flight is bounded.
+ *
+ * Either way, the tasks use at most the connections of the pool less
+ * cn3.jobs.executor.reserved-connections, which are left to the scheduled
+ * jobs and the authentication. The thread pool is capped at that many
+ * threads, and only that many virtual threads run at a time, the others
+ * wait for their turn here rather than for a connection in the pool.
+ *
+ * Oct 20, 2026 10:14:52 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class JobQueueExecutor {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JobQueueExecutor.class);
+
+	private static final long RETRY_AFTER_SECONDS = 1;
+
+	private static final String BUSY_MESSAGE = "The job queue is busy, please try again later.";
+
+	private final ExecutorService executor;
+
+	// Bounds the virtual threads, the thread pool has its own queue
+	private final Semaphore permits;
+
+	// The virtual threads that may hold a connection at the same time
+	private final Semaphore connections;
+
+	private final long timeout;
+
+	private final Timer waitTimer;
+
+	private final Timer executeTimer;
+
+	private final Meter rejected;
+
+	private final Meter timedOut;
+
+	@Autowired
+	public JobQueueExecutor(MetricRegistry metricRegistry,
+			@Value("${cn3.jobs.executor.threads}") int threads,
+			@Value("${cn3.jobs.executor.queue-size}") int queueSize,
+			@Value("${cn3.jobs.executor.timeout}") long timeout,
+			@Value("${cn3.threads.virtual}") boolean virtualThreads,
+			@Value("${cn3.jobs.executor.virtual.max-in-flight}") int maxInFlight,
+			@Value("${cn3.jobs.executor.reserved-connections}") int reservedConnections,
+			@Value("${spring.datasource.hikari.maximum-pool-size}") int poolSize) {
+		int maxConnections = poolSize - reservedConnections;
+		if (maxConnections < 1) {
+			throw new IllegalArgumentException(
+					"cn3.jobs.executor.reserved-connections must be below spring.datasource.hikari.maximum-pool-size.");
+		}
+
+		this.timeout = timeout;
+		if (virtualThreads && VirtualThreads.isSupported()) {
+			this.executor = VirtualThreads.newThreadPerTaskExecutor("job-queue-db-");
+			this.permits = new Semaphore(maxInFlight);
+			this.connections = new Semaphore(maxConnections, true);
+			LOGGER.info(String.format("Job queue tasks run on virtual threads, at most %d at a time and %d on the database",
+					maxInFlight, maxConnections));
+		} else {
+			if (virtualThreads) {
+				LOGGER.warn("Virtual threads require JDK 21 or later, job queue tasks run on the thread pool");
+			}
+			if (threads > maxConnections) {
+				LOGGER.warn(String.format("%d job queue threads but %d connections for them, using %d threads",
+						threads, maxConnections, maxConnections));
+				threads = maxConnections;
+			}
+			this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("job-queue-db-"),
+					new ThreadPoolExecutor.AbortPolicy());
+			this.permits = null;
+			this.connections = null;
+		}
+
+		this.waitTimer = metricRegistry.timer("jobs.executor.wait");
+		this.executeTimer = metricRegistry.timer("jobs.executor.execute");
+		this.rejected = metricRegistry.meter("jobs.executor.rejected");
+		this.timedOut = metricRegistry.meter("jobs.executor.timeouts");
+		if (permits == null) {
+			ThreadPoolExecutor threadPool = (ThreadPoolExecutor) executor;
+			metricRegistry.register("jobs.executor.queue", (Gauge<Integer>) () -> threadPool.getQueue().size());
+			metricRegistry.register("jobs.executor.active", (Gauge<Integer>) threadPool::getActiveCount);
+		} else {
+			metricRegistry.register("jobs.executor.active", (Gauge<Integer>) () -> maxInFlight - permits.availablePermits());
+		}
+	}
+
+	/**
+	 * Resume the request with whatever the task returns, or throws.
+	 *
+	 * @param asyncResponse
+	 * @param task
+	 */
+	public void supply(AsyncResponse asyncResponse, Callable<?> task) {
+		execute(asyncResponse, response -> {
+			// The JDBC calls of the task, read by the response filters when
+			// it resumes the request on this thread
+			DatabaseTime.start();
+			response.resume(task.call());
+		});
+	}
+
+	/**
+	 * Hand the suspended request to the task, which has to resume it. The
+	 * task may replace the timeout to keep the request suspended longer.
+	 *
+	 * @param asyncResponse
+	 * @param task
+	 */
+	public void execute(AsyncResponse asyncResponse, AsyncTask task) {
+		Timer.Context waitContext = waitTimer.time();
+		// The trace of the request goes on on the thread of the task
+		Trace trace = Tracer.current();
+		Span waitSpan = Tracer.span("jobQueue.wait");
+		// Whoever takes it first gives the permit back: the task once it's
+		// done, even if it was cancelled while running, or done() if the task
+		// never started
+		AtomicBoolean started = new AtomicBoolean();
+		FutureTask<Void> future = new FutureTask<Void>(() -> {
+			if (!started.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				if (connections != null) {
+					try {
+						connections.acquire();
+					} catch (InterruptedException e) {
+						// Timed out while waiting for a turn
+						return;
+					}
+				}
+				try {
+					run(asyncResponse, task, trace, waitContext, waitSpan);
+				} finally {
+					if (connections != null) {
+						connections.release();
+					}
+				}
+			} finally {
+				if (permits != null) {
+					permits.release();
+				}
+			}
+		}, null) {
+			// Run or cancelled, exactly once either way, but a cancelled task
+			// may still be running
+			@Override
+			protected void done() {
+				waitSpan.close();
+				if (permits != null && started.compareAndSet(false, true)) {
+					permits.release();
+				}
+			}
+		};
+
+		// Set before the task can start, the task may replace it
+		asyncResponse.setTimeoutHandler(response -> {
+			timedOut.mark();
+			future.cancel(true);
+			response.resume(new ServiceUnavailableException(BUSY_MESSAGE, RETRY_AFTER_SECONDS));
+		});
+		asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+
+		if (permits != null && !permits.tryAcquire()) {
+			reject(asyncResponse);
+			return;
+		}
+		try {
+			executor.execute(future);
+		} catch (RejectedExecutionException e) {
+			future.cancel(false);
+			reject(asyncResponse);
+		}
+	}
+
+	private void run(AsyncResponse asyncResponse, AsyncTask task, Trace trace, Timer.Context waitContext,
+			Span waitSpan) {
+		waitContext.stop();
+		waitSpan.close();
+		// Timed out or the client went away while queued
+		if (asyncResponse.isDone()) {
+			return;
+		}
+
+		Tracer.attach(trace);
+		try (Timer.Context context = executeTimer.time()) {
+			task.run(asyncResponse);
+		} catch (Throwable t) {
+			if (!asyncResponse.resume(t)) {
+				LOGGER.warn("Job queue task failed after the request was resumed", t);
+			}
+		} finally {
+			// Only meant for the response filters of this request
+			DatabaseTime.clear();
+			Tracer.detach();
+		}
+	}
+
+	private void reject(AsyncResponse asyncResponse) {
+		rejected.mark();
+		asyncResponse.resume(new ServiceUnavailableException(BUSY_MESSAGE, RETRY_AFTER_SECONDS));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@FunctionalInterface
+	public interface AsyncTask {
+
+		void run(AsyncResponse asyncResponse) throws Exception;
+
+	}
+
+}
@@ -0,0 +1,499 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import edu.pitt.sis.cn3.db.entity.JobQueueInfo;
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.exception.ServiceUnavailableException;
+import edu.pitt.sis.cn3.rest.api.job.JobWriteAheadLog.Entry;
+import edu.pitt.sis.cn3.rest.api.service.JobQueueInfoQueryService;
+
+/**
+ * Write-behind persistence of the submitted jobs (cn3.jobs.durability).
+ *
+ * <ul>
+ * <li>database: the jobs are committed to the database before the response,
+ * this class isn't used.</li>
+ * <li>wal: the jobs are acknowledged once they're in the memory-mapped
+ * write-ahead log, which survives a crash of the application but not of the
+ * machine.</li>
+ * <li>wal-fsync: same, once the log is on the storage device. Concurrent
+ * submissions share the same fsync.</li>
+ * </ul>
+ *
+ * A background thread inserts the logged jobs into the database in batches,
+ * with the job ids allocated here. Jobs still in the log at startup are
+ * inserted first. Since the ids are allocated by this process, only one API
+ * instance may run with a write-behind mode.
+ *
+ * The jobs have been acknowledged by then, so a job the database refuses
+ * (its owner or target user deleted in the meantime, or its id taken by
+ * another writer) is reported as cancelled to the watchers, the scheduler
+ * and the job event log, and counted in jobs.writer.dropped.
+ *
+ * Oct 21, 2026 2:26:08 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class JobQueueWriter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JobQueueWriter.class);
+
+	public static final String DATABASE = "database";
+
+	public static final String WAL = "wal";
+
+	public static final String WAL_FSYNC = "wal-fsync";
+
+	private static final long RETRY_AFTER_SECONDS = 1;
+
+	private static final long RETRY_DELAY = 1000;
+
+	// Longest wait for a pending job to reach the database
+	private static final long PERSIST_TIMEOUT = 5000;
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final JobQueueInfoQueryService jobQueueInfoQueryService;
+
+	private final ActiveJobIndex activeJobIndex;
+
+	private final FairJobScheduler fairJobScheduler;
+
+	private final JobStatusNotifier jobStatusNotifier;
+
+	private final String durability;
+
+	private final String walPath;
+
+	private final int walSize;
+
+	private final long flushInterval;
+
+	private final int flushBatchSize;
+
+	private final BlockingQueue<Entry> pending = new LinkedBlockingQueue<>();
+
+	// Guards the log, the job ids and the pending queue order
+	private final Object appendLock = new Object();
+
+	private final Object forceLock = new Object();
+
+	private final Object persistedLock = new Object();
+
+	private JobWriteAheadLog writeAheadLog;
+
+	private long nextJobId;
+
+	private long appendedCount;
+
+	private long forcedCount;
+
+	private long lastAppendedJobId;
+
+	private long lastPersistedJobId;
+
+	// A compaction failed and the log may be full, retried by the flusher
+	private boolean compactionFailed;
+
+	private long lastCompaction;
+
+	private String insertJobSql;
+
+	private String insertOwnerSql;
+
+	private String insertTargetUserSql;
+
+	private Thread flusher;
+
+	private volatile boolean running;
+
+	private final Timer appendTimer;
+
+	private final Timer forceTimer;
+
+	private final Timer flushTimer;
+
+	private final Meter flushFailures;
+
+	private final Meter dropped;
+
+	@Autowired
+	public JobQueueWriter(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, JobQueueInfoQueryService jobQueueInfoQueryService,
+			ActiveJobIndex activeJobIndex, FairJobScheduler fairJobScheduler, JobStatusNotifier jobStatusNotifier,
+			MetricRegistry metricRegistry,
+			@Value("${cn3.jobs.durability}") String durability,
+			@Value("${cn3.jobs.wal.path}") String walPath,
+			@Value("${cn3.jobs.wal.size}") int walSize,
+			@Value("${cn3.jobs.wal.flush-interval}") long flushInterval,
+			@Value("${cn3.jobs.wal.flush-batch-size}") int flushBatchSize) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.jobQueueInfoQueryService = jobQueueInfoQueryService;
+		this.activeJobIndex = activeJobIndex;
+		this.fairJobScheduler = fairJobScheduler;
+		this.jobStatusNotifier = jobStatusNotifier;
+		this.durability = durability;
+		this.walPath = walPath;
+		this.walSize = walSize;
+		this.flushInterval = flushInterval;
+		this.flushBatchSize = flushBatchSize;
+
+		if (!DATABASE.equals(durability) && !WAL.equals(durability) && !WAL_FSYNC.equals(durability)) {
+			throw new IllegalArgumentException("Unknown cn3.jobs.durability: " + durability);
+		}
+
+		this.appendTimer = metricRegistry.timer("jobs.wal.append");
+		this.forceTimer = metricRegistry.timer("jobs.wal.force");
+		this.flushTimer = metricRegistry.timer("jobs.writer.flush");
+		this.flushFailures = metricRegistry.meter("jobs.writer.failures");
+		this.dropped = metricRegistry.meter("jobs.writer.dropped");
+		metricRegistry.register("jobs.writer.pending", (Gauge<Integer>) pending::size);
+	}
+
+	public boolean isWriteBehind() {
+		return !DATABASE.equals(durability);
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		if (!isWriteBehind()) {
+			return;
+		}
+
+		resolveSql();
+
+		writeAheadLog = new JobWriteAheadLog(Paths.get(walPath), walSize);
+		List<Entry> entries = writeAheadLog.replay();
+
+		// Inserted before the crash, but not checkpointed
+		Set<Long> persisted = jobQueueInfoQueryService
+				.findJobInfosByIds(entries.stream().map(Entry::getJobId).collect(Collectors.toList()))
+				.stream().map(JobInfoDTO::getId).collect(Collectors.toSet());
+
+		long maxJobId = jobQueueInfoQueryService.findMaxJobId();
+		for (Entry entry : entries) {
+			maxJobId = Math.max(maxJobId, entry.getJobId());
+			if (!persisted.contains(entry.getJobId())) {
+				pending.add(entry);
+				activeJobIndex.putPending(entry.getOwnerId(), toJobInfo(entry));
+			}
+		}
+		nextJobId = maxJobId + 1;
+		lastAppendedJobId = maxJobId;
+		lastPersistedJobId = pending.isEmpty() ? maxJobId : pending.peek().getJobId() - 1;
+
+		if (!entries.isEmpty()) {
+			LOGGER.info(String.format("Replayed %d jobs from the write-ahead log, %d not in the database yet",
+					entries.size(), pending.size()));
+		}
+
+		running = true;
+		flusher = new CustomizableThreadFactory("job-queue-writer-").newThread(this::flushLoop);
+		flusher.start();
+	}
+
+	// Column names straight from the Hibernate mapping of JobQueueInfo
+	private void resolveSql() {
+		SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		AbstractEntityPersister jobPersister = (AbstractEntityPersister) sessionFactory.getClassMetadata(JobQueueInfo.class);
+		AbstractCollectionPersister ownersPersister = (AbstractCollectionPersister) sessionFactory
+				.getCollectionMetadata(JobQueueInfo.class.getName() + ".owners");
+		AbstractCollectionPersister targetUsersPersister = (AbstractCollectionPersister) sessionFactory
+				.getCollectionMetadata(JobQueueInfo.class.getName() + ".targetUsers");
+		if (!ownersPersister.isManyToMany() || !targetUsersPersister.isManyToMany()) {
+			throw new IllegalStateException("Write-behind job persistence needs join tables for the owners and target users");
+		}
+
+		insertJobSql = String.format("INSERT INTO %s (%s, %s, %s) VALUES (?, ?, ?)",
+				jobPersister.getTableName(),
+				jobPersister.getIdentifierColumnNames()[0],
+				jobPersister.getPropertyColumnNames("addedTime")[0],
+				jobPersister.getPropertyColumnNames("status")[0]);
+		insertOwnerSql = String.format("INSERT INTO %s (%s, %s) VALUES (?, ?)",
+				ownersPersister.getTableName(),
+				ownersPersister.getKeyColumnNames()[0],
+				ownersPersister.getElementColumnNames()[0]);
+		insertTargetUserSql = String.format("INSERT INTO %s (%s, %s) VALUES (?, ?)",
+				targetUsersPersister.getTableName(),
+				targetUsersPersister.getKeyColumnNames()[0],
+				targetUsersPersister.getElementColumnNames()[0]);
+	}
+
+	/**
+	 * Log one new job per target user and return them, the jobs are inserted
+	 * into the database later. The owner and the target users must exist.
+	 *
+	 * @param ownerId
+	 * @param targetUserIds
+	 * @return
+	 */
+	public List<JobInfoDTO> append(Long ownerId, List<Long> targetUserIds) {
+		long addedTime = System.currentTimeMillis();
+		List<JobInfoDTO> jobInfos = new ArrayList<>(targetUserIds.size());
+		long count;
+		try (Timer.Context context = appendTimer.time()) {
+			synchronized (appendLock) {
+				if (!writeAheadLog.hasRoom(targetUserIds.size())) {
+					throw new ServiceUnavailableException("The job queue is busy, please try again later.", RETRY_AFTER_SECONDS);
+				}
+
+				for (Long targetUserId : targetUserIds) {
+					Entry entry = new Entry(nextJobId++, ownerId, targetUserId, addedTime);
+					writeAheadLog.append(entry);
+					pending.add(entry);
+					lastAppendedJobId = entry.getJobId();
+
+					JobInfoDTO jobInfo = toJobInfo(entry);
+					activeJobIndex.putPending(ownerId, jobInfo);
+					jobInfos.add(jobInfo);
+				}
+				count = appendedCount += targetUserIds.size();
+			}
+		}
+
+		if (WAL_FSYNC.equals(durability)) {
+			force(count);
+		}
+
+		return jobInfos;
+	}
+
+	// Group commit, whoever gets the lock forces the appends of the others too
+	private void force(long count) {
+		synchronized (forceLock) {
+			if (forcedCount >= count) {
+				return;
+			}
+
+			long appended;
+			synchronized (appendLock) {
+				appended = appendedCount;
+			}
+			try (Timer.Context context = forceTimer.time()) {
+				writeAheadLog.force();
+			}
+			forcedCount = appended;
+		}
+	}
+
+	/**
+	 * Wait until the job is in the database, if it's still pending.
+	 *
+	 * @param jobId
+	 */
+	public void awaitPersisted(Long jobId) {
+		if (!isWriteBehind() || !activeJobIndex.isPending(jobId)) {
+			return;
+		}
+
+		long deadline = System.currentTimeMillis() + PERSIST_TIMEOUT;
+		synchronized (persistedLock) {
+			while (lastPersistedJobId < jobId) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new ServiceUnavailableException("The job queue is busy, please try again later.", RETRY_AFTER_SECONDS);
+				}
+				try {
+					persistedLock.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new ServiceUnavailableException("The job queue is busy, please try again later.", RETRY_AFTER_SECONDS);
+				}
+			}
+		}
+	}
+
+	private void flushLoop() {
+		while (running) {
+			List<Entry> batch = new ArrayList<>(flushBatchSize);
+			try {
+				Entry first = pending.poll(flushInterval, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					retryCompaction();
+					continue;
+				}
+				batch.add(first);
+				pending.drainTo(batch, flushBatchSize - 1);
+			} catch (InterruptedException e) {
+				break;
+			}
+
+			while (running) {
+				try (Timer.Context context = flushTimer.time()) {
+					persist(batch);
+					break;
+				} catch (RuntimeException ex) {
+					flushFailures.mark();
+					LOGGER.error(String.format("Failed to insert %d jobs, retrying", batch.size()), ex);
+					try {
+						Thread.sleep(RETRY_DELAY);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+			if (running) {
+				persisted(batch);
+			}
+		}
+	}
+
+	private void persist(List<Entry> batch) {
+		try {
+			insert(batch);
+		} catch (DataIntegrityViolationException ex) {
+			// Find the bad ones, the rest still go in
+			for (Entry entry : batch) {
+				try {
+					insert(Collections.singletonList(entry));
+				} catch (DataIntegrityViolationException e) {
+					LOGGER.error(String.format("Dropped job %d of user id %d for target user id %d",
+							entry.getJobId(), entry.getOwnerId(), entry.getTargetUserId()), e);
+					drop(entry);
+				}
+			}
+		}
+	}
+
+	// Acknowledged but never inserted, as far as anyone can tell it's cancelled
+	private void drop(Entry entry) {
+		dropped.mark();
+		activeJobIndex.remove(entry.getOwnerId(), entry.getJobId());
+		fairJobScheduler.remove(entry.getJobId());
+		jobStatusNotifier.publishCancelled(entry.getOwnerId(), entry.getJobId());
+	}
+
+	private void insert(List<Entry> entries) {
+		transactionTemplate.execute(status -> {
+			jdbcTemplate.batchUpdate(insertJobSql, entries, entries.size(), (ps, entry) -> {
+				ps.setLong(1, entry.getJobId());
+				ps.setTimestamp(2, new Timestamp(entry.getAddedTime()));
+				ps.setInt(3, JobStatus.QUEUED);
+			});
+			jdbcTemplate.batchUpdate(insertOwnerSql, entries, entries.size(), (ps, entry) -> {
+				ps.setLong(1, entry.getJobId());
+				ps.setLong(2, entry.getOwnerId());
+			});
+			jdbcTemplate.batchUpdate(insertTargetUserSql, entries, entries.size(), (ps, entry) -> {
+				ps.setLong(1, entry.getJobId());
+				ps.setLong(2, entry.getTargetUserId());
+			});
+			return null;
+		});
+	}
+
+	private void persisted(List<Entry> batch) {
+		long lastJobId = batch.get(batch.size() - 1).getJobId();
+		synchronized (appendLock) {
+			// A full log can't take the checkpoint, it has to be compacted
+			// before the next append or the submissions get 503
+			boolean checkpointed = writeAheadLog.checkpoint(lastJobId);
+			if (!checkpointed || compactionFailed || writeAheadLog.usage() > 0.5) {
+				startOver(checkpointed && !compactionFailed);
+			}
+		}
+		activeJobIndex.persisted(batch.stream().map(Entry::getJobId).collect(Collectors.toList()));
+
+		synchronized (persistedLock) {
+			lastPersistedJobId = lastJobId;
+			persistedLock.notifyAll();
+		}
+	}
+
+	// Called with the append lock held, the pending queue then holds exactly
+	// the jobs appended after the checkpoint
+	private void startOver(boolean checkpointed) {
+		if (pending.isEmpty()) {
+			// Everything is in the database
+			writeAheadLog.reset();
+			compactionFailed = false;
+			return;
+		}
+		// Not worth copying while most of the log still has to be inserted,
+		// unless there is no room left at all
+		if (checkpointed && writeAheadLog.usage(pending.size()) > writeAheadLog.usage() / 2) {
+			return;
+		}
+
+		lastCompaction = System.currentTimeMillis();
+		try {
+			writeAheadLog.compact(new ArrayList<>(pending));
+			compactionFailed = false;
+		} catch (IOException ex) {
+			// The submissions get 503 once the log is full, until it's retried
+			compactionFailed = true;
+			LOGGER.error("Failed to compact the write-ahead log, retrying", ex);
+		}
+	}
+
+	// Between the batches, the failed compaction is retried at most every
+	// RETRY_DELAY, the batches retry it too
+	private void retryCompaction() {
+		synchronized (appendLock) {
+			if (compactionFailed && System.currentTimeMillis() - lastCompaction >= RETRY_DELAY) {
+				startOver(false);
+			}
+		}
+	}
+
+	private static JobInfoDTO toJobInfo(Entry entry) {
+		return new JobInfoDTO(entry.getJobId(), entry.getTargetUserId(), JobStatus.QUEUED, new Date(entry.getAddedTime()));
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (flusher == null) {
+			return;
+		}
+
+		// Whatever is still pending is replayed on the next start
+		running = false;
+		flusher.interrupt();
+		flusher.join(RETRY_DELAY);
+		writeAheadLog.close();
+	}
+
+}
@@ -0,0 +1,43 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+
+/**
+ * A job of the owner has a new status, or has been removed from the queue.
+ *
+ * Oct 19, 2026 5:10:47 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class JobStatusChange {
+
+	private final Long ownerId;
+
+	private final JobInfoDTO jobInfo;
+
+	private final boolean cancelled;
+
+	public JobStatusChange(Long ownerId, JobInfoDTO jobInfo, boolean cancelled) {
+		this.ownerId = ownerId;
+		this.jobInfo = jobInfo;
+		this.cancelled = cancelled;
+	}
+
+	public Long getOwnerId() {
+		return ownerId;
+	}
+
+	/**
+	 * Only the id is set when the job has been cancelled.
+	 *
+	 * @return
+	 */
+	public JobInfoDTO getJobInfo() {
+		return jobInfo;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+}
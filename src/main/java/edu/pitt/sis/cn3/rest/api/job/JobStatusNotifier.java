@@ -0,0 +1,390 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.service.JobQueueInfoQueryService;
+
+/**
+ * Tells the long-polling and Server-Sent Events clients when the status of a
+ * job changes.
+ *
+ * Changes made through this API are published right away. Changes made by
+ * the recommendation workers directly in the database are picked up by a
+ * single poll of all the watched jobs at a fixed interval, however many
+ * clients are waiting.
+ *
+ * Each subscription has a queue of its own, drained in order on one of the
+ * cn3.jobs.notify.threads delivery threads, so a client that is slow to read
+ * only holds up its own changes. A subscription with more than
+ * cn3.jobs.notify.max-pending changes waiting is dropped.
+ *
+ * Oct 19, 2026 5:08:33 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class JobStatusNotifier {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JobStatusNotifier.class);
+
+	private final JobQueueInfoQueryService jobQueueInfoQueryService;
+
+	private final ActiveJobIndex activeJobIndex;
+
+	private final ConcurrentMap<Long, Set<Subscription>> jobSubscriptions = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Long, Set<Subscription>> ownerSubscriptions = new ConcurrentHashMap<>();
+
+	// Last known status of the watched jobs
+	private final ConcurrentMap<Long, KnownJob> knownJobs = new ConcurrentHashMap<>();
+
+	// The jobs of the watched owners above it are new, at least the highest
+	// id when the last owner started to be watched
+	private final AtomicLong lastSeenJobId = new AtomicLong();
+
+	// Listeners write to the clients, keep that off the publishing threads
+	private final ExecutorService executor;
+
+	private final int maxPending;
+
+	private final Meter dropped;
+
+	@Autowired
+	public JobStatusNotifier(JobQueueInfoQueryService jobQueueInfoQueryService, ActiveJobIndex activeJobIndex,
+			MetricRegistry metricRegistry,
+			@Value("${cn3.jobs.notify.threads}") int threads,
+			@Value("${cn3.jobs.notify.max-pending}") int maxPending) {
+		this.jobQueueInfoQueryService = jobQueueInfoQueryService;
+		this.activeJobIndex = activeJobIndex;
+		this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("job-status-notifier-"));
+		this.maxPending = maxPending;
+		this.dropped = metricRegistry.meter("jobs.notifier.dropped");
+
+		metricRegistry.register("jobs.notifier.watched", (Gauge<Integer>) knownJobs::size);
+		metricRegistry.register("jobs.notifier.subscriptions",
+				(Gauge<Integer>) () -> count(jobSubscriptions) + count(ownerSubscriptions));
+	}
+
+	/**
+	 * Watch a single job.
+	 *
+	 * @param ownerId
+	 * @param current the status the client knows
+	 * @param listener
+	 * @return
+	 */
+	public Subscription watchJob(Long ownerId, JobInfoDTO current, JobStatusListener listener) {
+		knownJobs.putIfAbsent(current.getId(), new KnownJob(ownerId, current.getStatus()));
+		Subscription subscription = new Subscription(ownerId, current.getId(), listener);
+		jobSubscriptions.computeIfAbsent(current.getId(), id -> ConcurrentHashMap.newKeySet()).add(subscription);
+
+		return subscription;
+	}
+
+	/**
+	 * Watch all the jobs of the owner, including the ones added later.
+	 *
+	 * @param ownerId
+	 * @param activeJobs the jobs of the owner that haven't finished or failed
+	 * @param listener
+	 * @return
+	 */
+	public Subscription watchOwner(Long ownerId, List<JobInfoDTO> activeJobs, JobStatusListener listener) {
+		// The jobs that are already there aren't new to this owner, whatever
+		// the jobs published so far have moved the last seen id to
+		lastSeenJobId.accumulateAndGet(jobQueueInfoQueryService.findMaxJobId(), Math::max);
+		activeJobs.forEach(jobInfo -> knownJobs.putIfAbsent(jobInfo.getId(), new KnownJob(ownerId, jobInfo.getStatus())));
+		Subscription subscription = new Subscription(ownerId, null, listener);
+		ownerSubscriptions.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+
+		return subscription;
+	}
+
+	/**
+	 * Called by everything that adds a job or changes its status.
+	 *
+	 * @param ownerId
+	 * @param jobInfo
+	 */
+	public void publish(Long ownerId, JobInfoDTO jobInfo) {
+		lastSeenJobId.accumulateAndGet(jobInfo.getId(), Math::max);
+		if (!isWatched(ownerId, jobInfo.getId())) {
+			return;
+		}
+
+		KnownJob previous = knownJobs.put(jobInfo.getId(), new KnownJob(ownerId, jobInfo.getStatus()));
+		if (previous == null || previous.status != jobInfo.getStatus()) {
+			notify(new JobStatusChange(ownerId, jobInfo, false));
+		}
+		if (JobStatus.isTerminal(jobInfo.getStatus())) {
+			knownJobs.remove(jobInfo.getId());
+		}
+	}
+
+	/**
+	 * Called by everything that removes a job from the queue.
+	 *
+	 * @param ownerId
+	 * @param jobId
+	 */
+	public void publishCancelled(Long ownerId, Long jobId) {
+		if (knownJobs.remove(jobId) != null || isWatched(ownerId, jobId)) {
+			JobInfoDTO jobInfo = new JobInfoDTO();
+			jobInfo.setId(jobId);
+			notify(new JobStatusChange(ownerId, jobInfo, true));
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${cn3.jobs.notify.poll-interval}")
+	public void poll() {
+		if (jobSubscriptions.isEmpty() && ownerSubscriptions.isEmpty()) {
+			return;
+		}
+
+		try {
+			pollKnownJobs();
+			pollNewJobs();
+		} catch (RuntimeException ex) {
+			LOGGER.error("Failed to poll the status of the watched jobs", ex);
+		}
+	}
+
+	private void pollKnownJobs() {
+		Set<Long> jobIds = new HashSet<>(knownJobs.keySet());
+		if (jobIds.isEmpty()) {
+			return;
+		}
+
+		for (JobInfoDTO jobInfo : jobQueueInfoQueryService.findJobInfosByIds(jobIds)) {
+			jobIds.remove(jobInfo.getId());
+			KnownJob knownJob = knownJobs.get(jobInfo.getId());
+			if (knownJob != null && knownJob.status != jobInfo.getStatus()) {
+				publish(knownJob.ownerId, jobInfo);
+			}
+		}
+
+		// Deleted from the queue, or still in the write-ahead log
+		for (Long jobId : jobIds) {
+			KnownJob knownJob = knownJobs.get(jobId);
+			if (knownJob != null && !activeJobIndex.isPending(jobId)) {
+				publishCancelled(knownJob.ownerId, jobId);
+			}
+		}
+	}
+
+	private void pollNewJobs() {
+		if (ownerSubscriptions.isEmpty()) {
+			return;
+		}
+
+		Map<Long, List<JobInfoDTO>> newJobInfos = jobQueueInfoQueryService
+				.findNewJobInfos(ownerSubscriptions.keySet(), lastSeenJobId.get());
+		newJobInfos.forEach((ownerId, jobInfos) -> jobInfos.forEach(jobInfo -> publish(ownerId, jobInfo)));
+	}
+
+	private boolean isWatched(Long ownerId, Long jobId) {
+		return jobSubscriptions.containsKey(jobId) || ownerSubscriptions.containsKey(ownerId);
+	}
+
+	private void notify(JobStatusChange change) {
+		List<Subscription> subscriptions = new ArrayList<>();
+		subscriptions.addAll(jobSubscriptions.getOrDefault(change.getJobInfo().getId(), Collections.emptySet()));
+		subscriptions.addAll(ownerSubscriptions.getOrDefault(change.getOwnerId(), Collections.emptySet()));
+		subscriptions.forEach(subscription -> offer(subscription, change));
+	}
+
+	private void offer(Subscription subscription, JobStatusChange change) {
+		if (subscription.cancelled) {
+			return;
+		}
+		if (subscription.pending.incrementAndGet() > maxPending) {
+			dropped.mark();
+			LOGGER.warn(String.format("Dropped a job status subscription of user id %d, more than %d changes waiting",
+					subscription.ownerId, maxPending));
+			subscription.overflowed = true;
+			subscription.cancel();
+		} else {
+			subscription.changes.offer(change);
+		}
+		schedule(subscription);
+	}
+
+	// At most one delivery of a subscription at a time, so its changes stay
+	// in order
+	private void schedule(Subscription subscription) {
+		if (!subscription.scheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(() -> deliver(subscription));
+		} catch (RejectedExecutionException e) {
+			// Shutting down
+			subscription.scheduled.set(false);
+		}
+	}
+
+	private void deliver(Subscription subscription) {
+		JobStatusChange change;
+		while (!subscription.cancelled && (change = subscription.changes.poll()) != null) {
+			subscription.pending.decrementAndGet();
+			boolean keep;
+			try {
+				keep = subscription.listener.onChange(change);
+			} catch (RuntimeException ex) {
+				LOGGER.warn("Job status listener failed", ex);
+				keep = false;
+			}
+			if (!keep || change.isCancelled() && subscription.jobId != null) {
+				subscription.cancel();
+			}
+		}
+
+		if (subscription.cancelled) {
+			subscription.changes.clear();
+			if (subscription.overflowed && subscription.droppedNotified.compareAndSet(false, true)) {
+				try {
+					subscription.listener.onDropped();
+				} catch (RuntimeException ex) {
+					LOGGER.warn("Job status listener failed", ex);
+				}
+			}
+		}
+
+		subscription.scheduled.set(false);
+		// Offered, or dropped, after the checks above but before the flag was
+		// cleared
+		if (subscription.cancelled ? subscription.overflowed && !subscription.droppedNotified.get()
+				: !subscription.changes.isEmpty()) {
+			schedule(subscription);
+		}
+	}
+
+	private void forget(Subscription subscription) {
+		if (subscription.jobId != null) {
+			remove(jobSubscriptions, subscription.jobId, subscription);
+			if (!isWatched(subscription.ownerId, subscription.jobId)) {
+				knownJobs.remove(subscription.jobId);
+			}
+		} else if (remove(ownerSubscriptions, subscription.ownerId, subscription)) {
+			knownJobs.entrySet().removeIf(entry -> entry.getValue().ownerId.equals(subscription.ownerId)
+					&& !jobSubscriptions.containsKey(entry.getKey()));
+		}
+	}
+
+	// Returns true when there's no subscription left for the key
+	private static boolean remove(ConcurrentMap<Long, Set<Subscription>> subscriptions, Long key,
+			Subscription subscription) {
+		Set<Subscription> remaining = subscriptions.computeIfPresent(key, (id, set) -> {
+			set.remove(subscription);
+			return set.isEmpty() ? null : set;
+		});
+
+		return remaining == null;
+	}
+
+	private static int count(ConcurrentMap<Long, Set<Subscription>> subscriptions) {
+		return subscriptions.values().stream().mapToInt(Set::size).sum();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@FunctionalInterface
+	public interface JobStatusListener {
+
+		/**
+		 * @param change
+		 * @return false to stop listening
+		 */
+		boolean onChange(JobStatusChange change);
+
+		/**
+		 * The subscription was dropped because the changes piled up, the
+		 * client can't keep up and should reconnect.
+		 */
+		default void onDropped() {
+		}
+
+	}
+
+	public final class Subscription {
+
+		private final Long ownerId;
+
+		private final Long jobId;
+
+		private final JobStatusListener listener;
+
+		private final Queue<JobStatusChange> changes = new ConcurrentLinkedQueue<>();
+
+		// Size of the queue, without walking it
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final AtomicBoolean droppedNotified = new AtomicBoolean();
+
+		private volatile boolean cancelled;
+
+		private volatile boolean overflowed;
+
+		private Subscription(Long ownerId, Long jobId, JobStatusListener listener) {
+			this.ownerId = ownerId;
+			this.jobId = jobId;
+			this.listener = listener;
+		}
+
+		public void cancel() {
+			cancelled = true;
+			forget(this);
+		}
+
+	}
+
+	private static final class KnownJob {
+
+		private final Long ownerId;
+
+		private final int status;
+
+		private KnownJob(Long ownerId, int status) {
+			this.ownerId = ownerId;
+			this.status = status;
+		}
+
+	}
+
+}
@@ -0,0 +1,278 @@
+package edu.pitt.sis.cn3.rest.api.job;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the submitted jobs in a memory-mapped file, written
+ * before the jobs are inserted into the database.
+ *
+ * The file starts with a header holding the current generation. Every
+ * record carries the generation it was written in and a CRC32, so a replay
+ * stops at the first torn or stale record. Once all the jobs are in the
+ * database the log is reset by moving to the next generation, nothing has
+ * to be erased. Under a steady load there's always a job left to insert, so
+ * instead the log is compacted: the jobs after the last checkpoint are
+ * copied to a new file of the next generation, which replaces the log.
+ *
+ * Not thread-safe, {@link JobQueueWriter} serializes the appends.
+ *
+ * Oct 21, 2026 11:02:54 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class JobWriteAheadLog implements Closeable {
+
+	private static final int MAGIC = 0x434E334A;
+
+	private static final int HEADER_SIZE = 16;
+
+	// generation, type, job id, owner id, target user id, added time, CRC32
+	private static final int RECORD_SIZE = 8 + 1 + 8 + 8 + 8 + 8 + 4;
+
+	private static final byte APPEND = 1;
+
+	private static final byte CHECKPOINT = 2;
+
+	private final Path path;
+
+	private MappedByteBuffer buffer;
+
+	private final CRC32 crc = new CRC32();
+
+	private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+	private long generation;
+
+	/**
+	 * Open the log, creating the file if needed.
+	 *
+	 * @param path
+	 * @param size
+	 * @throws IOException
+	 */
+	public JobWriteAheadLog(Path path, int size) throws IOException {
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		this.path = path;
+		this.buffer = map(path, Math.max(size, HEADER_SIZE + RECORD_SIZE));
+
+		if (buffer.getInt(0) == MAGIC) {
+			generation = buffer.getLong(8);
+		} else {
+			generation = 1;
+			writeHeader();
+		}
+		buffer.position(HEADER_SIZE);
+	}
+
+	/**
+	 * Read the jobs that were appended but never checkpointed, and move to the
+	 * end of the log.
+	 *
+	 * @return in the order they were appended
+	 */
+	public List<Entry> replay() {
+		Map<Long, Entry> pending = new LinkedHashMap<>();
+		int position = HEADER_SIZE;
+		while (position + RECORD_SIZE <= buffer.capacity()) {
+			ByteBuffer slice = buffer.duplicate();
+			slice.position(position);
+			slice.limit(position + RECORD_SIZE);
+			byte[] bytes = new byte[RECORD_SIZE];
+			slice.get(bytes);
+
+			ByteBuffer read = ByteBuffer.wrap(bytes);
+			if (read.getLong(0) != generation) {
+				break;
+			}
+			crc.reset();
+			crc.update(bytes, 0, RECORD_SIZE - 4);
+			if (read.getInt(RECORD_SIZE - 4) != (int) crc.getValue()) {
+				break;
+			}
+
+			byte type = read.get(8);
+			long jobId = read.getLong(9);
+			if (type == APPEND) {
+				pending.put(jobId, new Entry(jobId, read.getLong(17), read.getLong(25), read.getLong(33)));
+			} else if (type == CHECKPOINT) {
+				Iterator<Long> jobIds = pending.keySet().iterator();
+				while (jobIds.hasNext() && jobIds.next() <= jobId) {
+					jobIds.remove();
+				}
+			}
+			position += RECORD_SIZE;
+		}
+		buffer.position(position);
+
+		return new ArrayList<>(pending.values());
+	}
+
+	/**
+	 * @param count
+	 * @return true if that many jobs can be appended
+	 */
+	public boolean hasRoom(int count) {
+		return buffer.remaining() >= (long) count * RECORD_SIZE;
+	}
+
+	/**
+	 * @return false if the log is full
+	 */
+	public boolean append(Entry entry) {
+		return write(APPEND, entry.getJobId(), entry.getOwnerId(), entry.getTargetUserId(), entry.getAddedTime());
+	}
+
+	/**
+	 * All the jobs up to the given id are in the database.
+	 *
+	 * @param jobId
+	 * @return false if the log is full
+	 */
+	public boolean checkpoint(long jobId) {
+		return write(CHECKPOINT, jobId, 0, 0, 0);
+	}
+
+	private boolean write(byte type, long jobId, long ownerId, long targetUserId, long addedTime) {
+		if (buffer.remaining() < RECORD_SIZE) {
+			return false;
+		}
+
+		record.clear();
+		record.putLong(generation).put(type).putLong(jobId).putLong(ownerId).putLong(targetUserId).putLong(addedTime);
+		crc.reset();
+		crc.update(record.array(), 0, RECORD_SIZE - 4);
+		record.putInt((int) crc.getValue());
+		record.flip();
+		buffer.put(record);
+
+		return true;
+	}
+
+	/**
+	 * Start over, only once every appended job is in the database.
+	 */
+	public void reset() {
+		generation++;
+		writeHeader();
+		buffer.position(HEADER_SIZE);
+	}
+
+	/**
+	 * Start over with the given jobs only, the ones appended after the last
+	 * checkpoint. They're written to a new file that then replaces the log,
+	 * so a crash in the meantime leaves one of the two logs whole.
+	 *
+	 * @param remaining in the order they were appended
+	 * @throws IOException the log is left as it was
+	 */
+	public void compact(List<Entry> remaining) throws IOException {
+		Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+		MappedByteBuffer previous = buffer;
+		buffer = map(compacted, previous.capacity());
+		generation++;
+		try {
+			writeHeader();
+			buffer.position(HEADER_SIZE);
+			remaining.forEach(this::append);
+			buffer.force();
+			Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			buffer = previous;
+			generation--;
+			throw ex;
+		}
+	}
+
+	/**
+	 * @return the fraction of the log in use
+	 */
+	public double usage() {
+		return (double) buffer.position() / buffer.capacity();
+	}
+
+	/**
+	 * @param count
+	 * @return the fraction of the log that many jobs take
+	 */
+	public double usage(int count) {
+		return (double) count * RECORD_SIZE / buffer.capacity();
+	}
+
+	/**
+	 * Write the changes through to the storage device.
+	 */
+	public void force() {
+		buffer.force();
+	}
+
+	// The mapping stays valid once the file is closed
+	private static MappedByteBuffer map(Path path, int size) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		}
+	}
+
+	private void writeHeader() {
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, 1);
+		buffer.putLong(8, generation);
+		buffer.force();
+	}
+
+	@Override
+	public void close() {
+		buffer.force();
+	}
+
+	public static final class Entry {
+
+		private final long jobId;
+
+		private final long ownerId;
+
+		private final long targetUserId;
+
+		private final long addedTime;
+
+		public Entry(long jobId, long ownerId, long targetUserId, long addedTime) {
+			this.jobId = jobId;
+			this.ownerId = ownerId;
+			this.targetUserId = targetUserId;
+			this.addedTime = addedTime;
+		}
+
+		public long getJobId() {
+			return jobId;
+		}
+
+		public long getOwnerId() {
+			return ownerId;
+		}
+
+		public long getTargetUserId() {
+			return targetUserId;
+		}
+
+		public long getAddedTime() {
+			return addedTime;
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+package edu.pitt.sis.cn3.rest.api.metrics;
+
+/**
+ * The time a job queue task spent on the database before it resumed its
+ * request: waiting for a connection, executing the statements and
+ * committing. The task {@link #start() starts} the recording on its thread,
+ * the datasource {@link #add(long) adds} the time of the JDBC calls, and the
+ * response filters, which run on the thread that resumes the request, read
+ * it for the request metrics.
+ *
+ * Oct 27, 2026 2:48:05 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public final class DatabaseTime {
+
+	private static final long NONE = -1;
+
+	private static final ThreadLocal<long[]> NANOS = ThreadLocal.withInitial(() -> new long[] { NONE });
+
+	private DatabaseTime() {
+	}
+
+	/**
+	 * Record the database time of the current thread from now on.
+	 */
+	public static void start() {
+		NANOS.get()[0] = 0;
+	}
+
+	/**
+	 * @return true between {@link #start()} and {@link #clear()}
+	 */
+	public static boolean isRecording() {
+		return NANOS.get()[0] != NONE;
+	}
+
+	/**
+	 * Add to the database time of the current thread, if it's recorded.
+	 *
+	 * @param nanos
+	 */
+	public static void add(long nanos) {
+		long[] recorded = NANOS.get();
+		if (recorded[0] != NONE) {
+			recorded[0] += nanos;
+		}
+	}
+
+	/**
+	 * @return the time in nanoseconds, or -1 when the request wasn't resumed
+	 *         by a job queue task
+	 */
+	public static long get() {
+		return NANOS.get()[0];
+	}
+
+	public static void clear() {
+		NANOS.get()[0] = NONE;
+	}
+
+}
@@ -0,0 +1,155 @@
+package edu.pitt.sis.cn3.rest.api.metrics;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * Dropwizard reservoir on an HdrHistogram recorder. The values are recorded
+ * wait-free, without sampling, to 3 significant digits.
+ *
+ * The snapshots cover the values of the current window and the one before
+ * it, so between one and two windows. The windows move on when a snapshot is
+ * taken, the values recorded since the previous snapshot count towards the
+ * current window.
+ *
+ * Oct 27, 2026 2:16:40 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class HdrHistogramReservoir implements Reservoir {
+
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+	private final long window;
+
+	// The histograms below are only touched by the snapshots
+	private Histogram interval;
+
+	private Histogram current = new Histogram(SIGNIFICANT_DIGITS);
+
+	private Histogram previous = new Histogram(SIGNIFICANT_DIGITS);
+
+	private long currentStart = System.nanoTime();
+
+	public HdrHistogramReservoir(long window, TimeUnit unit) {
+		this.window = unit.toNanos(window);
+	}
+
+	@Override
+	public int size() {
+		return getSnapshot().size();
+	}
+
+	@Override
+	public void update(long value) {
+		recorder.recordValue(Math.max(value, 0));
+	}
+
+	@Override
+	public synchronized Snapshot getSnapshot() {
+		interval = recorder.getIntervalHistogram(interval);
+
+		long now = System.nanoTime();
+		if (now - currentStart >= window) {
+			Histogram expired = previous;
+			previous = current;
+			current = expired;
+			current.reset();
+			// Nothing was read for a whole window
+			if (now - currentStart >= 2 * window) {
+				previous.reset();
+			}
+			currentStart = now;
+		}
+		current.add(interval);
+
+		Histogram histogram = current.copy();
+		histogram.add(previous);
+
+		return new HdrSnapshot(histogram);
+	}
+
+	private static final class HdrSnapshot extends Snapshot {
+
+		private final Histogram histogram;
+
+		private HdrSnapshot(Histogram histogram) {
+			this.histogram = histogram;
+		}
+
+		@Override
+		public double getValue(double quantile) {
+			return histogram.getValueAtPercentile(quantile * 100.0);
+		}
+
+		// One value per recorded bucket, the count of a snapshot can be
+		// anything up to the requests of two windows
+		@Override
+		public long[] getValues() {
+			long[] values = new long[histogram.getTotalCount() == 0 ? 0 : countBuckets()];
+			int i = 0;
+			for (HistogramIterationValue value : histogram.recordedValues()) {
+				values[i++] = histogram.highestEquivalentValue(value.getValueIteratedTo());
+			}
+
+			return values;
+		}
+
+		private int countBuckets() {
+			int buckets = 0;
+			for (@SuppressWarnings("unused") HistogramIterationValue value : histogram.recordedValues()) {
+				buckets++;
+			}
+
+			return buckets;
+		}
+
+		@Override
+		public int size() {
+			return (int) Math.min(histogram.getTotalCount(), Integer.MAX_VALUE);
+		}
+
+		@Override
+		public long getMax() {
+			return histogram.getMaxValue();
+		}
+
+		@Override
+		public double getMean() {
+			return histogram.getMean();
+		}
+
+		@Override
+		public long getMin() {
+			return histogram.getMinValue();
+		}
+
+		@Override
+		public double getStdDev() {
+			return histogram.getStdDeviation();
+		}
+
+		@Override
+		public void dump(OutputStream output) {
+			try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+				for (long value : getValues()) {
+					writer.printf("%d%n", value);
+				}
+			}
+		}
+
+	}
+
+}
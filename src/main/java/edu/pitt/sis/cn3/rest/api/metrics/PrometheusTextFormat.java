@@ -0,0 +1,142 @@
+package edu.pitt.sis.cn3.rest.api.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+/**
+ * Writes the metrics of a registry in the Prometheus text exposition format
+ * 0.0.4. The names are prefixed with cn3_ and the dots become underscores.
+ *
+ * - gauges and counters are gauges, the counters may go down
+ * - meters are counters of their count, with the _total suffix
+ * - histograms and timers are summaries of their snapshot quantiles and
+ * count, without a sum as Dropwizard doesn't keep one. The timers are in
+ * seconds.
+ *
+ * Oct 27, 2026 3:05:22 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public final class PrometheusTextFormat {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final double[] QUANTILES = { 0.5, 0.75, 0.9, 0.95, 0.99, 0.999 };
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private PrometheusTextFormat() {
+	}
+
+	public static void write(MetricRegistry metricRegistry, Writer writer) throws IOException {
+		for (Map.Entry<String, Gauge> entry : metricRegistry.getGauges().entrySet()) {
+			Object value = entry.getValue().getValue();
+			double number;
+			if (value instanceof Number) {
+				number = ((Number) value).doubleValue();
+			} else if (value instanceof Boolean) {
+				number = (Boolean) value ? 1 : 0;
+			} else {
+				continue;
+			}
+
+			String name = name(entry.getKey());
+			header(writer, name, entry.getKey(), "gauge");
+			sample(writer, name, number);
+		}
+
+		for (Map.Entry<String, Counter> entry : metricRegistry.getCounters().entrySet()) {
+			String name = name(entry.getKey());
+			header(writer, name, entry.getKey(), "gauge");
+			sample(writer, name, entry.getValue().getCount());
+		}
+
+		for (Map.Entry<String, Meter> entry : metricRegistry.getMeters().entrySet()) {
+			String name = name(entry.getKey()) + "_total";
+			header(writer, name, entry.getKey(), "counter");
+			sample(writer, name, entry.getValue().getCount());
+		}
+
+		for (Map.Entry<String, Histogram> entry : metricRegistry.getHistograms().entrySet()) {
+			Histogram histogram = entry.getValue();
+			summary(writer, entry.getKey(), histogram.getSnapshot(), histogram.getCount(), 1);
+		}
+
+		for (Map.Entry<String, Timer> entry : metricRegistry.getTimers().entrySet()) {
+			Timer timer = entry.getValue();
+			summary(writer, entry.getKey(), timer.getSnapshot(), timer.getCount(), NANOS_PER_SECOND);
+		}
+	}
+
+	private static void summary(Writer writer, String metric, Snapshot snapshot, long count, double divisor)
+			throws IOException {
+		String name = name(metric);
+		header(writer, name, metric, "summary");
+		for (double quantile : QUANTILES) {
+			writer.write(name);
+			writer.write("{quantile=\"");
+			writer.write(Double.toString(quantile));
+			writer.write("\"} ");
+			writer.write(value(snapshot.getValue(quantile) / divisor));
+			writer.write('\n');
+		}
+		sample(writer, name + "_count", count);
+	}
+
+	private static void header(Writer writer, String name, String metric, String type) throws IOException {
+		writer.write("# HELP ");
+		writer.write(name);
+		writer.write(' ');
+		writer.write(metric.replace("\\", "\\\\"));
+		writer.write("\n# TYPE ");
+		writer.write(name);
+		writer.write(' ');
+		writer.write(type);
+		writer.write('\n');
+	}
+
+	private static void sample(Writer writer, String name, double number) throws IOException {
+		writer.write(name);
+		writer.write(' ');
+		writer.write(value(number));
+		writer.write('\n');
+	}
+
+	private static String value(double number) {
+		if (Double.isNaN(number)) {
+			return "NaN";
+		}
+		if (Double.isInfinite(number)) {
+			return number > 0 ? "+Inf" : "-Inf";
+		}
+		if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+			return Long.toString((long) number);
+		}
+
+		return Double.toString(number);
+	}
+
+	// [a-zA-Z_:][a-zA-Z0-9_:]*
+	private static String name(String metric) {
+		StringBuilder name = new StringBuilder(metric.length() + 4).append("cn3_");
+		for (int i = 0; i < metric.length(); i++) {
+			char c = metric.charAt(i);
+			boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+					|| c == ':';
+			name.append(valid ? c : '_');
+		}
+
+		return name.toString();
+	}
+
+}
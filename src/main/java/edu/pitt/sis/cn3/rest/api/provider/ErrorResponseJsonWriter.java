@@ -0,0 +1,38 @@
+package edu.pitt.sis.cn3.rest.api.provider;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import edu.pitt.sis.cn3.rest.api.dto.ErrorResponse;
+
+/**
+ * JSON writer of the error responses.
+ *
+ * Oct 26, 2026 10:12:47 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Provider
+public class ErrorResponseJsonWriter extends JsonDTOWriter<ErrorResponse> {
+
+	@Override
+	protected boolean isWriteable(Class<?> type, Type genericType) {
+		return type == ErrorResponse.class;
+	}
+
+	@Override
+	protected void write(ErrorResponse errorResponse, JsonGenerator generator) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("timestamp", errorResponse.getTimestamp());
+		generator.writeNumberField("status", errorResponse.getStatus());
+		writeStringField(generator, "error", errorResponse.getError());
+		writeStringField(generator, "message", errorResponse.getMessage());
+		writeStringField(generator, "path", errorResponse.getPath());
+		generator.writeEndObject();
+	}
+
+}
@@ -0,0 +1,48 @@
+package edu.pitt.sis.cn3.rest.api.provider;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+
+/**
+ * JSON writer of the job status.
+ *
+ * Oct 26, 2026 9:41:52 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Provider
+public class JobInfoJsonWriter extends JsonDTOWriter<JobInfoDTO> {
+
+	@Override
+	protected boolean isWriteable(Class<?> type, Type genericType) {
+		return type == JobInfoDTO.class;
+	}
+
+	@Override
+	protected void write(JobInfoDTO jobInfo, JsonGenerator generator) throws IOException {
+		writeJobInfo(jobInfo, generator);
+	}
+
+	/**
+	 * Also used by the listings that write the jobs as they're read.
+	 *
+	 * @param jobInfo
+	 * @param generator
+	 * @throws IOException
+	 */
+	public static void writeJobInfo(JobInfoDTO jobInfo, JsonGenerator generator) throws IOException {
+		generator.writeStartObject();
+		writeNumberField(generator, "id", jobInfo.getId());
+		writeNumberField(generator, "targetUserId", jobInfo.getTargetUserId());
+		generator.writeNumberField("status", jobInfo.getStatus());
+		writeDateField(generator, "addedTime", jobInfo.getAddedTime());
+		generator.writeEndObject();
+	}
+
+}
@@ -0,0 +1,44 @@
+package edu.pitt.sis.cn3.rest.api.provider;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+
+/**
+ * JSON writer of the job listings, the entity has to be given with its
+ * generic type (a GenericEntity of a collection of {@link JobInfoDTO}).
+ *
+ * Oct 26, 2026 9:55:08 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Provider
+public class JobInfoListJsonWriter extends JsonDTOWriter<Collection<JobInfoDTO>> {
+
+	@Override
+	protected boolean isWriteable(Class<?> type, Type genericType) {
+		if (!Collection.class.isAssignableFrom(type) || !(genericType instanceof ParameterizedType)) {
+			return false;
+		}
+		Type[] typeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
+
+		return typeArguments.length == 1 && typeArguments[0] == JobInfoDTO.class;
+	}
+
+	@Override
+	protected void write(Collection<JobInfoDTO> jobInfos, JsonGenerator generator) throws IOException {
+		generator.writeStartArray();
+		for (JobInfoDTO jobInfo : jobInfos) {
+			JobInfoJsonWriter.writeJobInfo(jobInfo, generator);
+		}
+		generator.writeEndArray();
+	}
+
+}
@@ -0,0 +1,84 @@
+package edu.pitt.sis.cn3.rest.api.provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Date;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * JSON writer of a DTO that writes the fields straight to the entity stream
+ * with the Jackson streaming generator, instead of going through the JAXB
+ * annotations by reflection. The generator buffers are recycled by the
+ * factory, and the dates are written as milliseconds since epoch, the same
+ * as the default JSON provider does.
+ *
+ * The output must stay the same as the one of the default JSON provider.
+ *
+ * Oct 26, 2026 9:27:14 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Produces(MediaType.APPLICATION_JSON)
+public abstract class JsonDTOWriter<T> implements MessageBodyWriter<T> {
+
+	// Jersey closes the entity stream itself
+	private static final JsonFactory JSON_FACTORY = new JsonFactory()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	protected abstract boolean isWriteable(Class<?> type, Type genericType);
+
+	protected abstract void write(T t, JsonGenerator generator) throws IOException;
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType) && isWriteable(type, genericType);
+	}
+
+	@Override
+	public long getSize(T t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return -1;
+	}
+
+	@Override
+	public void writeTo(T t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(entityStream, JsonEncoding.UTF8)) {
+			write(t, generator);
+		}
+	}
+
+	protected static void writeNumberField(JsonGenerator generator, String name, Long value) throws IOException {
+		if (value == null) {
+			generator.writeNullField(name);
+		} else {
+			generator.writeNumberField(name, value);
+		}
+	}
+
+	protected static void writeStringField(JsonGenerator generator, String name, String value) throws IOException {
+		if (value == null) {
+			generator.writeNullField(name);
+		} else {
+			generator.writeStringField(name, value);
+		}
+	}
+
+	protected static void writeDateField(JsonGenerator generator, String name, Date value) throws IOException {
+		if (value == null) {
+			generator.writeNullField(name);
+		} else {
+			generator.writeNumberField(name, value.getTime());
+		}
+	}
+
+}
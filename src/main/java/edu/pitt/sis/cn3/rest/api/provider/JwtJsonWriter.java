@@ -0,0 +1,38 @@
+package edu.pitt.sis.cn3.rest.api.provider;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import edu.pitt.sis.cn3.rest.api.dto.JwtDTO;
+
+/**
+ * JSON writer of the JWT handed out on sign in.
+ *
+ * Oct 26, 2026 10:06:31 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Provider
+public class JwtJsonWriter extends JsonDTOWriter<JwtDTO> {
+
+	@Override
+	protected boolean isWriteable(Class<?> type, Type genericType) {
+		return type == JwtDTO.class;
+	}
+
+	@Override
+	protected void write(JwtDTO jwt, JsonGenerator generator) throws IOException {
+		generator.writeStartObject();
+		writeNumberField(generator, "userId", jwt.getUserId());
+		writeStringField(generator, "jwt", jwt.getJwt());
+		writeDateField(generator, "issuedTime", jwt.getIssuedTime());
+		generator.writeNumberField("lifetime", jwt.getLifetime());
+		writeDateField(generator, "expireTime", jwt.getExpireTime());
+		generator.writeEndObject();
+	}
+
+}
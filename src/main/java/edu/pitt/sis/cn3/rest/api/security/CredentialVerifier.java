@@ -0,0 +1,147 @@
+package edu.pitt.sis.cn3.rest.api.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies passwords against the legacy salted double MD5 hash stored in the
+ * `password` field of the user table:
+ *
+ * md5hex(md5hex(password) + salt)
+ *
+ * where md5hex is the lower case hex string of the digest as produced by
+ * BigInteger.toString(16), i.e. without the leading zeros. Digests and
+ * buffers are kept per thread and the hex strings are never materialized.
+ *
+ * This format is superseded by {@link Pbkdf2PasswordHasher}.
+ *
+ * Oct 18, 2026 1:05:44 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class CredentialVerifier implements PasswordHasher {
+
+	private static final int MD5_LENGTH = 16;
+
+	private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final byte[] salt;
+
+	private final ThreadLocal<byte[]> buffers;
+
+	@Autowired
+	public CredentialVerifier(@Value("${cn3.md5.salty}") String salt) {
+		this.salt = salt.getBytes(StandardCharsets.UTF_8);
+		// Room for the digest, its hex string and the salt
+		this.buffers = ThreadLocal.withInitial(() -> new byte[MD5_LENGTH + (MD5_LENGTH * 2) + this.salt.length]);
+	}
+
+	@Override
+	public boolean supports(String storedHash) {
+		return storedHash != null && !storedHash.startsWith(Pbkdf2PasswordHasher.PREFIX);
+	}
+
+	@Override
+	public boolean needsRehash(String storedHash) {
+		return true;
+	}
+
+	/**
+	 * Check the password against the stored hash in constant time.
+	 *
+	 * @param password
+	 * @param storedHash
+	 * @return
+	 */
+	@Override
+	public boolean matches(String password, String storedHash) {
+		if (password == null || storedHash == null) {
+			return false;
+		}
+
+		byte[] buffer = buffers.get();
+		int length = hash(password, buffer);
+
+		// Go through the whole computed hash no matter where the first
+		// mismatch is
+		int storedLength = storedHash.length();
+		int diff = length ^ storedLength;
+		for (int i = 0; i < length; i++) {
+			char c = (i < storedLength) ? storedHash.charAt(i) : 0;
+			diff |= buffer[MD5_LENGTH + i] ^ c;
+		}
+
+		return diff == 0;
+	}
+
+	/**
+	 * Compute the legacy hash of the password.
+	 *
+	 * @param password
+	 * @return
+	 */
+	@Override
+	public String hash(String password) {
+		byte[] buffer = buffers.get();
+		int length = hash(password, buffer);
+
+		return new String(buffer, MD5_LENGTH, length, StandardCharsets.US_ASCII);
+	}
+
+	// The buffer holds the digest at [0, 16) and the hex string from 16 on.
+	// Returns the length of the resulting hex string.
+	private int hash(String password, byte[] buffer) {
+		MessageDigest md5 = MD5.get();
+		try {
+			md5.reset();
+			md5.update(password.getBytes(StandardCharsets.UTF_8));
+			md5.digest(buffer, 0, MD5_LENGTH);
+			int length = toLegacyHex(buffer, MD5_LENGTH);
+
+			System.arraycopy(salt, 0, buffer, MD5_LENGTH + length, salt.length);
+			md5.update(buffer, MD5_LENGTH, length + salt.length);
+			md5.digest(buffer, 0, MD5_LENGTH);
+
+			return toLegacyHex(buffer, MD5_LENGTH);
+		} catch (DigestException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Same output as new BigInteger(1, digest).toString(16)
+	private static int toLegacyHex(byte[] buffer, int offset) {
+		int length = 0;
+		for (int i = 0; i < MD5_LENGTH; i++) {
+			int high = (buffer[i] >> 4) & 0x0F;
+			int low = buffer[i] & 0x0F;
+			if (length > 0 || high != 0) {
+				buffer[offset + length++] = HEX_DIGITS[high];
+			}
+			if (length > 0 || low != 0) {
+				buffer[offset + length++] = HEX_DIGITS[low];
+			}
+		}
+
+		if (length == 0) {
+			buffer[offset + length++] = HEX_DIGITS[0];
+		}
+
+		return length;
+	}
+
+}
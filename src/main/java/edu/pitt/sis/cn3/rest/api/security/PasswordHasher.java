@@ -0,0 +1,33 @@
+package edu.pitt.sis.cn3.rest.api.security;
+
+/**
+ * A password hash format stored in the `password` field of the user table.
+ *
+ * Oct 18, 2026 3:20:31 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public interface PasswordHasher {
+
+	/**
+	 * Whether the stored hash is in the format of this hasher.
+	 *
+	 * @param storedHash
+	 * @return
+	 */
+	boolean supports(String storedHash);
+
+	boolean matches(String password, String storedHash);
+
+	String hash(String password);
+
+	/**
+	 * Whether the stored hash should be replaced by a new one after a
+	 * successful sign in.
+	 *
+	 * @param storedHash
+	 * @return
+	 */
+	boolean needsRehash(String storedHash);
+
+}
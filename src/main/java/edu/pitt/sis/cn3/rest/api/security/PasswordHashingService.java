@@ -0,0 +1,259 @@
+package edu.pitt.sis.cn3.rest.api.security;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import edu.pitt.sis.cn3.db.entity.UserInfo;
+import edu.pitt.sis.cn3.rest.api.cache.UserInfoCache;
+import edu.pitt.sis.cn3.rest.api.exception.InternalErrorException;
+import edu.pitt.sis.cn3.rest.api.exception.ServiceUnavailableException;
+import edu.pitt.sis.cn3.rest.api.trace.Trace;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
+
+/**
+ * Checks sign in passwords on a small dedicated thread pool so that a burst
+ * of sign ins can't take all the request threads, and upgrades the legacy
+ * hashes to PBKDF2 and the PBKDF2 hashes to the current work factor on the
+ * way.
+ *
+ * The sign ins for a JWT run entirely on the pool, see
+ * {@link #execute(AsyncResponse, Callable)}. The Basic auth of the metrics
+ * scrapes still waits for the hash on the request thread, there are only a
+ * few of them.
+ *
+ * Oct 18, 2026 3:52:16 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Service
+public class PasswordHashingService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHashingService.class);
+
+	private static final long RETRY_AFTER_SECONDS = 1;
+
+	private static final String TOO_MANY_REQUESTS = "Too many sign in requests, please try again later.";
+
+	private final UserInfoCache userInfoCache;
+
+	private final Pbkdf2PasswordHasher pbkdf2PasswordHasher;
+
+	private final List<PasswordHasher> passwordHashers;
+
+	private final boolean upgradeLegacy;
+
+	private final boolean rehashPbkdf2;
+
+	private final long timeout;
+
+	private final ThreadPoolExecutor executor;
+
+	private final Timer verifyTimer;
+
+	private final Timer hashTimer;
+
+	private final Meter rejected;
+
+	@Autowired
+	public PasswordHashingService(UserInfoCache userInfoCache,
+			Pbkdf2PasswordHasher pbkdf2PasswordHasher,
+			CredentialVerifier credentialVerifier,
+			MetricRegistry metricRegistry,
+			@Value("${cn3.password.upgrade-legacy}") boolean upgradeLegacy,
+			@Value("${cn3.password.pbkdf2.rehash}") boolean rehashPbkdf2,
+			@Value("${cn3.password.hashing.threads}") int threads,
+			@Value("${cn3.password.hashing.queue-size}") int queueSize,
+			@Value("${cn3.password.hashing.timeout}") long timeout) {
+		this.userInfoCache = userInfoCache;
+		this.pbkdf2PasswordHasher = pbkdf2PasswordHasher;
+		this.passwordHashers = Arrays.asList(pbkdf2PasswordHasher, credentialVerifier);
+		this.upgradeLegacy = upgradeLegacy;
+		this.rehashPbkdf2 = rehashPbkdf2;
+		this.timeout = timeout;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("password-hashing-"),
+				new ThreadPoolExecutor.AbortPolicy());
+
+		this.verifyTimer = metricRegistry.timer("password.verify");
+		this.hashTimer = metricRegistry.timer("password.hash");
+		this.rejected = metricRegistry.meter("password.rejected");
+		metricRegistry.register("password.queue", (Gauge<Integer>) () -> executor.getQueue().size());
+	}
+
+	/**
+	 * Check the password of the user, replacing the stored hash if it's
+	 * outdated. The hash is computed on the thread pool, the calling thread
+	 * waits for it.
+	 *
+	 * @param userInfo
+	 * @param password
+	 * @return
+	 */
+	public boolean verify(UserInfo userInfo, String password) {
+		return verify(userInfo, password, true);
+	}
+
+	/**
+	 * Same as {@link #verify(UserInfo, String)}, from a task of
+	 * {@link #execute(AsyncResponse, Callable)}, which already runs on the
+	 * thread pool.
+	 *
+	 * @param userInfo
+	 * @param password
+	 * @return
+	 */
+	public boolean verifyInline(UserInfo userInfo, String password) {
+		return verify(userInfo, password, false);
+	}
+
+	private boolean verify(UserInfo userInfo, String password, boolean await) {
+		String storedHash = userInfo.getPassword();
+		PasswordHasher passwordHasher = passwordHashers.stream()
+				.filter(hasher -> hasher.supports(storedHash))
+				.findFirst()
+				.orElse(null);
+		if (passwordHasher == null) {
+			return false;
+		}
+
+		String newHash;
+		if (await) {
+			newHash = await(() -> check(passwordHasher, password, storedHash));
+		} else {
+			newHash = check(passwordHasher, password, storedHash);
+		}
+
+		if (newHash == null) {
+			return false;
+		}
+
+		// Save here, before the caller goes on, so nothing loads the user again
+		// with the old hash
+		if (!newHash.equals(storedHash)) {
+			userInfo.setPassword(newHash);
+			userInfoCache.save(userInfo);
+
+			LOGGER.info(String.format("Upgraded password hash for user id %d", userInfo.getId()));
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return the hash to store, or null if the password doesn't match
+	 */
+	private String check(PasswordHasher passwordHasher, String password, String storedHash) {
+		try (Timer.Context context = verifyTimer.time()) {
+			if (!passwordHasher.matches(password, storedHash)) {
+				return null;
+			}
+		}
+
+		boolean rehash = passwordHasher == pbkdf2PasswordHasher ? rehashPbkdf2 : upgradeLegacy;
+		if (rehash && passwordHasher.needsRehash(storedHash)) {
+			try (Timer.Context context = hashTimer.time()) {
+				return pbkdf2PasswordHasher.hash(password);
+			}
+		}
+
+		return storedHash;
+	}
+
+	/**
+	 * Run a whole sign in on the thread pool and resume the suspended request
+	 * with its response, so the request thread is given back while the
+	 * password is hashed. The task checks the password with
+	 * {@link #verifyInline(UserInfo, String)}. The request is answered with
+	 * 503 Service Unavailable if the pool is saturated or the task doesn't
+	 * complete in time.
+	 *
+	 * @param asyncResponse
+	 * @param task
+	 */
+	public void execute(AsyncResponse asyncResponse, Callable<Response> task) {
+		Trace trace = Tracer.current();
+		FutureTask<Void> future = new FutureTask<>(() -> {
+			if (asyncResponse.isDone()) {
+				return;
+			}
+
+			Tracer.attach(trace);
+			try {
+				asyncResponse.resume(task.call());
+			} catch (Throwable t) {
+				asyncResponse.resume(t);
+			} finally {
+				Tracer.detach();
+			}
+		}, null);
+
+		asyncResponse.setTimeoutHandler(response -> {
+			future.cancel(true);
+			rejected.mark();
+			response.resume(new ServiceUnavailableException(TOO_MANY_REQUESTS, RETRY_AFTER_SECONDS));
+		});
+		asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+
+		try {
+			executor.execute(future);
+		} catch (RejectedExecutionException e) {
+			rejected.mark();
+			asyncResponse.resume(new ServiceUnavailableException(TOO_MANY_REQUESTS, RETRY_AFTER_SECONDS));
+		}
+	}
+
+	private String await(Callable<String> task) {
+		Future<String> future;
+		try {
+			future = executor.submit(task);
+		} catch (RejectedExecutionException e) {
+			rejected.mark();
+			throw new ServiceUnavailableException(TOO_MANY_REQUESTS, RETRY_AFTER_SECONDS);
+		}
+
+		try {
+			return future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			rejected.mark();
+			throw new ServiceUnavailableException(TOO_MANY_REQUESTS, RETRY_AFTER_SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException("Interrupted while verifying the user credentials.");
+		} catch (ExecutionException e) {
+			LOGGER.error("Failed to verify the user credentials", e.getCause());
+			throw new InternalErrorException("Unable to verify the user credentials.");
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+}
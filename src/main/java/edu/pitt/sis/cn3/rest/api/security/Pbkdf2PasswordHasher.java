@@ -0,0 +1,111 @@
+package edu.pitt.sis.cn3.rest.api.security;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * PBKDF2 with HMAC-SHA256 password hash, stored as
+ *
+ * $pbkdf2-sha256$iterations$salt$hash
+ *
+ * with the salt and the hash base64 encoded. The number of iterations is the
+ * work factor, stored hashes with fewer iterations than the configured ones
+ * are rehashed on the next sign in unless cn3.password.pbkdf2.rehash is off.
+ *
+ * Oct 18, 2026 3:27:52 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+	public static final String PREFIX = "$pbkdf2-sha256$";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(Pbkdf2PasswordHasher.class);
+
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+	private static final int SALT_LENGTH = 16;
+
+	private static final int HASH_LENGTH = 32;
+
+	private final SecureRandom random = new SecureRandom();
+
+	private final int iterations;
+
+	@Autowired
+	public Pbkdf2PasswordHasher(@Value("${cn3.password.pbkdf2.iterations}") int iterations) {
+		this.iterations = iterations;
+	}
+
+	@Override
+	public boolean supports(String storedHash) {
+		return storedHash != null && storedHash.startsWith(PREFIX);
+	}
+
+	@Override
+	public boolean matches(String password, String storedHash) {
+		String[] parts = storedHash.substring(PREFIX.length()).split("\\$");
+		if (parts.length != 3) {
+			return false;
+		}
+
+		try {
+			byte[] salt = Base64.getDecoder().decode(parts[1]);
+			byte[] hash = Base64.getDecoder().decode(parts[2]);
+
+			return MessageDigest.isEqual(hash, derive(password, salt, Integer.parseInt(parts[0]), hash.length));
+		} catch (IllegalArgumentException e) {
+			// Bad iterations, salt or hash, the same as a wrong password
+			LOGGER.warn("Malformed PBKDF2 password hash", e);
+			return false;
+		}
+	}
+
+	@Override
+	public String hash(String password) {
+		byte[] salt = new byte[SALT_LENGTH];
+		random.nextBytes(salt);
+		byte[] hash = derive(password, salt, iterations, HASH_LENGTH);
+
+		return PREFIX + iterations + "$" + Base64.getEncoder().encodeToString(salt) + "$"
+				+ Base64.getEncoder().encodeToString(hash);
+	}
+
+	@Override
+	public boolean needsRehash(String storedHash) {
+		int end = storedHash.indexOf('$', PREFIX.length());
+		if (end < 0) {
+			return true;
+		}
+
+		try {
+			return Integer.parseInt(storedHash.substring(PREFIX.length(), end)) < iterations;
+		} catch (NumberFormatException e) {
+			return true;
+		}
+	}
+
+	private static byte[] derive(String password, byte[] salt, int iterations, int length) {
+		PBEKeySpec keySpec = new PBEKeySpec(password.toCharArray(), salt, iterations, length * 8);
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(keySpec).getEncoded();
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			keySpec.clearPassword();
+		}
+	}
+
+}
@@ -24,14 +24,22 @@ import com.auth0.jwt.JWTVerifyException;
 import edu.pitt.sis.cn3.db.entity.UserInfo;
 import edu.pitt.sis.cn3.db.service.UserInfoService;
 import edu.pitt.sis.cn3.rest.api.Role;
+import edu.pitt.sis.cn3.rest.api.cache.JwtVerificationCache;
+import edu.pitt.sis.cn3.rest.api.cache.JwtVerificationCache.TokenKey;
+import edu.pitt.sis.cn3.rest.api.cache.JwtVerificationCache.VerifiedJwt;
+import edu.pitt.sis.cn3.rest.api.cache.TokenGenerationTable;
+import edu.pitt.sis.cn3.rest.api.cache.TokenGenerationTable.TokenGeneration;
+import edu.pitt.sis.cn3.rest.api.cache.UserInfoCache;
+import edu.pitt.sis.cn3.rest.api.cache.UserInfoSnapshot;
 import edu.pitt.sis.cn3.rest.api.exception.AccessDeniedException;
 import edu.pitt.sis.cn3.rest.api.exception.AccessForbiddenException;
+import edu.pitt.sis.cn3.rest.api.security.PasswordHashingService;
+import edu.pitt.sis.cn3.rest.api.trace.Span;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
 
 import java.io.IOException;
-import java.math.BigInteger;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.Principal;
 import java.security.SignatureException;
@@ -41,8 +49,8 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.StringTokenizer;
 
+import javax.annotation.PostConstruct;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.SecurityContext;
@@ -68,9 +76,6 @@ public class AuthFilterService {
 	@Value("${cn3.jwt.secret}")
 	private String jwtSecret;
 
-	@Value("${cn3.md5.salty}")
-	private String MD5_SALTY;
-
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(AuthFilterService.class);
 
@@ -78,6 +83,10 @@ public class AuthFilterService {
 	public static final String AUTH_SCHEME_BASIC = "Basic";
 	public static final String AUTH_SCHEME_BEARER = "Bearer";
 
+	// Request property holding the user read from the database while
+	// authenticating, so the endpoints don't need to read it again
+	private static final String AUTHENTICATED_USER = "cn3.authenticatedUser";
+
 	private static final AccessDeniedException BASIC_AUTH_USER_CREDENTIALS_REQUIRED = new AccessDeniedException(
 			"User credentials are required.");
 	private static final AccessDeniedException BASIC_AUTH_SCHEME_REQUIRED = new AccessDeniedException(
@@ -99,9 +108,34 @@ public class AuthFilterService {
 
 	private final UserInfoService userInfoService;
 
+	private final UserInfoCache userInfoCache;
+
+	private final JwtVerificationCache jwtVerificationCache;
+
+	private final TokenGenerationTable tokenGenerationTable;
+
+	private final PasswordHashingService passwordHashingService;
+
+	private JWTVerifier jwtVerifier;
+
 	@Autowired
-	public AuthFilterService(UserInfoService userInfoService) {
+	public AuthFilterService(UserInfoService userInfoService,
+			UserInfoCache userInfoCache,
+			JwtVerificationCache jwtVerificationCache,
+			TokenGenerationTable tokenGenerationTable,
+			PasswordHashingService passwordHashingService) {
 		this.userInfoService = userInfoService;
+		this.userInfoCache = userInfoCache;
+		this.jwtVerificationCache = jwtVerificationCache;
+		this.tokenGenerationTable = tokenGenerationTable;
+		this.passwordHashingService = passwordHashingService;
+	}
+
+	@PostConstruct
+	public void init() {
+		// The verifier holds nothing but the secret and the issuer, so there is
+		// no need to build a new one for every request
+		jwtVerifier = new JWTVerifier(jwtSecret, null, jwtIssuer);
 	}
 
 	// Direct the actual authentication to baisc auth
@@ -109,7 +143,30 @@ public class AuthFilterService {
 		// Based on testing, getHeaderString() matches the header string in a
 		// case-insensitive way
 		// So no need to worry about the cases of the "Authorization" header
-		String authCredentials = requestContext.getHeaderString(AUTH_HEADER);
+		UserInfo userInfo = authenticateBasic(requestContext.getHeaderString(AUTH_HEADER), true);
+		requestContext.setProperty(AUTHENTICATED_USER, UserInfoSnapshot.of(userInfo));
+
+		// No need to check isUserInRole("admin") since everyone can sign in
+		// No need to check isAccountMatchesRequest(userAccount, requestContext)
+		// since the jwt URI doesn't contain username
+		SecurityContext securityContext = createSecurityContext(userInfo,
+				requestContext, AUTH_SCHEME_BASIC);
+
+		requestContext.setSecurityContext(securityContext);
+	}
+
+	/**
+	 * Basic auth of a sign in that runs on the password hashing thread pool,
+	 * see {@link PasswordHashingService#execute}.
+	 *
+	 * @param authCredentials the Authorization header
+	 * @return the signed in user
+	 */
+	public UserInfo authenticateBasic(String authCredentials) {
+		return authenticateBasic(authCredentials, false);
+	}
+
+	private UserInfo authenticateBasic(String authCredentials, boolean await) {
 		if (authCredentials == null) {
 			throw BASIC_AUTH_USER_CREDENTIALS_REQUIRED;
 		}
@@ -131,20 +188,14 @@ public class AuthFilterService {
 		// the request header
 		// So we'll need to get the user account info with username and password
 		String credentials = new String(Base64.getDecoder().decode(
-				authCredentialBase64));
-		UserInfo userInfo = retrieveUserInfo(credentials);
+				authCredentialBase64), StandardCharsets.UTF_8);
+		UserInfo userInfo = retrieveUserInfo(credentials, await);
 
 		if (userInfo == null) {
 			throw BASIC_AUTH_INVALID_USER_CREDENTIALS;
 		}
 
-		// No need to check isUserInRole("admin") since everyone can sign in
-		// No need to check isAccountMatchesRequest(userAccount, requestContext)
-		// since the jwt URI doesn't contain username
-		SecurityContext securityContext = createSecurityContext(userInfo,
-				requestContext, AUTH_SCHEME_BASIC);
-
-		requestContext.setSecurityContext(securityContext);
+		return userInfo;
 	}
 
 	// Direct the actual authentication to jwt based bearer schema
@@ -166,18 +217,48 @@ public class AuthFilterService {
 			throw BEARER_AUTH_SCHEME_REQUIRED;
 		}
 
-		// Verify JWT
-		try {
-			// "\\s+" will cause any number of consecutive spaces to split the
-			// string into tokens
-			// Here we split the auth string by space(s) and the second part is
-			// the base64 encoded JWT
-			String jwt = authCredentials.split("\\s+")[1];
+		// "\\s+" will cause any number of consecutive spaces to split the
+		// string into tokens
+		// Here we split the auth string by space(s) and the second part is
+		// the base64 encoded JWT
+		String jwt = authCredentials.split("\\s+")[1];
+
+		// Tokens that have been fully verified before are served from the
+		// cache, which saves both the HMAC check and the database round trip
+		TokenKey tokenKey = jwtVerificationCache.keyOf(jwt);
+		VerifiedJwt verifiedJwt = jwtVerificationCache.get(tokenKey);
+		if (verifiedJwt == null) {
+			verifiedJwt = verifyJwt(jwt, tokenKey, requestContext);
+			if (verifiedJwt == null) {
+				return;
+			}
+		}
+
+		// Verify the expiration date
+		if (System.currentTimeMillis() > verifiedJwt.getExp()) {
+			throw BEARER_AUTH_EXPIRED_JWT;
+		}
+
+		// Also make sure the uid found in jwt matches the one in URI
+		SecurityContext securityContext = createSecurityContext(
+				verifiedJwt.getEmail(), verifiedJwt.getRoles(), requestContext,
+				AUTH_SCHEME_BEARER);
+		if (!(securityContext.isUserInRole("admin") || isAccountMatchesRequest(
+				verifiedJwt.getUid(), requestContext))) {
+			throw FORBIDDEN_ACCESS;
+		}
 
+		requestContext.setSecurityContext(securityContext);
+	}
+
+	private VerifiedJwt verifyJwt(String jwt, TokenKey tokenKey,
+			ContainerRequestContext requestContext) {
+		try {
 			// Verify both secret and issuer
-			final JWTVerifier jwtVerifier = new JWTVerifier(jwtSecret, null,
-					jwtIssuer);
-			final Map<String, Object> claims = jwtVerifier.verify(jwt);
+			final Map<String, Object> claims;
+			try (Span span = Tracer.span("jwt.verify")) {
+				claims = jwtVerifier.verify(jwt);
+			}
 
 			// Verify the expiration date
 			Long exp = (Long) claims.get("exp");
@@ -194,53 +275,126 @@ public class AuthFilterService {
 			Integer uidInteger = (Integer) claims.get("uid");
 			Long uid = uidInteger.longValue();
 
-			UserInfo userInfo = userInfoService.findById(uid);
-			// Since we check the user existence here, no need to check it again
-			// in each endpoint service
-			if (userInfo == null) {
-				throw BEARER_AUTH_INVALID_JWT;
-			}
+			long stamp = jwtVerificationCache.stamp(uid);
+			VerifiedJwt verifiedJwt;
+			if (tokenGenerationTable.isStateless()) {
+				verifiedJwt = verifyGeneration(uid, exp, claims, requestContext);
+			} else {
+				UserInfo userInfo = findUserInfo(uid);
+				// Since we check the user existence here, no need to check it
+				// again in each endpoint service
+				if (userInfo == null) {
+					throw BEARER_AUTH_INVALID_JWT;
+				}
 
-			// Also make sure the uid found in jwt matches the one in URI
-			SecurityContext securityContext = createSecurityContext(userInfo,
-					requestContext, AUTH_SCHEME_BEARER);
-			if (!(securityContext.isUserInRole("admin") || isAccountMatchesRequest(
-					uid, requestContext))) {
-				throw FORBIDDEN_ACCESS;
-			}
+				// Then compare the jwt with the one stored in `public_key` field
+				// in user account table
+				// It's very possible that the jwt sent here has already been
+				// overwritten
+				String currentJwt = userInfo.getPublicKey();
+				if (!jwt.equals(currentJwt)) {
+					throw BEARER_AUTH_INVALID_JWT;
+				}
+				carryOver(userInfo, requestContext);
 
-			// Then compare the jwt with the one stored in `public_key` field in
-			// user account table
-			// It's very possible that the jwt sent here has already been
-			// overwritten
-			String currentJwt = userInfo.getPublicKey();
-			if (!currentJwt.equals(jwt)) {
-				throw BEARER_AUTH_INVALID_JWT;
+				verifiedJwt = new VerifiedJwt(uid, userInfo.getEmail(),
+						resolveRoles(userInfo), exp, claims);
 			}
+			jwtVerificationCache.put(tokenKey, verifiedJwt, stamp);
 
-			requestContext.setSecurityContext(securityContext);
+			return verifiedJwt;
 		} catch (NoSuchAlgorithmException | InvalidKeyException
 				| IllegalStateException | IOException | SignatureException
 				| JWTVerifyException ex) {
 			LOGGER.error("Failed to verify JWT", ex);
 		}
+
+		return null;
+	}
+
+	// Compare the generation carried by the jwt with the current generation
+	// of the user instead of reading the `public_key` field
+	private VerifiedJwt verifyGeneration(Long uid, Long exp,
+			Map<String, Object> claims, ContainerRequestContext requestContext) {
+		TokenGeneration generation = tokenGenerationTable.get(uid);
+		if (generation == null) {
+			// First time we see this user since startup
+			UserInfo userInfo = findUserInfo(uid);
+			if (userInfo == null) {
+				throw BEARER_AUTH_INVALID_JWT;
+			}
+			generation = tokenGenerationTable.refresh(userInfo);
+			carryOver(userInfo, requestContext);
+		}
+
+		Long version = TokenGenerationTable.versionOf(claims);
+		if (generation == null || version == null
+				|| generation.getVersion() != version) {
+			throw BEARER_AUTH_INVALID_JWT;
+		}
+
+		return new VerifiedJwt(uid, generation.getEmail(),
+				resolveRoles(generation.getRoleId()), exp, claims);
+	}
+
+	private UserInfo findUserInfo(Long uid) {
+		try (Span span = Tracer.span("userInfoService.findById")) {
+			return userInfoService.findById(uid);
+		}
+	}
+
+	private void carryOver(UserInfo userInfo,
+			ContainerRequestContext requestContext) {
+		userInfoCache.put(userInfo);
+		requestContext.setProperty(AUTHENTICATED_USER, UserInfoSnapshot.of(userInfo));
+	}
+
+	/**
+	 * Get the user read from the database while authenticating the request.
+	 *
+	 * @param requestContext
+	 * @return the user, or null if it hasn't been read
+	 */
+	public static UserInfoSnapshot getAuthenticatedUser(
+			ContainerRequestContext requestContext) {
+		return (UserInfoSnapshot) requestContext.getProperty(AUTHENTICATED_USER);
 	}
 
 	private boolean isAccountMatchesRequest(Long uid,
 			ContainerRequestContext requestContext) {
 		MultivaluedMap<String, String> pathParams = requestContext.getUriInfo()
 				.getPathParameters();
-		long reqUid = Long.parseLong(pathParams.getFirst("uid"));
+		String reqUid = pathParams.getFirst("uid");
+		// Resources without a uid in the URI, such as /admin, are for the
+		// admins only
+		if (reqUid == null) {
+			return false;
+		}
 
-		return uid.equals(reqUid);
+		return uid.equals(Long.parseLong(reqUid));
 	}
 
 	private SecurityContext createSecurityContext(UserInfo userInfo,
 			ContainerRequestContext requestContext, String authScheme) {
-		String email = userInfo.getEmail();
+		return createSecurityContext(userInfo.getEmail(),
+				resolveRoles(userInfo), requestContext, authScheme);
+	}
+
+	private SecurityContext createSecurityContext(String email,
+			Set<String> roles, ContainerRequestContext requestContext,
+			String authScheme) {
+		boolean secure = "https".equals(requestContext.getUriInfo()
+				.getRequestUri().getScheme());
+
+		return new CustomSecurityContext(email, roles, authScheme, secure);
+	}
+
+	private Set<String> resolveRoles(UserInfo userInfo) {
+		return resolveRoles(userInfo.getRoleId());
+	}
 
+	private Set<String> resolveRoles(int userroleId) {
 		Set<String> roles = new HashSet<>();
-		int userroleId = userInfo.getRoleId();
 		switch (userroleId) {
 		case 1:
 			roles.add(Role.USER);
@@ -250,43 +404,39 @@ public class AuthFilterService {
 			break;
 		}
 
-		boolean secure = "https".equals(requestContext.getUriInfo()
-				.getRequestUri().getScheme());
-
-		return new CustomSecurityContext(email, roles, authScheme, secure);
+		return roles;
 	}
 
 	/**
 	 * Find the user info by email and password provided in Basic Auth header
 	 *
 	 * @param credentials
+	 * @param await true to wait for the password hashing thread pool, false
+	 * when already on it
 	 * @return
 	 */
-	private UserInfo retrieveUserInfo(String credentials) {
-		StringTokenizer tokenizer = new StringTokenizer(credentials, ":");
-		String email = tokenizer.nextToken();
-		String password = tokenizer.nextToken();
-		UserInfo userInfo = null;
-		try {
-			MessageDigest m = MessageDigest.getInstance("MD5");
-			m.reset();
-			m.update(password.getBytes(Charset.forName("UTF-8")));
-			BigInteger bigInt = new BigInteger(1, m.digest());
-			String hashPassword = bigInt.toString(16);
-			hashPassword = hashPassword + MD5_SALTY;
-			m.reset();
-			m.update(hashPassword.getBytes(Charset.forName("UTF-8")));
-			bigInt = new BigInteger(1, m.digest());
-			String saltyHashPassword = bigInt.toString(16);
+	private UserInfo retrieveUserInfo(String credentials, boolean await) {
+		// The email can't contain a colon, everything after the first one is
+		// the password
+		int separator = credentials.indexOf(':');
+		if (separator <= 0) {
+			return null;
+		}
+		String email = credentials.substring(0, separator);
+		String password = credentials.substring(separator + 1);
+
+		UserInfo userInfo;
+		try (Span span = Tracer.span("userInfoService.findByEmail")) {
 			userInfo = userInfoService.findByEmail(email);
-			if(userInfo!=null){
-				if (!userInfo.getPassword().equals(saltyHashPassword)) {
+		}
+		if (userInfo != null) {
+			try (Span span = Tracer.span("password.verify")) {
+				boolean verified = await ? passwordHashingService.verify(userInfo, password)
+						: passwordHashingService.verifyInline(userInfo, password);
+				if (!verified) {
 					userInfo = null;
 				}
 			}
-
-		} catch (NoSuchAlgorithmException e) {
-			e.printStackTrace();
 		}
 
 		return userInfo;
@@ -0,0 +1,327 @@
+package edu.pitt.sis.cn3.rest.api.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.DispatchedJobDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobLeaseDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobQueueStatsDTO;
+import edu.pitt.sis.cn3.rest.api.exception.InvalidRequestException;
+import edu.pitt.sis.cn3.rest.api.exception.LeaseExpiredException;
+import edu.pitt.sis.cn3.rest.api.job.ActiveJobIndex;
+import edu.pitt.sis.cn3.rest.api.job.FairJobScheduler;
+import edu.pitt.sis.cn3.rest.api.job.FairJobScheduler.QueuedJob;
+import edu.pitt.sis.cn3.rest.api.job.JobLeaseTable;
+import edu.pitt.sis.cn3.rest.api.job.JobLeaseTable.Lease;
+import edu.pitt.sis.cn3.rest.api.job.JobQueueWriter;
+import edu.pitt.sis.cn3.rest.api.job.JobStatusNotifier;
+
+/**
+ * Hands the queued jobs to the workers in the order of the
+ * {@link FairJobScheduler}, either outright or under a lease that the worker
+ * has to renew until it reports the outcome of the job.
+ *
+ * The status changes are conditional on the current status in the
+ * database, so a worker completing a job and the lease of that job expiring
+ * at the same time can't both win.
+ *
+ * Oct 23, 2026 11:22:49 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Service
+public class JobDispatchService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JobDispatchService.class);
+
+	private final FairJobScheduler fairJobScheduler;
+
+	private final JobLeaseTable jobLeaseTable;
+
+	private final ActiveJobIndex activeJobIndex;
+
+	private final JobQueueWriter jobQueueWriter;
+
+	private final JobStatusNotifier jobStatusNotifier;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Meter dispatchedMeter;
+
+	private final Meter completedMeter;
+
+	private final Meter failedMeter;
+
+	private final Meter returnedMeter;
+
+	private final Meter expiredMeter;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	public JobDispatchService(FairJobScheduler fairJobScheduler, JobLeaseTable jobLeaseTable,
+			ActiveJobIndex activeJobIndex, JobQueueWriter jobQueueWriter, JobStatusNotifier jobStatusNotifier,
+			PlatformTransactionManager transactionManager, MetricRegistry metricRegistry) {
+		this.fairJobScheduler = fairJobScheduler;
+		this.jobLeaseTable = jobLeaseTable;
+		this.activeJobIndex = activeJobIndex;
+		this.jobQueueWriter = jobQueueWriter;
+		this.jobStatusNotifier = jobStatusNotifier;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.dispatchedMeter = metricRegistry.meter("jobs.queue.dispatched");
+		this.completedMeter = metricRegistry.meter("jobs.lease.completed");
+		this.failedMeter = metricRegistry.meter("jobs.lease.failed");
+		this.returnedMeter = metricRegistry.meter("jobs.lease.returned");
+		this.expiredMeter = metricRegistry.meter("jobs.lease.expired");
+	}
+
+	/**
+	 * Take up to limit jobs off the queue and mark them as running.
+	 *
+	 * @param limit
+	 * @return in dispatch order
+	 */
+	public List<DispatchedJobDTO> dispatch(int limit) {
+		return dispatchJobs(limit, running -> {
+		}).stream()
+				.map(JobDispatchService::toDispatchedJob)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Take up to limit jobs off the queue, mark them as running and lease them
+	 * to the worker. The jobs go back to the queue if the lease isn't renewed
+	 * in time.
+	 *
+	 * @param workerId may be null
+	 * @param limit
+	 * @param leaseDuration in milliseconds
+	 * @return in dispatch order
+	 */
+	public List<JobLeaseDTO> claim(String workerId, int limit, long leaseDuration) {
+		// Granted along with the running status, a job is never running
+		// without its lease
+		List<Lease> leases = new ArrayList<>();
+		dispatchJobs(limit, running -> leases.addAll(jobLeaseTable.grant(running, workerId, leaseDuration)));
+
+		return leases.stream().map(JobDispatchService::toJobLease).collect(Collectors.toList());
+	}
+
+	/**
+	 * Renew the lease on the job.
+	 *
+	 * @param jobId
+	 * @param leaseId
+	 * @param leaseDuration in milliseconds
+	 * @return
+	 */
+	public JobLeaseDTO heartbeat(Long jobId, String leaseId, long leaseDuration) {
+		Lease lease = jobLeaseTable.renew(jobId, leaseId, leaseDuration);
+		if (lease == null) {
+			throw new LeaseExpiredException(jobId);
+		}
+
+		return toJobLease(lease);
+	}
+
+	/**
+	 * Report the outcome of a leased job, or hand it back to the queue with
+	 * the queued status.
+	 *
+	 * @param jobId
+	 * @param leaseId
+	 * @param status finished, failed or queued
+	 * @return the job with its new status
+	 */
+	public JobInfoDTO complete(Long jobId, String leaseId, Integer status) {
+		if (status == null || !(JobStatus.isTerminal(status) || status == JobStatus.QUEUED)) {
+			throw new InvalidRequestException(String.format("The status must be %d (finished), %d (failed) or %d (queued).",
+					JobStatus.FINISHED, JobStatus.FAILED, JobStatus.QUEUED));
+		}
+
+		Lease lease = jobLeaseTable.get(jobId, leaseId);
+		if (lease == null) {
+			throw new LeaseExpiredException(jobId);
+		}
+
+		List<Long> jobIds = Collections.singletonList(jobId);
+		if (transactionTemplate.execute(tx -> changeStatus(jobIds, JobStatus.RUNNING, status)).isEmpty()) {
+			// The lease expired in the meantime, or the job was cancelled
+			jobLeaseTable.release(jobId, leaseId);
+			throw new LeaseExpiredException(jobId);
+		}
+		jobLeaseTable.release(jobId, leaseId);
+
+		QueuedJob job = lease.getJob();
+		if (status == JobStatus.QUEUED) {
+			returnedMeter.mark();
+			return requeue(job);
+		}
+
+		(status == JobStatus.FINISHED ? completedMeter : failedMeter).mark();
+		JobInfoDTO jobInfo = withStatus(job.getJobInfo(), status);
+		activeJobIndex.put(job.getOwnerId(), jobInfo);
+		jobStatusNotifier.publish(job.getOwnerId(), jobInfo);
+
+		return jobInfo;
+	}
+
+	/**
+	 * Put the jobs whose lease has expired back in the queue.
+	 */
+	@Scheduled(fixedDelayString = "${cn3.jobs.lease.sweep-interval}")
+	public void expireLeases() {
+		List<Lease> expired = jobLeaseTable.expire();
+		if (expired.isEmpty()) {
+			return;
+		}
+
+		List<Long> jobIds = expired.stream().map(lease -> lease.getJob().getJobId()).collect(Collectors.toList());
+		Set<Long> requeued;
+		try {
+			requeued = transactionTemplate.execute(tx -> changeStatus(jobIds, JobStatus.RUNNING, JobStatus.QUEUED));
+		} catch (RuntimeException e) {
+			// Still running in the database, swept again next time
+			jobLeaseTable.restore(expired);
+			LOGGER.error(String.format("Failed to requeue %d jobs with an expired lease", jobIds.size()), e);
+			return;
+		}
+		try {
+			jobLeaseTable.released(expired);
+		} catch (RuntimeException e) {
+			// Left behind, the jobs are no longer running by the time they're loaded
+			LOGGER.warn(String.format("Failed to delete %d expired leases", expired.size()), e);
+		}
+
+		for (Lease lease : expired) {
+			if (requeued.contains(lease.getJob().getJobId())) {
+				LOGGER.warn(String.format("Lease on job %d expired, worker: %s", lease.getJob().getJobId(), lease.getWorkerId()));
+				requeue(lease.getJob());
+			}
+		}
+		expiredMeter.mark(requeued.size());
+	}
+
+	private JobInfoDTO requeue(QueuedJob job) {
+		JobInfoDTO jobInfo = withStatus(job.getJobInfo(), JobStatus.QUEUED);
+		activeJobIndex.put(job.getOwnerId(), jobInfo);
+		fairJobScheduler.enqueue(job.getOwnerId(), jobInfo, job.getPriority());
+		jobStatusNotifier.publish(job.getOwnerId(), jobInfo);
+
+		return jobInfo;
+	}
+
+	// The action gets the jobs that are now running, within the transaction
+	private List<QueuedJob> dispatchJobs(int limit, Consumer<List<QueuedJob>> inTransaction) {
+		// The jobs queued before the start only reach the scheduler once the
+		// index has been loaded
+		activeJobIndex.require();
+		List<QueuedJob> polled = fairJobScheduler.poll(limit);
+		if (polled.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		Set<Long> runningJobIds;
+		try {
+			// The workers read the jobs from the database
+			polled.stream()
+					.map(QueuedJob::getJobId)
+					.filter(activeJobIndex::isPending)
+					.max(Long::compare)
+					.ifPresent(jobQueueWriter::awaitPersisted);
+
+			List<Long> jobIds = polled.stream().map(QueuedJob::getJobId).collect(Collectors.toList());
+			runningJobIds = transactionTemplate.execute(tx -> {
+				Set<Long> changed = changeStatus(jobIds, JobStatus.QUEUED, JobStatus.RUNNING);
+				inTransaction.accept(polled.stream()
+						.filter(job -> changed.contains(job.getJobId()))
+						.collect(Collectors.toList()));
+				return changed;
+			});
+		} catch (RuntimeException e) {
+			polled.forEach(fairJobScheduler::requeue);
+			throw e;
+		}
+
+		List<QueuedJob> dispatched = new ArrayList<>(runningJobIds.size());
+		for (QueuedJob job : polled) {
+			if (!runningJobIds.contains(job.getJobId())) {
+				// Cancelled, or taken from the database by a worker
+				fairJobScheduler.remove(job.getJobId());
+				continue;
+			}
+
+			JobInfoDTO running = withStatus(job.getJobInfo(), JobStatus.RUNNING);
+			activeJobIndex.put(job.getOwnerId(), running);
+			jobStatusNotifier.publish(job.getOwnerId(), running);
+			fairJobScheduler.dispatched(job);
+			dispatched.add(job);
+		}
+		dispatchedMeter.mark(dispatched.size());
+
+		return dispatched;
+	}
+
+	// Only the jobs that still have the expected status, the others are left
+	// alone
+	private Set<Long> changeStatus(List<Long> jobIds, int from, int to) {
+		List<Long> changedJobIds = entityManager
+				.createQuery("SELECT j.id FROM JobQueueInfo j WHERE j.id IN :ids AND j.status = :from", Long.class)
+				.setParameter("ids", jobIds)
+				.setParameter("from", from)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+		if (!changedJobIds.isEmpty()) {
+			entityManager.createQuery("UPDATE JobQueueInfo j SET j.status = :to WHERE j.id IN :ids")
+					.setParameter("to", to)
+					.setParameter("ids", changedJobIds)
+					.executeUpdate();
+		}
+
+		return new HashSet<>(changedJobIds);
+	}
+
+	private static JobInfoDTO withStatus(JobInfoDTO jobInfo, int status) {
+		return new JobInfoDTO(jobInfo.getId(), jobInfo.getTargetUserId(), status, jobInfo.getAddedTime());
+	}
+
+	private static DispatchedJobDTO toDispatchedJob(QueuedJob job) {
+		JobInfoDTO jobInfo = job.getJobInfo();
+
+		return new DispatchedJobDTO(jobInfo.getId(), job.getOwnerId(), jobInfo.getTargetUserId(), job.getPriority(),
+				jobInfo.getAddedTime());
+	}
+
+	private static JobLeaseDTO toJobLease(Lease lease) {
+		return new JobLeaseDTO(lease.getLeaseId(), new Date(lease.getExpiresAt()), toDispatchedJob(lease.getJob()));
+	}
+
+	public JobQueueStatsDTO queueStats(int limit) {
+		return fairJobScheduler.stats(limit);
+	}
+
+}
@@ -1,20 +1,63 @@
 package edu.pitt.sis.cn3.rest.api.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 import edu.pitt.sis.cn3.db.entity.JobQueueInfo;
 import edu.pitt.sis.cn3.db.entity.UserInfo;
 import edu.pitt.sis.cn3.db.service.JobQueueInfoService;
-import edu.pitt.sis.cn3.db.service.UserInfoService;
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.cache.IdempotencyKeyCache;
+import edu.pitt.sis.cn3.rest.api.cache.UserInfoCache;
+import edu.pitt.sis.cn3.rest.api.cache.UserInfoSnapshot;
+import edu.pitt.sis.cn3.rest.api.dto.JobCancelQuery;
+import edu.pitt.sis.cn3.rest.api.dto.JobCancelResult;
+import edu.pitt.sis.cn3.rest.api.dto.JobChangesDTO;
 import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobListQuery;
+import edu.pitt.sis.cn3.rest.api.dto.JobSubmissionResult;
+import edu.pitt.sis.cn3.rest.api.exception.JobNotFoundException;
+import edu.pitt.sis.cn3.rest.api.exception.UserNotFoundException;
+import edu.pitt.sis.cn3.rest.api.job.ActiveJobIndex;
+import edu.pitt.sis.cn3.rest.api.job.JobEventLog;
+import edu.pitt.sis.cn3.rest.api.job.FairJobScheduler;
+import edu.pitt.sis.cn3.rest.api.job.JobQueueWriter;
+import edu.pitt.sis.cn3.rest.api.job.JobStatusNotifier;
+import edu.pitt.sis.cn3.rest.api.provider.JobInfoJsonWriter;
+import edu.pitt.sis.cn3.rest.api.trace.Span;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
 
 /**
  *
@@ -27,28 +70,198 @@ public class JobQueueEndpointService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(JobQueueEndpointService.class);
 	
-	private final UserInfoService userInfoService;
+	private static final int MAX_IN_LIST = 500;
+	
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	
+	private static final int SUBMISSION_LOCK_STRIPES = 64;
+	
+	private final UserInfoCache userInfoCache;
 	
 	private final JobQueueInfoService jobQueueInfoService;
+	
+	private final JobQueueInfoQueryService jobQueueInfoQueryService;
+	
+	private final JobStatusNotifier jobStatusNotifier;
+	
+	private final ActiveJobIndex activeJobIndex;
+	
+	private final JobQueueWriter jobQueueWriter;
+	
+	private final IdempotencyKeyCache idempotencyKeyCache;
+	
+	private final FairJobScheduler fairJobScheduler;
+	
+	private final JobEventLog jobEventLog;
+	
+	private final TransactionTemplate transactionTemplate;
+	
+	private final boolean collapsePending;
+	
+	// Only one submission at a time for the same owner and target user, so
+	// that two of them can't both find no queued job
+	private final Object[] submissionLocks = new Object[SUBMISSION_LOCK_STRIPES];
+	
+	private final Meter collapsed;
+	
+	private final int batchSize;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
 
 	@Autowired
-	public JobQueueEndpointService(UserInfoService userInfoService, JobQueueInfoService jobQueueInfoService) {
-		this.userInfoService = userInfoService;
+	public JobQueueEndpointService(UserInfoCache userInfoCache, JobQueueInfoService jobQueueInfoService,
+			JobQueueInfoQueryService jobQueueInfoQueryService, JobStatusNotifier jobStatusNotifier,
+			ActiveJobIndex activeJobIndex, JobQueueWriter jobQueueWriter, IdempotencyKeyCache idempotencyKeyCache,
+			FairJobScheduler fairJobScheduler, JobEventLog jobEventLog, PlatformTransactionManager transactionManager,
+			MetricRegistry metricRegistry,
+			@Value("${cn3.jobs.dedup.collapse-pending}") boolean collapsePending,
+			@Value("${spring.jpa.properties.hibernate.jdbc.batch_size}") int batchSize) {
+		this.userInfoCache = userInfoCache;
 		this.jobQueueInfoService = jobQueueInfoService;
+		this.jobQueueInfoQueryService = jobQueueInfoQueryService;
+		this.jobStatusNotifier = jobStatusNotifier;
+		this.activeJobIndex = activeJobIndex;
+		this.jobQueueWriter = jobQueueWriter;
+		this.idempotencyKeyCache = idempotencyKeyCache;
+		this.fairJobScheduler = fairJobScheduler;
+		this.jobEventLog = jobEventLog;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.collapsePending = collapsePending;
+		this.collapsed = metricRegistry.meter("jobs.dedup.collapsed");
+		this.batchSize = batchSize;
+		for (int i = 0; i < SUBMISSION_LOCK_STRIPES; i++) {
+			submissionLocks[i] = new Object();
+		}
 	}
 
+	/**
+	 * Submit a job, unless the same submission was already made with the
+	 * given idempotency key or, with cn3.jobs.dedup.collapse-pending, the owner
+	 * already has a queued job for the target user.
+	 *
+	 * @param ownerId
+	 * @param targetUserId
+	 * @param priority dispatch priority
+	 * @param authenticatedUser
+	 * @param idempotencyKey may be null
+	 * @return created, or existing with the earlier job
+	 */
+	public JobSubmissionResult addNewRecommendationRequestJob(Long ownerId, Long targetUserId, int priority,
+			UserInfoSnapshot authenticatedUser, String idempotencyKey){
+		if (idempotencyKey == null) {
+			return submitRecommendationRequestJob(ownerId, targetUserId, priority, authenticatedUser);
+		}
+		return idempotencyKeyCache.submit(ownerId, idempotencyKey, targetUserId,
+				() -> submitRecommendationRequestJob(ownerId, targetUserId, priority, authenticatedUser));
+	}
 	
-	public JobInfoDTO addNewRecommendationRequestJob(Long ownerId, Long targetUserId){
-		UserInfo userInfo = userInfoService.findById(ownerId);
-		UserInfo targetUserInfo = userInfoService.findById(targetUserId);
+	private JobSubmissionResult submitRecommendationRequestJob(Long ownerId, Long targetUserId, int priority,
+			UserInfoSnapshot authenticatedUser){
+		if (!collapsePending) {
+			return JobSubmissionResult.created(addRecommendationRequestJob(ownerId, targetUserId, priority, authenticatedUser));
+		}
 		
-		JobQueueInfo jobQueueInfo = new JobQueueInfo();
-		jobQueueInfo.setAddedTime(new Date(System.currentTimeMillis()));
-		jobQueueInfo.setStatus(0);
-		jobQueueInfo.setOwners(Collections.singleton(userInfo));
-		jobQueueInfo.setTargetUsers(Collections.singleton(targetUserInfo));
+		synchronized (submissionLocks[submissionLockStripe(ownerId, targetUserId)]) {
+			JobInfoDTO queuedJob = findQueuedJob(ownerId, targetUserId);
+			if (queuedJob != null) {
+				collapsed.mark();
+				return JobSubmissionResult.existing(queuedJob);
+			}
+			return JobSubmissionResult.created(addRecommendationRequestJob(ownerId, targetUserId, priority, authenticatedUser));
+		}
+	}
+	
+	private static int submissionLockStripe(Long ownerId, Long targetUserId){
+		return (int) ((31 * ownerId + targetUserId) & (SUBMISSION_LOCK_STRIPES - 1));
+	}
+	
+	// Runs the action holding the given submission lock stripes, which must be
+	// sorted so that two batches always take them in the same order
+	private <T> T withSubmissionLocks(int[] stripes, int from, Supplier<T> action){
+		if (from == stripes.length) {
+			return action.get();
+		}
+		synchronized (submissionLocks[stripes[from]]) {
+			return withSubmissionLocks(stripes, from + 1, action);
+		}
+	}
+	
+	// The earliest queued job of the owner for the target user, in the
+	// database or only in the write-ahead log. The log is read first, a job
+	// that leaves it in the meantime is in the database by then
+	private JobInfoDTO findQueuedJob(Long ownerId, Long targetUserId){
+		JobInfoDTO pendingJob = jobQueueWriter.isWriteBehind() ? findPendingJobs(ownerId).get(targetUserId) : null;
+		JobInfoDTO queuedJob;
+		try (Span span = Tracer.span("jobQueueInfoQueryService.findQueuedJobInfo")) {
+			queuedJob = jobQueueInfoQueryService.findQueuedJobInfo(ownerId, targetUserId);
+		}
+		return queuedJob != null ? queuedJob : pendingJob;
+	}
+	
+	// Same for each of the target users, by target user
+	private Map<Long, JobInfoDTO> findQueuedJobs(Long ownerId, List<Long> targetUserIds){
+		Map<Long, JobInfoDTO> pendingJobs = jobQueueWriter.isWriteBehind() ? findPendingJobs(ownerId)
+				: Collections.emptyMap();
+		Map<Long, JobInfoDTO> queuedJobs;
+		try (Span span = Tracer.span("jobQueueInfoQueryService.findQueuedJobInfos")) {
+			queuedJobs = jobQueueInfoQueryService.findQueuedJobInfos(ownerId, targetUserIds);
+		}
+		for (Long targetUserId : targetUserIds) {
+			JobInfoDTO pendingJob = pendingJobs.get(targetUserId);
+			if (pendingJob != null) {
+				queuedJobs.putIfAbsent(targetUserId, pendingJob);
+			}
+		}
+		return queuedJobs;
+	}
+	
+	// The queued jobs of the owner that are only in the write-ahead log, by
+	// target user
+	private Map<Long, JobInfoDTO> findPendingJobs(Long ownerId){
+		return activeJobIndex.findPendingByOwner(ownerId).stream()
+				.filter(jobInfo -> jobInfo.getStatus() == JobStatus.QUEUED)
+				.collect(Collectors.toMap(JobInfoDTO::getTargetUserId, jobInfo -> jobInfo, (first, second) -> first));
+	}
+	
+	private JobInfoDTO addRecommendationRequestJob(Long ownerId, Long targetUserId, int priority,
+			UserInfoSnapshot authenticatedUser){
+		if (findOwner(ownerId, authenticatedUser) == null) {
+			throw new UserNotFoundException(String.valueOf(ownerId));
+		}
+		try (Span span = Tracer.span("userInfoCache.findById")) {
+			if (userInfoCache.findById(targetUserId) == null) {
+				throw new UserNotFoundException(String.valueOf(targetUserId));
+			}
+		}
 		
-		jobQueueInfo = jobQueueInfoService.saveJobIntoQueue(jobQueueInfo);
+		if (jobQueueWriter.isWriteBehind()) {
+			JobInfoDTO jobInfo;
+			try (Span span = Tracer.span("jobQueueWriter.append")) {
+				jobInfo = jobQueueWriter.append(ownerId, Collections.singletonList(targetUserId)).get(0);
+			}
+			
+			LOGGER.info(String.format("New recommendation request job logged. Job ID: %d", jobInfo.getId()));
+			
+			jobStatusNotifier.publish(ownerId, jobInfo);
+			fairJobScheduler.enqueue(ownerId, jobInfo, priority);
+			
+			return jobInfo;
+		}
+		
+		// The users are only cached as snapshots, the job refers to them by id
+		JobQueueInfo jobQueueInfo;
+		try (Span span = Tracer.span("jobQueueInfoService.saveJobIntoQueue")) {
+			jobQueueInfo = transactionTemplate.execute(status -> {
+				JobQueueInfo newJobQueueInfo = new JobQueueInfo();
+				newJobQueueInfo.setAddedTime(new Date(System.currentTimeMillis()));
+				newJobQueueInfo.setStatus(JobStatus.QUEUED);
+				newJobQueueInfo.setOwners(Collections.singleton(entityManager.getReference(UserInfo.class, ownerId)));
+				newJobQueueInfo.setTargetUsers(
+						Collections.singleton(entityManager.getReference(UserInfo.class, targetUserId)));
+				return jobQueueInfoService.saveJobIntoQueue(newJobQueueInfo);
+			});
+		}
 		
 		Long newJobId = jobQueueInfo.getId();
 
@@ -60,42 +273,422 @@ public class JobQueueEndpointService {
         jobInfo.setStatus(jobQueueInfo.getStatus());
         jobInfo.setTargetUserId(targetUserId);
         
+        activeJobIndex.put(ownerId, jobInfo);
+        jobStatusNotifier.publish(ownerId, jobInfo);
+        fairJobScheduler.enqueue(ownerId, jobInfo, priority);
+        
 		return jobInfo;
 	}
 	
-	public List<JobInfoDTO> listAllJobQueues(Long ownerId){
-		UserInfo userInfo = userInfoService.findById(ownerId);
-		List<JobQueueInfo> jobQueueInfos = jobQueueInfoService.findByOwners(Collections.singleton(userInfo));
+	/**
+	 * Submit one job per target user in a single transaction. The ids of the
+	 * owner and all the target users are checked with one query, and the
+	 * inserts are flushed in JDBC batches.
+	 *
+	 * With cn3.jobs.dedup.collapse-pending, the target users that already have
+	 * a queued job, or are repeated in the batch, get the existing job. The
+	 * submission locks of all the target users are held until the new jobs are
+	 * committed, like for a single submission.
+	 *
+	 * @param ownerId
+	 * @param targetUserIds
+	 * @param priorities dispatch priority by target user
+	 * @return the result of each target user, in the same order
+	 */
+	public List<JobSubmissionResult> addNewRecommendationRequestJobs(Long ownerId, List<Long> targetUserIds,
+			Map<Long, Integer> priorities){
+		Set<Long> userIds = new HashSet<>(targetUserIds);
+		userIds.add(ownerId);
+		Set<Long> existingUserIds = findExistingUserIds(userIds);
+		if (!existingUserIds.contains(ownerId)) {
+			throw new UserNotFoundException(String.valueOf(ownerId));
+		}
+		
+		if (!collapsePending) {
+			return submitRecommendationRequestJobs(ownerId, targetUserIds, existingUserIds, priorities);
+		}
+		
+		int[] stripes = targetUserIds.stream()
+				.mapToInt(targetUserId -> submissionLockStripe(ownerId, targetUserId))
+				.distinct()
+				.sorted()
+				.toArray();
+		return withSubmissionLocks(stripes, 0,
+				() -> collapseRecommendationRequestJobs(ownerId, targetUserIds, existingUserIds, priorities));
+	}
+	
+	private List<JobSubmissionResult> collapseRecommendationRequestJobs(Long ownerId, List<Long> targetUserIds,
+			Set<Long> existingUserIds, Map<Long, Integer> priorities){
+		Map<Long, JobInfoDTO> queuedJobs = findQueuedJobs(ownerId, targetUserIds);
+		List<Long> newTargetUserIds = targetUserIds.stream()
+				.filter(targetUserId -> !queuedJobs.containsKey(targetUserId))
+				.distinct()
+				.collect(Collectors.toList());
+		List<JobSubmissionResult> newResults = submitRecommendationRequestJobs(ownerId, newTargetUserIds,
+				existingUserIds, priorities);
+		
+		Map<Long, JobSubmissionResult> newResultsByTarget = new HashMap<>();
+		newResults.forEach(result -> newResultsByTarget.put(result.getTargetUserId(), result));
+		Set<Long> reported = new HashSet<>();
+		List<JobSubmissionResult> results = new ArrayList<>(targetUserIds.size());
+		for (Long targetUserId : targetUserIds) {
+			JobSubmissionResult result = newResultsByTarget.get(targetUserId);
+			if (queuedJobs.containsKey(targetUserId)) {
+				results.add(JobSubmissionResult.existing(queuedJobs.get(targetUserId)));
+			} else if (reported.add(targetUserId) || result.getJob() == null) {
+				results.add(result);
+			} else {
+				results.add(JobSubmissionResult.existing(result.getJob()));
+			}
+		}
+		collapsed.mark(targetUserIds.size() - newTargetUserIds.size());
+		
+		return results;
+	}
+	
+	private List<JobSubmissionResult> submitRecommendationRequestJobs(Long ownerId, List<Long> targetUserIds,
+			Set<Long> existingUserIds, Map<Long, Integer> priorities){
+		if (jobQueueWriter.isWriteBehind()) {
+			return appendRecommendationRequestJobs(ownerId, targetUserIds, existingUserIds, priorities);
+		}
+		return transactionTemplate.execute(
+				status -> insertRecommendationRequestJobs(ownerId, targetUserIds, existingUserIds, priorities));
+	}
+	
+	private List<JobSubmissionResult> insertRecommendationRequestJobs(Long ownerId, List<Long> targetUserIds,
+			Set<Long> existingUserIds, Map<Long, Integer> priorities){
+		UserInfo userInfo = entityManager.getReference(UserInfo.class, ownerId);
+		Date addedTime = new Date(System.currentTimeMillis());
+		List<JobQueueInfo> jobQueueInfos = new ArrayList<>(targetUserIds.size());
+		// One span for the whole batch of inserts
+		try (Span span = Tracer.span("entityManager.persist")) {
+			for (Long targetUserId : targetUserIds) {
+				if (!existingUserIds.contains(targetUserId)) {
+					jobQueueInfos.add(null);
+					continue;
+				}
+				
+				JobQueueInfo jobQueueInfo = new JobQueueInfo();
+				jobQueueInfo.setAddedTime(addedTime);
+				jobQueueInfo.setStatus(JobStatus.QUEUED);
+				jobQueueInfo.setOwners(Collections.singleton(userInfo));
+				jobQueueInfo.setTargetUsers(Collections.singleton(entityManager.getReference(UserInfo.class, targetUserId)));
+				entityManager.persist(jobQueueInfo);
+				jobQueueInfos.add(jobQueueInfo);
+				
+				if (jobQueueInfos.size() % batchSize == 0) {
+					entityManager.flush();
+				}
+			}
+			entityManager.flush();
+		}
 		
-		List<JobInfoDTO> jobInfos = new ArrayList<>();
-		jobQueueInfos.forEach(jobQueueInfo -> {
-			JobInfoDTO jobInfo = new JobInfoDTO();
-			jobInfo.setAddedTime(jobQueueInfo.getAddedTime());
-			jobInfo.setId(jobQueueInfo.getId());
-	        jobInfo.setStatus(jobQueueInfo.getStatus());
-	        jobInfo.setTargetUserId(jobQueueInfo.getTargetUsers().iterator().next().getId());
-	        jobInfos.add(jobInfo);
+		List<JobSubmissionResult> results = new ArrayList<>(targetUserIds.size());
+		List<JobInfoDTO> jobInfos = new ArrayList<>(targetUserIds.size());
+		for (int i = 0; i < targetUserIds.size(); i++) {
+			JobQueueInfo jobQueueInfo = jobQueueInfos.get(i);
+			if (jobQueueInfo == null) {
+				results.add(JobSubmissionResult.rejected(targetUserIds.get(i), "Target user not found."));
+			} else {
+				JobInfoDTO jobInfo = toJobInfo(jobQueueInfo, targetUserIds.get(i));
+				results.add(JobSubmissionResult.created(jobInfo));
+				jobInfos.add(jobInfo);
+			}
+		}
+		
+		// Don't tell anyone about the jobs until they're committed
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				jobInfos.forEach(jobInfo -> {
+					activeJobIndex.put(ownerId, jobInfo);
+					jobStatusNotifier.publish(ownerId, jobInfo);
+					fairJobScheduler.enqueue(ownerId, jobInfo, priorities.get(jobInfo.getTargetUserId()));
+				});
+			}
 		});
 		
+		LOGGER.info(String.format("%d recommendation request jobs submitted in batch for user id %d",
+				jobQueueInfos.stream().filter(Objects::nonNull).count(), ownerId));
+		
+		return results;
+	}
+	
+	private List<JobSubmissionResult> appendRecommendationRequestJobs(Long ownerId, List<Long> targetUserIds,
+			Set<Long> existingUserIds, Map<Long, Integer> priorities){
+		List<Long> existingTargetUserIds = targetUserIds.stream()
+				.filter(existingUserIds::contains)
+				.collect(Collectors.toList());
+		List<JobInfoDTO> jobInfos;
+		try (Span span = Tracer.span("jobQueueWriter.append")) {
+			jobInfos = jobQueueWriter.append(ownerId, existingTargetUserIds);
+		}
+		
+		List<JobSubmissionResult> results = new ArrayList<>(targetUserIds.size());
+		Iterator<JobInfoDTO> appended = jobInfos.iterator();
+		for (Long targetUserId : targetUserIds) {
+			if (existingUserIds.contains(targetUserId)) {
+				results.add(JobSubmissionResult.created(appended.next()));
+			} else {
+				results.add(JobSubmissionResult.rejected(targetUserId, "Target user not found."));
+			}
+		}
+		jobInfos.forEach(jobInfo -> {
+			jobStatusNotifier.publish(ownerId, jobInfo);
+			fairJobScheduler.enqueue(ownerId, jobInfo, priorities.get(jobInfo.getTargetUserId()));
+		});
+		
+		LOGGER.info(String.format("%d recommendation request jobs logged in batch for user id %d",
+				jobInfos.size(), ownerId));
+		
+		return results;
+	}
+	
+	private Set<Long> findExistingUserIds(Set<Long> userIds){
+		Set<Long> existingUserIds = new HashSet<>();
+		List<Long> ids = new ArrayList<>(userIds);
+		// Keep the IN lists at a reasonable size
+		for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+			List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+			try (Span span = Tracer.span("userInfo.findIds")) {
+				existingUserIds.addAll(entityManager
+						.createQuery("SELECT u.id FROM UserInfo u WHERE u.id IN :ids", Long.class)
+						.setParameter("ids", chunk)
+						.getResultList());
+			}
+		}
+		return existingUserIds;
+	}
+	
+	private JobInfoDTO toJobInfo(JobQueueInfo jobQueueInfo, Long targetUserId){
+		JobInfoDTO jobInfo = new JobInfoDTO();
+		jobInfo.setAddedTime(jobQueueInfo.getAddedTime());
+		jobInfo.setId(jobQueueInfo.getId());
+		jobInfo.setStatus(jobQueueInfo.getStatus());
+		jobInfo.setTargetUserId(targetUserId);
+		return jobInfo;
+	}
+	
+	public List<JobInfoDTO> listAllJobQueues(Long ownerId, JobListQuery jobListQuery){
+		try (Span span = Tracer.span("jobQueueInfoQueryService.findJobInfos")) {
+			return jobQueueInfoQueryService.findJobInfos(ownerId, jobListQuery);
+		}
+	}
+	
+	/**
+	 * Write the jobs of the owner as a JSON array while they're read from the
+	 * database, so the memory use doesn't depend on the number of jobs.
+	 *
+	 * @param ownerId
+	 * @param jobListQuery
+	 * @param output
+	 * @throws IOException
+	 */
+	public void streamJobQueues(Long ownerId, JobListQuery jobListQuery, OutputStream output) throws IOException {
+		// The rows are written as they're read, the span covers both
+		try (Span span = Tracer.span("jobQueueInfoQueryService.streamJobInfos");
+				JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+			generator.writeStartArray();
+			jobQueueInfoQueryService.streamJobInfos(ownerId, jobListQuery,
+					jobInfo -> JobInfoJsonWriter.writeJobInfo(jobInfo, generator));
+			generator.writeEndArray();
+		}
+	}
+	
+	public List<JobInfoDTO> listActiveJobs(Long ownerId){
+		List<JobInfoDTO> activeJobs;
+		try (Span span = Tracer.span("jobQueueInfoQueryService.findActiveJobInfos")) {
+			activeJobs = jobQueueInfoQueryService.findActiveJobInfos(ownerId);
+		}
+		if (!jobQueueWriter.isWriteBehind()) {
+			return activeJobs;
+		}
+		
+		// Plus the jobs still in the write-ahead log, unless they've been
+		// inserted since
+		Set<Long> jobIds = activeJobs.stream().map(JobInfoDTO::getId).collect(Collectors.toSet());
+		List<JobInfoDTO> pendingJobs = activeJobIndex.findPendingByOwner(ownerId).stream()
+				.filter(jobInfo -> !jobIds.contains(jobInfo.getId()))
+				.collect(Collectors.toList());
+		if (pendingJobs.isEmpty()) {
+			return activeJobs;
+		}
+		List<JobInfoDTO> jobInfos = new ArrayList<>(activeJobs);
+		jobInfos.addAll(pendingJobs);
+		jobInfos.sort(Comparator.comparing(JobInfoDTO::getId));
 		return jobInfos;
 	}
 	
+	/**
+	 * Version of the jobs of the owner, it changes whenever one of them is
+	 * added, changes status or is cancelled through the API. The changes the
+	 * workers make directly in the database are only seen once the active job
+	 * index has been reloaded.
+	 *
+	 * @param ownerId
+	 * @return null until the active jobs have been loaded
+	 */
+	public Long jobsVersion(Long ownerId){
+		return activeJobIndex.require() ? jobEventLog.version(ownerId) : null;
+	}
+	
+	/**
+	 * The active job as the index has it, to answer the conditional reads
+	 * from memory. Only as recent as the last reload for the changes the
+	 * workers make directly in the database.
+	 *
+	 * @param ownerId
+	 * @param jobId
+	 * @return the job, or null if it isn't in the index or the index hasn't
+	 * been loaded yet
+	 */
+	public JobInfoDTO findActiveJob(Long ownerId, Long jobId){
+		return activeJobIndex.require() ? activeJobIndex.get(ownerId, jobId) : null;
+	}
+	
+	/**
+	 * @param ownerId
+	 * @param jobId
+	 * @return the job, or null if it isn't only in the write-ahead log
+	 */
+	public JobInfoDTO findPendingJob(Long ownerId, Long jobId){
+		return activeJobIndex.getPending(ownerId, jobId);
+	}
+	
+	/**
+	 * The changes of the jobs of the owner after the given sequence, from the
+	 * in-memory event log.
+	 *
+	 * @param ownerId
+	 * @param since null to only get the current sequence
+	 * @param limit
+	 * @return
+	 */
+	public JobChangesDTO jobChanges(Long ownerId, Long since, int limit){
+		return jobEventLog.changesSince(ownerId, since, limit);
+	}
+	
 	public JobInfoDTO jobStatus(Long ownerId, Long jobId){
-		UserInfo userInfo = userInfoService.findById(ownerId);
-		JobQueueInfo jobQueueInfo = jobQueueInfoService.findByIdAndOwners(jobId, userInfo);
-		JobInfoDTO jobInfo = new JobInfoDTO();
-        jobInfo.setAddedTime(jobQueueInfo.getAddedTime());
-        jobInfo.setId(jobQueueInfo.getId());
-        jobInfo.setStatus(jobQueueInfo.getStatus());
-        jobInfo.setTargetUserId(jobQueueInfo.getTargetUsers().iterator().next().getId());
+		// Not in the database yet
+		JobInfoDTO jobInfo = activeJobIndex.getPending(ownerId, jobId);
+		if (jobInfo != null) {
+			return jobInfo;
+		}
+		
+		try (Span span = Tracer.span("jobQueueInfoQueryService.findJobInfo")) {
+			jobInfo = jobQueueInfoQueryService.findJobInfo(ownerId, jobId);
+		}
+		if (jobInfo == null) {
+			throw new JobNotFoundException(jobId);
+		}
         
 		return jobInfo;
 	}
 	
-	public boolean cancelJob(Long ownerId, Long jobId){
-		UserInfo userInfo = userInfoService.findById(ownerId);
-		JobQueueInfo jobQueueInfo = jobQueueInfoService.findByIdAndOwners(jobId, userInfo);
-		boolean success = jobQueueInfoService.deleteJobInQueue(jobQueueInfo);
-		return success;
+	/**
+	 * Cancel a queued job of the owner.
+	 *
+	 * @param ownerId
+	 * @param jobId
+	 * @param authenticatedUser
+	 * @return false if the job is no longer queued
+	 * @throws JobNotFoundException if the owner has no such job
+	 */
+	public boolean cancelJob(Long ownerId, Long jobId, UserInfoSnapshot authenticatedUser){
+		try (Span span = Tracer.span("jobQueueWriter.awaitPersisted")) {
+			jobQueueWriter.awaitPersisted(jobId);
+		}
+		
+		if (findOwner(ownerId, authenticatedUser) == null) {
+			throw new JobNotFoundException(jobId);
+		}
+		try (Span span = Tracer.span("jobQueueInfoQueryService.findJobInfo")) {
+			if (jobQueueInfoQueryService.findJobInfo(ownerId, jobId) == null) {
+				throw new JobNotFoundException(jobId);
+			}
+		}
+		// Same as the bulk cancel, a job that is already running, finished or
+		// failed is kept
+		List<Long> deleted;
+		try (Span span = Tracer.span("jobs.deleteQueued")) {
+			deleted = transactionTemplate.execute(status -> deleteQueuedJobs(Collections.singletonList(jobId)));
+		}
+		if (deleted.isEmpty()) {
+			return false;
+		}
+		activeJobIndex.remove(ownerId, jobId);
+		fairJobScheduler.remove(jobId);
+		jobStatusNotifier.publishCancelled(ownerId, jobId);
+		return true;
+	}
+	
+	/**
+	 * Cancel the queued jobs of the owner matching the filters. The jobs are
+	 * deleted in chunks of at most MAX_IN_LIST, one transaction each, and the
+	 * ones that are already running, finished or failed are skipped.
+	 *
+	 * @param ownerId
+	 * @param jobCancelQuery
+	 * @return
+	 */
+	public JobCancelResult cancelJobs(Long ownerId, JobCancelQuery jobCancelQuery){
+		// The jobs still in the write-ahead log have to reach the database first
+		activeJobIndex.findPendingByOwner(ownerId).stream()
+				.map(JobInfoDTO::getId)
+				.max(Long::compare)
+				.ifPresent(jobQueueWriter::awaitPersisted);
+		
+		List<Long> jobIds;
+		try (Span span = Tracer.span("jobQueueInfoQueryService.findJobIds")) {
+			jobIds = jobQueueInfoQueryService.findJobIds(ownerId, jobCancelQuery);
+		}
+		int cancelled = 0;
+		for (int from = 0; from < jobIds.size(); from += MAX_IN_LIST) {
+			List<Long> chunk = jobIds.subList(from, Math.min(from + MAX_IN_LIST, jobIds.size()));
+			List<Long> deleted;
+			try (Span span = Tracer.span("jobs.deleteQueued")) {
+				deleted = transactionTemplate.execute(status -> deleteQueuedJobs(chunk));
+			}
+			deleted.forEach(jobId -> {
+				activeJobIndex.remove(ownerId, jobId);
+				fairJobScheduler.remove(jobId);
+				jobStatusNotifier.publishCancelled(ownerId, jobId);
+			});
+			cancelled += deleted.size();
+		}
+		
+		LOGGER.info(String.format("%d jobs cancelled and %d skipped for user id %d",
+				cancelled, jobIds.size() - cancelled, ownerId));
+		
+		return new JobCancelResult(cancelled, jobIds.size() - cancelled);
+	}
+	
+	// Only the jobs that are still queued, locked until the end of the
+	// transaction so that no worker can start them in the meantime
+	private List<Long> deleteQueuedJobs(List<Long> jobIds){
+		List<Long> queuedJobIds = entityManager
+				.createQuery("SELECT j.id FROM JobQueueInfo j WHERE j.id IN :ids AND j.status = :queued", Long.class)
+				.setParameter("ids", jobIds)
+				.setParameter("queued", JobStatus.QUEUED)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+		if (!queuedJobIds.isEmpty()) {
+			// Hibernate deletes the rows of the owners and target users join
+			// tables of a bulk delete as well
+			entityManager.createQuery("DELETE FROM JobQueueInfo j WHERE j.id IN :ids")
+					.setParameter("ids", queuedJobIds)
+					.executeUpdate();
+		}
+		return queuedJobIds;
+	}
+	
+	// The auth filter has most likely read the owner already
+	private UserInfoSnapshot findOwner(Long ownerId, UserInfoSnapshot authenticatedUser){
+		if (authenticatedUser != null && authenticatedUser.getId().equals(ownerId)) {
+			return authenticatedUser;
+		}
+		try (Span span = Tracer.span("userInfoCache.findById")) {
+			return userInfoCache.findById(ownerId);
+		}
 	}
 }
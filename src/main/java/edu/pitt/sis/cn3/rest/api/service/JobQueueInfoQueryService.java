@@ -0,0 +1,393 @@
+package edu.pitt.sis.cn3.rest.api.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.pitt.sis.cn3.rest.api.JobStatus;
+import edu.pitt.sis.cn3.rest.api.dto.JobCancelQuery;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobListQuery;
+
+/**
+ * Read-only job queue queries that the job queue endpoints need on top of
+ * JobQueueInfoService. Only the columns of {@link JobInfoDTO} are selected,
+ * the entities are never loaded.
+ *
+ * Oct 19, 2026 1:32:08 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Service
+public class JobQueueInfoQueryService {
+
+	// One row per job, straight into the DTO
+	private static final String SELECT_JOB_INFO = "SELECT NEW edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO(j.id, t.id, j.status, j.addedTime)"
+			+ " FROM JobQueueInfo j JOIN j.owners o JOIN j.targetUsers t"
+			+ " WHERE o.id = :ownerId";
+
+	// Same with the owner id in front
+	private static final String SELECT_OWNER_JOB_INFO = "SELECT o.id, j.id, t.id, j.status, j.addedTime"
+			+ " FROM JobQueueInfo j JOIN j.owners o JOIN j.targetUsers t";
+
+	private static final int MAX_IN_LIST = 500;
+
+	private static final List<Integer> TERMINAL_STATUSES = Arrays.asList(JobStatus.FINISHED, JobStatus.FAILED);
+
+	private final int streamFetchSize;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	public JobQueueInfoQueryService(@Value("${cn3.jobs.stream.fetch-size}") int streamFetchSize) {
+		this.streamFetchSize = streamFetchSize;
+	}
+
+	/**
+	 * Find the job of the owner.
+	 *
+	 * @param ownerId
+	 * @param jobId
+	 * @return the job, or null if the owner doesn't have such job
+	 */
+	@Transactional(readOnly = true)
+	public JobInfoDTO findJobInfo(Long ownerId, Long jobId) {
+		List<JobInfoDTO> jobInfos = entityManager
+				.createQuery(SELECT_JOB_INFO + " AND j.id = :jobId", JobInfoDTO.class)
+				.setParameter("ownerId", ownerId)
+				.setParameter("jobId", jobId)
+				.setMaxResults(1)
+				.getResultList();
+
+		return jobInfos.isEmpty() ? null : jobInfos.get(0);
+	}
+
+	/**
+	 * Find the jobs of the owner matching the query, ordered by id.
+	 *
+	 * @param ownerId
+	 * @param jobListQuery
+	 * @return at most jobListQuery.getLimit() jobs
+	 */
+	@Transactional(readOnly = true)
+	public List<JobInfoDTO> findJobInfos(Long ownerId, JobListQuery jobListQuery) {
+		TypedQuery<JobInfoDTO> query = createQuery(ownerId, jobListQuery);
+		if (jobListQuery.isPaged()) {
+			query.setMaxResults(jobListQuery.getLimit());
+		}
+
+		return query.getResultList();
+	}
+
+	/**
+	 * Find the jobs of the owner that haven't finished or failed yet.
+	 *
+	 * @param ownerId
+	 * @return
+	 */
+	@Transactional(readOnly = true)
+	public List<JobInfoDTO> findActiveJobInfos(Long ownerId) {
+		return entityManager
+				.createQuery(SELECT_JOB_INFO + " AND j.status NOT IN (:terminal) ORDER BY j.id", JobInfoDTO.class)
+				.setParameter("ownerId", ownerId)
+				.setParameter("terminal", TERMINAL_STATUSES)
+				.getResultList();
+	}
+
+	/**
+	 * Find the earliest queued job of the owner for the target user.
+	 *
+	 * @param ownerId
+	 * @param targetUserId
+	 * @return the job, or null if there is none
+	 */
+	@Transactional(readOnly = true)
+	public JobInfoDTO findQueuedJobInfo(Long ownerId, Long targetUserId) {
+		List<JobInfoDTO> jobInfos = entityManager
+				.createQuery(SELECT_JOB_INFO + " AND t.id = :targetUserId AND j.status = :status ORDER BY j.id",
+						JobInfoDTO.class)
+				.setParameter("ownerId", ownerId)
+				.setParameter("targetUserId", targetUserId)
+				.setParameter("status", JobStatus.QUEUED)
+				.setMaxResults(1)
+				.getResultList();
+
+		return jobInfos.isEmpty() ? null : jobInfos.get(0);
+	}
+
+	/**
+	 * Find the earliest queued job of the owner for each of the target users.
+	 *
+	 * @param ownerId
+	 * @param targetUserIds
+	 * @return the jobs by target user id, only for the users that have one
+	 */
+	@Transactional(readOnly = true)
+	public Map<Long, JobInfoDTO> findQueuedJobInfos(Long ownerId, Collection<Long> targetUserIds) {
+		List<Long> ids = new ArrayList<>(new TreeSet<>(targetUserIds));
+		Map<Long, JobInfoDTO> jobInfos = new HashMap<>();
+		for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+			entityManager
+					.createQuery(SELECT_JOB_INFO + " AND t.id IN (:chunk) AND j.status = :status ORDER BY j.id",
+							JobInfoDTO.class)
+					.setParameter("ownerId", ownerId)
+					.setParameter("chunk", ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size())))
+					.setParameter("status", JobStatus.QUEUED)
+					.getResultList()
+					.forEach(jobInfo -> jobInfos.putIfAbsent(jobInfo.getTargetUserId(), jobInfo));
+		}
+
+		return jobInfos;
+	}
+
+	/**
+	 * Find the jobs with the given ids, whoever the owner is.
+	 *
+	 * @param jobIds
+	 * @return
+	 */
+	@Transactional(readOnly = true)
+	public List<JobInfoDTO> findJobInfosByIds(Collection<Long> jobIds) {
+		List<Long> ids = new ArrayList<>(jobIds);
+		List<JobInfoDTO> jobInfos = new ArrayList<>(ids.size());
+		for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+			jobInfos.addAll(entityManager
+					.createQuery("SELECT NEW edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO(j.id, t.id, j.status, j.addedTime)"
+							+ " FROM JobQueueInfo j JOIN j.targetUsers t WHERE j.id IN :ids", JobInfoDTO.class)
+					.setParameter("ids", ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size())))
+					.getResultList());
+		}
+
+		return jobInfos;
+	}
+
+	/**
+	 * Find the jobs of the given owners added after the given job.
+	 *
+	 * @param ownerIds
+	 * @param afterJobId
+	 * @return the new jobs by owner id
+	 */
+	@Transactional(readOnly = true)
+	public Map<Long, List<JobInfoDTO>> findNewJobInfos(Collection<Long> ownerIds, long afterJobId) {
+		List<Long> ids = new ArrayList<>(ownerIds);
+		Map<Long, List<JobInfoDTO>> jobInfos = new HashMap<>();
+		for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+			groupByOwner(entityManager
+					.createQuery(SELECT_OWNER_JOB_INFO + " WHERE o.id IN :ownerIds AND j.id > :afterJobId ORDER BY j.id", Object[].class)
+					.setParameter("ownerIds", ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size())))
+					.setParameter("afterJobId", afterJobId)
+					.getResultList(), jobInfos);
+		}
+
+		return jobInfos;
+	}
+
+	/**
+	 * Find the ids of the jobs that haven't finished or failed yet, whoever
+	 * the owner is, a page at a time.
+	 *
+	 * @param afterJobId
+	 * @param limit
+	 * @return ordered by id
+	 */
+	@Transactional(readOnly = true)
+	public List<Long> findActiveJobIds(long afterJobId, int limit) {
+		return entityManager
+				.createQuery("SELECT j.id FROM JobQueueInfo j WHERE j.status NOT IN (:terminal) AND j.id > :afterJobId"
+						+ " ORDER BY j.id", Long.class)
+				.setParameter("terminal", TERMINAL_STATUSES)
+				.setParameter("afterJobId", afterJobId)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	/**
+	 * Find the jobs with the given ids along with their owners.
+	 *
+	 * @param jobIds
+	 * @return the jobs by owner id
+	 */
+	@Transactional(readOnly = true)
+	public Map<Long, List<JobInfoDTO>> findOwnerJobInfosByIds(Collection<Long> jobIds) {
+		List<Long> ids = new ArrayList<>(jobIds);
+		Map<Long, List<JobInfoDTO>> jobInfos = new HashMap<>();
+		for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+			groupByOwner(entityManager
+					.createQuery(SELECT_OWNER_JOB_INFO + " WHERE j.id IN :ids", Object[].class)
+					.setParameter("ids", ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size())))
+					.getResultList(), jobInfos);
+		}
+
+		return jobInfos;
+	}
+
+	private static void groupByOwner(List<Object[]> rows, Map<Long, List<JobInfoDTO>> jobInfos) {
+		rows.forEach(row -> jobInfos.computeIfAbsent((Long) row[0], ownerId -> new ArrayList<>())
+				.add(new JobInfoDTO((Long) row[1], (Long) row[2], ((Number) row[3]).intValue(), (Date) row[4])));
+	}
+
+	@Transactional(readOnly = true)
+	public long findMaxJobId() {
+		Long maxJobId = entityManager.createQuery("SELECT MAX(j.id) FROM JobQueueInfo j", Long.class)
+				.getSingleResult();
+
+		return maxJobId == null ? 0 : maxJobId;
+	}
+
+	/**
+	 * Hand the jobs of the owner matching the query to the handler one by one
+	 * while they're read from a forward-only database cursor.
+	 *
+	 * @param ownerId
+	 * @param jobListQuery
+	 * @param handler
+	 * @throws IOException
+	 */
+	@Transactional(readOnly = true)
+	public void streamJobInfos(Long ownerId, JobListQuery jobListQuery, JobInfoHandler handler) throws IOException {
+		Query query = createQuery(ownerId, jobListQuery).unwrap(Query.class);
+		query.setReadOnly(true);
+		query.setFetchSize(streamFetchSize);
+		if (jobListQuery.isPaged()) {
+			query.setMaxResults(jobListQuery.getLimit());
+		}
+
+		ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			while (results.next()) {
+				handler.handle((JobInfoDTO) results.get(0));
+			}
+		} finally {
+			results.close();
+		}
+	}
+
+	/**
+	 * Find the ids of the jobs of the owner matching the cancellation filters.
+	 *
+	 * @param ownerId
+	 * @param jobCancelQuery
+	 * @return ordered by id
+	 */
+	@Transactional(readOnly = true)
+	public List<Long> findJobIds(Long ownerId, JobCancelQuery jobCancelQuery) {
+		List<Long> ids = jobCancelQuery.getIds();
+		if (ids == null || ids.isEmpty()) {
+			return createIdQuery(ownerId, jobCancelQuery, null).getResultList();
+		}
+
+		List<Long> jobIds = new ArrayList<>();
+		List<Long> distinctIds = new ArrayList<>(new TreeSet<>(ids));
+		for (int from = 0; from < distinctIds.size(); from += MAX_IN_LIST) {
+			List<Long> chunk = distinctIds.subList(from, Math.min(from + MAX_IN_LIST, distinctIds.size()));
+			jobIds.addAll(createIdQuery(ownerId, jobCancelQuery, chunk).getResultList());
+		}
+		return jobIds;
+	}
+
+	private TypedQuery<Long> createIdQuery(Long ownerId, JobCancelQuery jobCancelQuery, List<Long> ids) {
+		StringBuilder jpql = new StringBuilder("SELECT j.id FROM JobQueueInfo j JOIN j.owners o");
+		if (jobCancelQuery.getTargetUserId() != null) {
+			jpql.append(" JOIN j.targetUsers t");
+		}
+		jpql.append(" WHERE o.id = :ownerId");
+		if (jobCancelQuery.getTargetUserId() != null) {
+			jpql.append(" AND t.id = :targetUserId");
+		}
+		if (jobCancelQuery.getStatus() != null) {
+			jpql.append(" AND j.status = :status");
+		}
+		if (jobCancelQuery.getAddedAfter() != null) {
+			jpql.append(" AND j.addedTime >= :addedAfter");
+		}
+		if (jobCancelQuery.getAddedBefore() != null) {
+			jpql.append(" AND j.addedTime < :addedBefore");
+		}
+		if (ids != null) {
+			jpql.append(" AND j.id IN :ids");
+		}
+		jpql.append(" ORDER BY j.id");
+
+		TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class)
+				.setParameter("ownerId", ownerId);
+		if (jobCancelQuery.getTargetUserId() != null) {
+			query.setParameter("targetUserId", jobCancelQuery.getTargetUserId());
+		}
+		if (jobCancelQuery.getStatus() != null) {
+			query.setParameter("status", jobCancelQuery.getStatus());
+		}
+		if (jobCancelQuery.getAddedAfter() != null) {
+			query.setParameter("addedAfter", new Date(jobCancelQuery.getAddedAfter()));
+		}
+		if (jobCancelQuery.getAddedBefore() != null) {
+			query.setParameter("addedBefore", new Date(jobCancelQuery.getAddedBefore()));
+		}
+		if (ids != null) {
+			query.setParameter("ids", ids);
+		}
+
+		return query;
+	}
+
+	private TypedQuery<JobInfoDTO> createQuery(Long ownerId, JobListQuery jobListQuery) {
+		StringBuilder jpql = new StringBuilder(SELECT_JOB_INFO);
+		if (jobListQuery.getStatus() != null) {
+			jpql.append(" AND j.status = :status");
+		}
+		if (jobListQuery.getAddedAfter() != null) {
+			jpql.append(" AND j.addedTime >= :addedAfter");
+		}
+		if (jobListQuery.getAddedBefore() != null) {
+			jpql.append(" AND j.addedTime < :addedBefore");
+		}
+		if (jobListQuery.getAfter() != null) {
+			jpql.append(" AND j.id > :after");
+		}
+		jpql.append(" ORDER BY j.id");
+
+		TypedQuery<JobInfoDTO> query = entityManager.createQuery(jpql.toString(), JobInfoDTO.class)
+				.setParameter("ownerId", ownerId);
+		if (jobListQuery.getStatus() != null) {
+			query.setParameter("status", jobListQuery.getStatus());
+		}
+		if (jobListQuery.getAddedAfter() != null) {
+			query.setParameter("addedAfter", new Date(jobListQuery.getAddedAfter()));
+		}
+		if (jobListQuery.getAddedBefore() != null) {
+			query.setParameter("addedBefore", new Date(jobListQuery.getAddedBefore()));
+		}
+		if (jobListQuery.getAfter() != null) {
+			query.setParameter("after", jobListQuery.getAfter());
+		}
+
+		return query;
+	}
+
+	@FunctionalInterface
+	public interface JobInfoHandler {
+
+		void handle(JobInfoDTO jobInfo) throws IOException;
+
+	}
+
+}
@@ -22,7 +22,12 @@ import com.auth0.jwt.JWTSigner;
 
 import edu.pitt.sis.cn3.db.entity.UserInfo;
 import edu.pitt.sis.cn3.db.service.UserInfoService;
+import edu.pitt.sis.cn3.rest.api.cache.JwtVerificationCache;
+import edu.pitt.sis.cn3.rest.api.cache.TokenGenerationTable;
+import edu.pitt.sis.cn3.rest.api.cache.UserInfoCache;
 import edu.pitt.sis.cn3.rest.api.dto.JwtDTO;
+import edu.pitt.sis.cn3.rest.api.trace.Span;
+import edu.pitt.sis.cn3.rest.api.trace.Tracer;
 
 import java.time.Instant;
 import java.util.Base64;
@@ -49,6 +54,12 @@ public class JwtEndpointService {
 
     private final UserInfoService userInfoService;
 
+    private final UserInfoCache userInfoCache;
+
+    private final JwtVerificationCache jwtVerificationCache;
+
+    private final TokenGenerationTable tokenGenerationTable;
+
     private final long jwtLiftTime;
     
     private final String jwtSecret;
@@ -56,11 +67,17 @@ public class JwtEndpointService {
     private final String jwtIssuer;
     
     @Autowired
-    public JwtEndpointService(UserInfoService userInfoService, 
+    public JwtEndpointService(UserInfoService userInfoService,
+    		UserInfoCache userInfoCache,
+    		JwtVerificationCache jwtVerificationCache,
+    		TokenGenerationTable tokenGenerationTable,
     		@Value("${cn3.jwt.lifetime}") long jwtLiftTime,
     		@Value("${cn3.jwt.secret}") String jwtSecret,
     		@Value("${cn3.jwt.issuer}") String jwtIssuer) {
         this.userInfoService = userInfoService;
+        this.userInfoCache = userInfoCache;
+        this.jwtVerificationCache = jwtVerificationCache;
+        this.tokenGenerationTable = tokenGenerationTable;
         this.jwtLiftTime = jwtLiftTime;
         this.jwtSecret = jwtSecret;
         this.jwtIssuer = jwtIssuer;
@@ -77,8 +94,21 @@ public class JwtEndpointService {
 
         // When we can get here vai AuthFilterSerice, it means the user exists
         // so no need to check if (userAccount == null) and throw UserNotFoundException(uid)
-        UserInfo userInfo = userInfoService.findByEmail(email);
+        UserInfo userInfo;
+        try (Span span = Tracer.span("userInfoService.findByEmail")) {
+            userInfo = userInfoService.findByEmail(email);
+        }
 
+        return generateJwt(userInfo);
+    }
+
+    /**
+     * Issue a JWT to the user that has just signed in.
+     *
+     * @param userInfo
+     * @return
+     */
+    public JwtDTO generateJwt(UserInfo userInfo) {
         // Note this uid is Long object, we'll need to use the numeric primitive long
         // to store it into JWT claims
         Long uid = userInfo.getId();
@@ -105,13 +135,25 @@ public class JwtEndpointService {
         claims.put("exp", expDate.getTime());
         // Private/custom claim
         claims.put("uid", uid);
+        // Token generation, lets the stateless verification tell the current token
+        // from the overwritten ones without reading `public_key`
+        claims.put(TokenGenerationTable.VERSION_CLAIM, iatDate.getTime());
 
         // Generate the token string
-        String jwt = signer.sign(claims);
+        String jwt;
+        try (Span span = Tracer.span("jwt.sign")) {
+            jwt = signer.sign(claims);
+        }
 
         // We store this JWT into `public_key` field of the user account table
         userInfo.setPublicKey(jwt);
-        userInfoService.save(userInfo);
+        try (Span span = Tracer.span("userInfoCache.save")) {
+            userInfoCache.save(userInfo);
+        }
+
+        // The previous token is no longer valid, make sure it isn't served from the cache
+        tokenGenerationTable.issued(userInfo, iatDate.getTime());
+        jwtVerificationCache.invalidate(uid);
 
         LOGGER.info(String.format("Added JWT for user id %d", uid));
 
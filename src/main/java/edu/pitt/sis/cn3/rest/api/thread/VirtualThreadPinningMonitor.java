@@ -0,0 +1,99 @@
+package edu.pitt.sis.cn3.rest.api.thread;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Reports virtual threads that pin their carrier thread, typically by
+ * blocking on I/O inside the synchronized blocks of the JDBC driver, which
+ * takes the carrier away from all the other virtual threads.
+ *
+ * Listens to the `jdk.VirtualThreadPinned` events of a Flight Recorder
+ * stream in the application itself, through reflection since the stream API
+ * isn't in Java 8.
+ *
+ * Oct 20, 2026 3:05:37 PM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+@ConditionalOnProperty(name = "cn3.threads.virtual", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+	private final long threshold;
+
+	private final Timer pinned;
+
+	private AutoCloseable recordingStream;
+
+	@Autowired
+	public VirtualThreadPinningMonitor(MetricRegistry metricRegistry,
+			@Value("${cn3.threads.virtual.pinned-threshold}") long threshold) {
+		this.threshold = threshold;
+		this.pinned = metricRegistry.timer("threads.virtual.pinned");
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!VirtualThreads.isSupported()) {
+			return;
+		}
+
+		try {
+			Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+			Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+			Object stream = streamClass.getConstructor().newInstance();
+
+			Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+			settingsClass.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ofMillis(threshold));
+			settingsClass.getMethod("withStackTrace").invoke(settings);
+
+			Consumer<Object> handler = this::onPinned;
+			streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, handler);
+			streamClass.getMethod("startAsync").invoke(stream);
+
+			recordingStream = (AutoCloseable) stream;
+			LOGGER.info(String.format("Reporting virtual threads pinned for more than %d ms", threshold));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOGGER.warn("Unable to monitor pinned virtual threads", e);
+		}
+	}
+
+	private void onPinned(Object event) {
+		try {
+			Duration duration = (Duration) event.getClass().getMethod("getDuration").invoke(event);
+			pinned.update(duration.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (ReflectiveOperationException e) {
+			pinned.update(threshold, TimeUnit.MILLISECONDS);
+		}
+
+		// The event prints the stack trace of the pinned thread
+		LOGGER.warn("Virtual thread pinned its carrier thread: " + event);
+	}
+
+	@PreDestroy
+	public void stop() throws Exception {
+		if (recordingStream != null) {
+			recordingStream.close();
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package edu.pitt.sis.cn3.rest.api.trace;
+
+/**
+ * One timed step of a traced request, closed with try-with-resources. The
+ * spans of the requests that aren't sampled are all the same no-op span.
+ *
+ * Oct 28, 2026 9:47:12 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public final class Span implements AutoCloseable {
+
+	static final Span NOOP = new Span(null, null, 0, 0, null);
+
+	private final Trace trace;
+
+	private final String name;
+
+	// From the start of the trace, in nanoseconds
+	private final long offset;
+
+	private final int depth;
+
+	private final String thread;
+
+	// -1 while open, read without the lock of the trace by the dumps
+	private volatile long duration = -1;
+
+	Span(Trace trace, String name, long offset, int depth, String thread) {
+		this.trace = trace;
+		this.name = name;
+		this.offset = offset;
+		this.depth = depth;
+		this.thread = thread;
+	}
+
+	@Override
+	public void close() {
+		if (trace != null) {
+			trace.close(this);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public String getThread() {
+		return thread;
+	}
+
+	public long getDuration() {
+		return duration;
+	}
+
+	void setDuration(long duration) {
+		this.duration = duration;
+	}
+
+}
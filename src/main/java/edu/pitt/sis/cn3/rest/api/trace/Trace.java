@@ -0,0 +1,108 @@
+package edu.pitt.sis.cn3.rest.api.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The spans of one sampled request. The request moves from the Jetty thread
+ * to a job queue thread and back, so the spans are opened and closed under
+ * the lock of the trace.
+ *
+ * Oct 28, 2026 9:52:36 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public final class Trace {
+
+	// A batch submission opens a few spans per job
+	private static final int MAX_SPANS = 256;
+
+	private final long requestId;
+
+	private final String method;
+
+	private final String path;
+
+	private final long startTime = System.currentTimeMillis();
+
+	private final long start = System.nanoTime();
+
+	private final List<Span> spans = new ArrayList<>();
+
+	private int depth;
+
+	private int droppedSpans;
+
+	// -1 until the response is written
+	private long duration = -1;
+
+	private int status;
+
+	Trace(long requestId, String method, String path) {
+		this.requestId = requestId;
+		this.method = method;
+		this.path = path;
+	}
+
+	public synchronized Span open(String name) {
+		if (duration >= 0) {
+			return Span.NOOP;
+		}
+		if (spans.size() == MAX_SPANS) {
+			droppedSpans++;
+			return Span.NOOP;
+		}
+
+		Span span = new Span(this, name, System.nanoTime() - start, depth++, Thread.currentThread().getName());
+		spans.add(span);
+
+		return span;
+	}
+
+	synchronized void close(Span span) {
+		if (span.getDuration() < 0) {
+			span.setDuration(System.nanoTime() - start - span.getOffset());
+			depth--;
+		}
+	}
+
+	synchronized void finish(int status) {
+		if (duration < 0) {
+			this.duration = System.nanoTime() - start;
+			this.status = status;
+		}
+	}
+
+	public long getRequestId() {
+		return requestId;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public synchronized long getDuration() {
+		return duration;
+	}
+
+	public synchronized int getStatus() {
+		return status;
+	}
+
+	public synchronized int getDroppedSpans() {
+		return droppedSpans;
+	}
+
+	public synchronized List<Span> getSpans() {
+		return new ArrayList<>(spans);
+	}
+
+}
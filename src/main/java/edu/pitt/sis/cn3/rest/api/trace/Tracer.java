@@ -0,0 +1,157 @@
+package edu.pitt.sis.cn3.rest.api.trace;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.container.ContainerRequestContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process tracing of the requests. Every request gets a request id, sent
+ * back in the X-Request-Id header, and cn3.trace.sample-rate of them get a
+ * trace. The trace of a request is bound to the thread working on it, and
+ * the service and persistence calls open their spans with
+ * {@link #span(String)}, which is a no-op span without a trace.
+ *
+ * The slowest cn3.trace.slowest traces are kept for /admin/traces.
+ *
+ * Oct 28, 2026 10:08:51 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@Component
+public class Tracer {
+
+	public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+	public static final String REQUEST_ID_PROPERTY = Tracer.class.getName() + ".requestId";
+
+	public static final String TRACE_PROPERTY = Tracer.class.getName() + ".trace";
+
+	private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+	private static final Comparator<Trace> BY_DURATION = Comparator.comparingLong(Trace::getDuration);
+
+	// Start from the clock so the ids don't repeat after a restart
+	private final AtomicLong requestIds = new AtomicLong(System.currentTimeMillis() << 20);
+
+	private final double sampleRate;
+
+	private final int slowest;
+
+	// The fastest of the kept traces first
+	private final PriorityQueue<Trace> slowestTraces;
+
+	// Duration of the fastest kept trace once full, the faster traces are
+	// dropped without the lock
+	private volatile long threshold = -1;
+
+	@Autowired
+	public Tracer(@Value("${cn3.trace.sample-rate}") double sampleRate,
+			@Value("${cn3.trace.slowest}") int slowest) {
+		this.sampleRate = sampleRate;
+		this.slowest = slowest;
+		this.slowestTraces = new PriorityQueue<>(Math.max(slowest, 1), BY_DURATION);
+	}
+
+	/**
+	 * Assign the request id of the request and, if it's sampled, start its
+	 * trace on the current thread.
+	 *
+	 * @param requestContext
+	 */
+	public void start(ContainerRequestContext requestContext) {
+		long requestId = requestIds.incrementAndGet();
+		requestContext.setProperty(REQUEST_ID_PROPERTY, requestId);
+
+		if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+			CURRENT.remove();
+			return;
+		}
+
+		Trace trace = new Trace(requestId, requestContext.getMethod(), requestContext.getUriInfo().getPath());
+		requestContext.setProperty(TRACE_PROPERTY, trace);
+		CURRENT.set(trace);
+	}
+
+	public void finish(Trace trace, int status) {
+		trace.finish(status);
+		if (slowest <= 0 || trace.getDuration() <= threshold) {
+			return;
+		}
+
+		synchronized (slowestTraces) {
+			slowestTraces.add(trace);
+			if (slowestTraces.size() > slowest) {
+				slowestTraces.poll();
+			}
+			if (slowestTraces.size() == slowest) {
+				threshold = slowestTraces.peek().getDuration();
+			}
+		}
+	}
+
+	/**
+	 * @return the slowest traces, the slowest first
+	 */
+	public List<Trace> slowestTraces() {
+		List<Trace> traces;
+		synchronized (slowestTraces) {
+			traces = new ArrayList<>(slowestTraces);
+		}
+		traces.sort(BY_DURATION.reversed());
+
+		return traces;
+	}
+
+	public void clear() {
+		synchronized (slowestTraces) {
+			slowestTraces.clear();
+			threshold = -1;
+		}
+	}
+
+	/**
+	 * Open a span in the trace of the current thread.
+	 *
+	 * @param name
+	 * @return the span, the no-op one if the request isn't sampled
+	 */
+	public static Span span(String name) {
+		Trace trace = CURRENT.get();
+
+		return trace == null ? Span.NOOP : trace.open(name);
+	}
+
+	/**
+	 * @return the trace of the current thread, or null
+	 */
+	public static Trace current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Carry a trace over to the thread that takes over the request.
+	 *
+	 * @param trace the trace, or null
+	 */
+	public static void attach(Trace trace) {
+		if (trace == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(trace);
+		}
+	}
+
+	public static void detach() {
+		CURRENT.remove();
+	}
+
+}
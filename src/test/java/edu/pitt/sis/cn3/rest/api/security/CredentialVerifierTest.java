@@ -0,0 +1,132 @@
+package edu.pitt.sis.cn3.rest.api.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The verifier computes the same hashes as the original sign in, the
+ * MessageDigest and BigInteger.toString(16) one, over random passwords and
+ * salts. The digests that start with zeros, which lose them in the hex
+ * string, are sought out rather than left to chance.
+ *
+ * Oct 18, 2026 11:02:37 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class CredentialVerifierTest {
+
+	private static final int PASSWORDS = 5000;
+
+	// Per salt, of each kind of digest that starts with zeros
+	private static final int LEADING_ZEROS = 20;
+
+	private static final String[] SALTS = { "", "salty", "s@lt:with spaces", "selé 塩" };
+
+	private final Random random = new Random(20261018L);
+
+	@Test
+	public void matchesTheOriginalAlgorithm() throws NoSuchAlgorithmException {
+		for (String salt : SALTS) {
+			CredentialVerifier credentialVerifier = new CredentialVerifier(salt);
+			for (int i = 0; i < PASSWORDS; i++) {
+				String password = randomPassword();
+				String storedHash = originalHash(password, salt);
+
+				assertEquals(password, storedHash, credentialVerifier.hash(password));
+				assertTrue(password, credentialVerifier.matches(password, storedHash));
+				assertFalse(password, credentialVerifier.matches(password + "x", storedHash));
+			}
+		}
+	}
+
+	@Test
+	public void matchesTheDigestsThatStartWithZeros() throws NoSuchAlgorithmException {
+		for (String salt : SALTS) {
+			CredentialVerifier credentialVerifier = new CredentialVerifier(salt);
+			int innerZeros = 0;
+			int outerZeros = 0;
+			int zeroBytes = 0;
+			while (innerZeros < LEADING_ZEROS || outerZeros < LEADING_ZEROS || zeroBytes < LEADING_ZEROS) {
+				String password = randomPassword();
+				byte[] innerDigest = md5(password);
+				byte[] outerDigest = md5(new BigInteger(1, innerDigest).toString(16) + salt);
+				boolean innerZero = (innerDigest[0] & 0xF0) == 0;
+				boolean outerZero = (outerDigest[0] & 0xF0) == 0;
+				boolean zeroByte = innerDigest[0] == 0 || outerDigest[0] == 0;
+				if (!innerZero && !outerZero) {
+					continue;
+				}
+				innerZeros += innerZero ? 1 : 0;
+				outerZeros += outerZero ? 1 : 0;
+				zeroBytes += zeroByte ? 1 : 0;
+
+				String storedHash = originalHash(password, salt);
+				assertEquals(password, storedHash, credentialVerifier.hash(password));
+				assertTrue(password, credentialVerifier.matches(password, storedHash));
+				if (outerZero) {
+					// Zero padded, as a fixed width hex string would have it
+					String paddedHash = String.format("%032x", new BigInteger(1, outerDigest));
+					assertFalse(password, credentialVerifier.matches(password, paddedHash));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void rejectsMissingPasswordsAndHashes() {
+		CredentialVerifier credentialVerifier = new CredentialVerifier("salty");
+
+		assertFalse(credentialVerifier.matches(null, credentialVerifier.hash("password")));
+		assertFalse(credentialVerifier.matches("password", null));
+		assertFalse(credentialVerifier.matches("password", ""));
+	}
+
+	// The hash of the sign in before the verifier
+	private static String originalHash(String password, String salt) throws NoSuchAlgorithmException {
+		MessageDigest m = MessageDigest.getInstance("MD5");
+		m.reset();
+		m.update(password.getBytes(StandardCharsets.UTF_8));
+		BigInteger bigInt = new BigInteger(1, m.digest());
+		String hashPassword = bigInt.toString(16);
+		hashPassword = hashPassword + salt;
+		m.reset();
+		m.update(hashPassword.getBytes(StandardCharsets.UTF_8));
+		bigInt = new BigInteger(1, m.digest());
+
+		return bigInt.toString(16);
+	}
+
+	private static byte[] md5(String text) throws NoSuchAlgorithmException {
+		return MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// ASCII mostly, with some accented letters, CJK and emoji
+	private String randomPassword() {
+		int length = random.nextInt(40);
+		StringBuilder password = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			int kind = random.nextInt(20);
+			if (kind == 0) {
+				password.append((char) (0x00C0 + random.nextInt(0x100)));
+			} else if (kind == 1) {
+				password.append((char) (0x4E00 + random.nextInt(0x5000)));
+			} else if (kind == 2) {
+				password.appendCodePoint(0x1F600 + random.nextInt(0x50));
+			} else {
+				password.append((char) (0x20 + random.nextInt(0x5F)));
+			}
+		}
+
+		return password.toString();
+	}
+
+}
@@ -0,0 +1,105 @@
+package edu.pitt.sis.cn3.rest.api.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import edu.pitt.sis.cn3.db.entity.UserInfo;
+import edu.pitt.sis.cn3.db.service.UserInfoService;
+import edu.pitt.sis.cn3.rest.api.CN3RestApiApplication;
+import edu.pitt.sis.cn3.rest.api.dto.JobInfoDTO;
+import edu.pitt.sis.cn3.rest.api.dto.JobListQuery;
+
+/**
+ * A listing of 500 jobs, each one with its target user, is read with a
+ * single SQL statement, whether it's returned as a list or streamed.
+ *
+ * Oct 30, 2026 10:55:09 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = CN3RestApiApplication.class, webEnvironment = WebEnvironment.NONE,
+		properties = "spring.profiles.active=test")
+public class JobListingStatementCountTest {
+
+	private static final int JOBS = 500;
+
+	private static final int TARGET_USERS = 50;
+
+	// The context, and the database, is shared by the test methods
+	private static Long ownerId;
+
+	@Autowired
+	private UserInfoService userInfoService;
+
+	@Autowired
+	private JobQueueEndpointService jobQueueEndpointService;
+
+	@Before
+	public void seed() {
+		if (ownerId != null) {
+			return;
+		}
+
+		Long ownerId = saveUser("owner@pitt.edu");
+		List<Long> targetUserIds = new ArrayList<>(JOBS);
+		Map<Long, Integer> priorities = new HashMap<>();
+		for (int i = 0; i < TARGET_USERS; i++) {
+			Long targetUserId = saveUser(String.format("target%d@pitt.edu", i));
+			priorities.put(targetUserId, 0);
+		}
+		List<Long> distinctTargetUserIds = new ArrayList<>(priorities.keySet());
+		for (int i = 0; i < JOBS; i++) {
+			targetUserIds.add(distinctTargetUserIds.get(i % TARGET_USERS));
+		}
+		jobQueueEndpointService.addNewRecommendationRequestJobs(ownerId, targetUserIds, priorities);
+
+		JobListingStatementCountTest.ownerId = ownerId;
+	}
+
+	private Long saveUser(String email) {
+		UserInfo userInfo = new UserInfo();
+		userInfo.setEmail(email);
+		userInfo.setPassword("");
+		userInfo.setRoleId(1);
+		userInfoService.save(userInfo);
+
+		return userInfoService.findByEmail(email).getId();
+	}
+
+	@Test
+	public void listAllJobQueues() {
+		StatementCounter.start();
+		List<JobInfoDTO> jobInfos = jobQueueEndpointService.listAllJobQueues(ownerId, new JobListQuery());
+		List<String> statements = StatementCounter.stop();
+
+		assertEquals(JOBS, jobInfos.size());
+		assertEquals(statements.toString(), 1, statements.size());
+	}
+
+	@Test
+	public void streamJobQueues() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		StatementCounter.start();
+		jobQueueEndpointService.streamJobQueues(ownerId, new JobListQuery(), output);
+		List<String> statements = StatementCounter.stop();
+
+		assertEquals(statements.toString(), 1, statements.size());
+	}
+
+}
@@ -0,0 +1,49 @@
+package edu.pitt.sis.cn3.rest.api.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector of the test profile that records the SQL
+ * statements prepared on the current thread between {@link #start()} and
+ * {@link #stop()}. The statements of the scheduled tasks, on other threads,
+ * aren't counted.
+ *
+ * Oct 30, 2026 10:48:21 AM
+ *
+ * @author Chirayu Kong Wongchokprasitti (chw20@pitt.edu)
+ */
+public class StatementCounter implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+	public static void start() {
+		STATEMENTS.set(new ArrayList<>());
+	}
+
+	/**
+	 * @return the statements prepared on this thread since {@link #start()}
+	 */
+	public static List<String> stop() {
+		List<String> statements = STATEMENTS.get();
+		STATEMENTS.remove();
+
+		return statements == null ? Collections.emptyList() : statements;
+	}
+
+	@Override
+	public String inspect(String sql) {
+		List<String> statements = STATEMENTS.get();
+		if (statements != null) {
+			statements.add(sql);
+		}
+
+		return sql;
+	}
+
+}